@@ -1,49 +1,121 @@
 package com.example.fmanager;
 
-import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.AfterReturning;
-import org.aspectj.lang.annotation.AfterThrowing;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+/**
+ * Logs service calls through one logger per method, named {@code <class>.<method>}, so that
+ * {@code logging.level.com.example.fmanager.service.TransactionService.getAllTransactions=WARN}
+ * silences a single method. Only {@code logging.aspect.sample-rate} of the calls are logged, and
+ * arguments and results are summarized: collections, maps and arrays by type and size, strings
+ * cut to {@code logging.aspect.max-value-length}, other objects by type. Failures are always
+ * logged.
+ */
 @Aspect
 @Component
 public class LoggingAspect {
-    private static final Logger logger = LoggerFactory.getLogger(LoggingAspect.class);
+    private final Map<Method, MethodLog> methodLogs = new ConcurrentHashMap<>();
+    private final double sampleRate;
+    private final int maxValueLength;
 
-    @Before("execution(* com.example.fmanager.service.*.*(..))")
-    public void logBefore(JoinPoint joinPoint) {
-        if (logger.isInfoEnabled()) {
-            logger.info("Executing method: {} with args: {}",
-                    joinPoint.getSignature().toShortString(), joinPoint.getArgs());
+    public LoggingAspect(@Value("${logging.aspect.sample-rate:1.0}") double sampleRate,
+                         @Value("${logging.aspect.max-value-length:100}") int maxValueLength) {
+        this.sampleRate = sampleRate;
+        this.maxValueLength = maxValueLength;
+    }
+
+    private record MethodLog(Logger logger, String name) {
+    }
+
+    @Around("execution(* com.example.fmanager.service.*.*(..)) "
+            + "&& !within(com.example.fmanager.service.MethodProfiler)")
+    public Object log(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodLog methodLog = methodLog(((MethodSignature) joinPoint.getSignature()).getMethod());
+        boolean sampled = methodLog.logger().isInfoEnabled() && (sampleRate >= 1
+                || ThreadLocalRandom.current().nextDouble() < sampleRate);
+        if (sampled) {
+            methodLog.logger().info("Executing method: {} with args: {}", methodLog.name(),
+                    summarizeArgs(joinPoint.getArgs()));
+        }
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable exception) {
+            methodLog.logger().error("Exception in method: {}. Reason: {}", methodLog.name(),
+                    exception.getMessage());
+            throw exception;
         }
+        if (sampled) {
+            methodLog.logger().info("Method {} executed successfully in {} us. Result: {}",
+                    methodLog.name(), (System.nanoTime() - start) / 1000,
+                    result != null ? summarize(result) : "void");
+        }
+        return result;
     }
 
-    @AfterReturning(
-            pointcut = "execution(* com.example.fmanager.service.*.*(..))",
-            returning = "result"
-    )
-    public void logAfterReturning(JoinPoint joinPoint, Object result) {
-        if (logger.isInfoEnabled()) {
-            logger.info("Method {} executed successfully. Result: {}",
-                    joinPoint.getSignature().toShortString(), (result != null ? result : "void"));
+    private MethodLog methodLog(Method method) {
+        MethodLog methodLog = methodLogs.get(method);
+        if (methodLog == null) {
+            methodLog = methodLogs.computeIfAbsent(method, key -> new MethodLog(
+                    LoggerFactory.getLogger(key.getDeclaringClass().getName() + "."
+                            + key.getName()),
+                    key.getDeclaringClass().getSimpleName() + "." + key.getName() + "(..)"));
         }
+        return methodLog;
     }
 
-    @AfterThrowing(
-            pointcut = "execution(* com.example.fmanager.service.*.*(..))",
-            throwing = "exception"
-    )
-    public void logAfterThrowing(JoinPoint joinPoint, Throwable exception) {
-        String errorMessage = String.format(
-                "Exception in method: %s. Reason: %s",
-                joinPoint.getSignature().toShortString(),
-                exception.getMessage()
-        );
-        logger.error(errorMessage);
+    private String summarizeArgs(Object[] args) {
+        StringBuilder summary = new StringBuilder("[");
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                summary.append(", ");
+            }
+            summary.append(summarize(args[i]));
+        }
+        return summary.append(']').toString();
     }
-}
 
+    String summarize(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character
+                || value instanceof Enum<?>) {
+            return value.toString();
+        }
+        if (value instanceof CharSequence text) {
+            return text.length() <= maxValueLength ? text.toString()
+                    : text.subSequence(0, maxValueLength) + "...(" + text.length() + " chars)";
+        }
+        String type = value.getClass().getSimpleName();
+        if (value instanceof Collection<?> collection) {
+            return type + "[size=" + collection.size() + "]";
+        }
+        if (value instanceof Map<?, ?> map) {
+            return type + "[size=" + map.size() + "]";
+        }
+        if (value.getClass().isArray()) {
+            return value.getClass().getComponentType().getSimpleName() + "["
+                    + Array.getLength(value) + "]";
+        }
+        if (value instanceof Optional<?> optional) {
+            return optional.map(inner -> "Optional[" + summarize(inner) + "]")
+                    .orElse("Optional.empty");
+        }
+        return type;
+    }
+}
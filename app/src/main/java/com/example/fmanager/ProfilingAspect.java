@@ -0,0 +1,65 @@
+package com.example.fmanager;
+
+import com.example.fmanager.service.MethodProfiler;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every service method and counts the SQL statements and entity rows it causes. Enabled
+ * with {@code profiling.enabled}; results are served under {@code /diagnostics/methods}.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "profiling.enabled", havingValue = "true")
+public class ProfilingAspect {
+    private final MethodProfiler methodProfiler;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public ProfilingAspect(MethodProfiler methodProfiler,
+                           EntityManagerFactory entityManagerFactory) {
+        this.methodProfiler = methodProfiler;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    public void countLoadedRows() {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD,
+                        (PostLoadEventListener) event -> MethodProfiler.countRow());
+    }
+
+    @Around("execution(* com.example.fmanager.service.*.*(..)) "
+            + "&& !within(com.example.fmanager.service.MethodProfiler)")
+    public Object profile(ProceedingJoinPoint joinPoint) throws Throwable {
+        long statements = MethodProfiler.statementCount();
+        long rows = MethodProfiler.rowCount();
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            methodProfiler.record(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                    ProfilingAspect::name, System.nanoTime() - start, statements, rows);
+        }
+    }
+
+    private static String name(Object key) {
+        Method method = (Method) key;
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName()
+                + Arrays.stream(method.getParameterTypes()).map(Class::getSimpleName)
+                .collect(Collectors.joining(", ", "(", ")"));
+    }
+}
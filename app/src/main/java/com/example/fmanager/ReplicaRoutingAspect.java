@@ -0,0 +1,88 @@
+package com.example.fmanager;
+
+import com.example.fmanager.service.ReplicaRouting;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.lang.reflect.Method;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Sends {@link com.example.fmanager.service.ReadReplica} methods to a replica. The call gets its
+ * own entity manager: the request-scoped one (open-in-view) holds on to the first connection it
+ * obtains, which would otherwise keep serving later primary reads and writes from the replica.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "datasource.replica", name = "urls")
+public class ReplicaRoutingAspect {
+    private static final String DTO_PACKAGE = "com.example.fmanager.dto";
+
+    private final ReplicaRouting replicaRouting;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public ReplicaRoutingAspect(ReplicaRouting replicaRouting,
+                                EntityManagerFactory entityManagerFactory) {
+        this.replicaRouting = replicaRouting;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Around("@annotation(com.example.fmanager.service.ReadReplica)")
+    public Object routeToReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (ReplicaRouting.isReplicaRead()
+                || TransactionSynchronizationManager.isActualTransactionActive()
+                || isStickyClient(joinPoint)) {
+            return joinPoint.proceed();
+        }
+        Object outer = TransactionSynchronizationManager
+                .unbindResourceIfPossible(entityManagerFactory);
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory,
+                new EntityManagerHolder(entityManager));
+        ReplicaRouting.setReplicaRead(true);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReplicaRouting.setReplicaRead(false);
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+            if (outer != null) {
+                TransactionSynchronizationManager.bindResource(entityManagerFactory, outer);
+            }
+        }
+    }
+
+    private boolean isStickyClient(ProceedingJoinPoint joinPoint) {
+        String[] names = ((MethodSignature) joinPoint.getSignature()).getParameterNames();
+        Object[] args = joinPoint.getArgs();
+        for (int i = 0; i < args.length; i++) {
+            Object clientId = names != null && "clientId".equals(names[i])
+                    ? args[i] : clientIdOf(args[i]);
+            if (clientId instanceof Integer id && replicaRouting.isSticky(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The client of a criteria or request DTO, read through its {@code getClientId()}.
+     */
+    private static Object clientIdOf(Object arg) {
+        if (arg == null || !arg.getClass().getPackageName().startsWith(DTO_PACKAGE)) {
+            return null;
+        }
+        Method getter = ReflectionUtils.findMethod(arg.getClass(), "getClientId");
+        return getter == null ? null : ReflectionUtils.invokeMethod(getter, arg);
+    }
+}
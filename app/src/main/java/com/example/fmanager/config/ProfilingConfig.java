@@ -0,0 +1,27 @@
+package com.example.fmanager.config;
+
+import com.example.fmanager.service.MethodProfiler;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "profiling.enabled", havingValue = "true")
+public class ProfilingConfig {
+
+    /**
+     * Counts the statements Hibernate prepares for {@link MethodProfiler}. Statements sent
+     * through {@code JdbcTemplate} bypass Hibernate and are not counted.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer statementCounter() {
+        StatementInspector inspector = sql -> {
+            MethodProfiler.countStatement();
+            return sql;
+        };
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.fmanager.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Active when {@code datasource.replica.urls} lists one or more read replicas. The primary is
+ * configured through the usual {@code spring.datasource.*} properties; the replicas share its
+ * credentials unless {@code datasource.replica.username}/{@code password} are set. The lazy proxy
+ * defers picking a target until the first statement, after the routing flag is known.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.replica", name = "urls")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties,
+                                 @Value("${datasource.replica.urls}") List<String> replicaUrls,
+                                 @Value("${datasource.replica.username:}") String username,
+                                 @Value("${datasource.replica.password:}") String password) {
+        DataSource primary = properties.initializeDataSourceBuilder().build();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicaRoutingDataSource.PRIMARY, primary);
+        List<String> replicaKeys = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replicaUrls.get(i).trim())
+                    .username(username.isEmpty() ? properties.determineUsername() : username)
+                    .password(password.isEmpty() ? properties.determinePassword() : password)
+                    .build();
+            replica.setPoolName("replica-" + i);
+            replica.setReadOnly(true);
+            targets.put(replica.getPoolName(), replica);
+            replicaKeys.add(replica.getPoolName());
+        }
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicaKeys);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
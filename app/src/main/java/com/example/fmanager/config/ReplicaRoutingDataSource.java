@@ -0,0 +1,29 @@
+package com.example.fmanager.config;
+
+import com.example.fmanager.service.ReplicaRouting;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Sends connections requested during a {@link com.example.fmanager.service.ReadReplica} call to
+ * the replicas in turn and every other connection to the primary.
+ */
+class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    static final String PRIMARY = "primary";
+
+    private final List<String> replicaKeys;
+    private final AtomicInteger next = new AtomicInteger();
+
+    ReplicaRoutingDataSource(List<String> replicaKeys) {
+        this.replicaKeys = replicaKeys;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!ReplicaRouting.isReplicaRead() || replicaKeys.isEmpty()) {
+            return PRIMARY;
+        }
+        return replicaKeys.get(Math.floorMod(next.getAndIncrement(), replicaKeys.size()));
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.fmanager.config;
+
+import com.example.fmanager.service.ShardRouting;
+import com.zaxxer.hikari.HikariDataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Sharding by client ID, active when {@code datasource.shards.urls} lists the databases after
+ * the primary, which stays shard 0 and is configured through {@code spring.datasource.*}. The
+ * shards share its credentials unless {@code datasource.shards.username}/{@code password} are
+ * set. Every shard is migrated with the same Flyway configuration, after which the identity
+ * sequences are interleaved: shard {@code i} hands out ids congruent to {@code i + 1} modulo
+ * {@code datasource.shards.id-stride}, which therefore bounds the number of shards.
+ */
+@Configuration
+public class ShardDataSourceConfig {
+    private static final List<String> IDENTITY_TABLES = List.of("clients", "categories",
+            "accounts", "budgets", "goals", "transactions", "categorization_rules",
+            "spending_rollups");
+
+    @Bean
+    @ConditionalOnExpression("'${datasource.shards.urls:}'.isEmpty()")
+    public ShardRouting unshardedRouting() {
+        return ShardRouting.unsharded();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "datasource.shards", name = "urls")
+    public ShardRouting shardRouting(DataSourceProperties properties,
+                                     @Value("${datasource.shards.urls}") List<String> shardUrls,
+                                     @Value("${datasource.shards.username:}") String username,
+                                     @Value("${datasource.shards.password:}") String password,
+                                     @Value("${datasource.shards.id-stride:16}") int idStride,
+                                     @Value("${datasource.shards.directory-ttl:PT1M}")
+                                     Duration directoryTtl,
+                                     @Value("${datasource.replica.urls:}") String replicaUrls,
+                                     ObjectProvider<PlatformTransactionManager>
+                                             transactionManager) {
+        if (!replicaUrls.isEmpty()) {
+            throw new IllegalStateException(
+                    "datasource.shards.urls and datasource.replica.urls cannot be combined");
+        }
+        if (shardUrls.size() + 1 > idStride) {
+            throw new IllegalStateException("datasource.shards.id-stride (" + idStride
+                    + ") must be at least the number of shards (" + (shardUrls.size() + 1) + ")");
+        }
+        List<DataSource> shards = new ArrayList<>();
+        HikariDataSource primary = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class).build();
+        primary.setPoolName("shard-0");
+        shards.add(primary);
+        for (String url : shardUrls) {
+            HikariDataSource shard = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .username(username.isEmpty() ? properties.determineUsername() : username)
+                    .password(password.isEmpty() ? properties.determinePassword() : password)
+                    .build();
+            shard.setPoolName("shard-" + shards.size());
+            shards.add(shard);
+        }
+        return new ShardRouting(shards, idStride, directoryTtl, transactionManager);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "datasource.shards", name = "urls")
+    public DataSource dataSource(ShardRouting shardRouting) {
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shardRouting.shardCount(); shard++) {
+            targets.put(shard, shardRouting.dataSource(shard));
+        }
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(shardRouting.dataSource(0));
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "datasource.shards", name = "urls")
+    public FlywayMigrationStrategy shardMigration(ShardRouting shardRouting) {
+        return flyway -> {
+            for (int shard = 0; shard < shardRouting.shardCount(); shard++) {
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(shardRouting.dataSource(shard))
+                        .load()
+                        .migrate();
+            }
+            interleaveIdentities(shardRouting);
+        };
+    }
+
+    /**
+     * Restarts the identity sequences of shards that are not interleaved yet above the highest
+     * id of any shard, so that ids already handed out are never repeated.
+     */
+    static void interleaveIdentities(ShardRouting shardRouting) {
+        int stride = shardRouting.idStride();
+        for (String table : IDENTITY_TABLES) {
+            long highest = 0;
+            for (int shard = 0; shard < shardRouting.shardCount(); shard++) {
+                highest = Math.max(highest, shardRouting.jdbcTemplate(shard).queryForObject(
+                        "SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class));
+            }
+            for (int shard = 0; shard < shardRouting.shardCount(); shard++) {
+                JdbcTemplate jdbcTemplate = shardRouting.jdbcTemplate(shard);
+                Map<String, Object> sequence = jdbcTemplate.queryForMap("SELECT seqincrement, "
+                        + "seqstart FROM pg_sequence WHERE seqrelid = "
+                        + "pg_get_serial_sequence(?, 'id')::regclass", table);
+                long increment = ((Number) sequence.get("seqincrement")).longValue();
+                long start = ((Number) sequence.get("seqstart")).longValue();
+                if (increment == stride && Math.floorMod(start - 1, stride) == shard) {
+                    continue;
+                }
+                long restart = firstInterleavedId(highest, shard, stride);
+                jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id SET INCREMENT BY "
+                        + stride + " SET START WITH " + restart + " RESTART WITH " + restart);
+            }
+        }
+    }
+
+    /**
+     * Smallest id above {@code highest} that belongs to the shard.
+     */
+    static long firstInterleavedId(long highest, int shard, int stride) {
+        return highest + 1 + Math.floorMod(shard - highest, stride);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.fmanager.config;
+
+import com.example.fmanager.service.ShardRouting;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Sends every connection to the shard selected for the current thread.
+ */
+class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardRouting.currentShard();
+    }
+}
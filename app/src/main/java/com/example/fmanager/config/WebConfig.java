@@ -1,5 +1,6 @@
 package com.example.fmanager.config;
 
+import com.example.fmanager.service.ShardResolutionInterceptor;
 import com.example.fmanager.service.VisitCounterInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
@@ -10,14 +11,18 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebConfig implements WebMvcConfigurer {
 
     private final VisitCounterInterceptor visitCounterInterceptor;
+    private final ShardResolutionInterceptor shardResolutionInterceptor;
 
     @Autowired
-    public WebConfig(VisitCounterInterceptor visitCounterInterceptor) {
+    public WebConfig(VisitCounterInterceptor visitCounterInterceptor,
+                     ShardResolutionInterceptor shardResolutionInterceptor) {
         this.visitCounterInterceptor = visitCounterInterceptor;
+        this.shardResolutionInterceptor = shardResolutionInterceptor;
     }
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(visitCounterInterceptor).addPathPatterns("/**");
+        registry.addInterceptor(shardResolutionInterceptor).addPathPatterns("/**");
     }
-}
\ No newline at end of file
+}
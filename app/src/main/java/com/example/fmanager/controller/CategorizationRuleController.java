@@ -0,0 +1,74 @@
+package com.example.fmanager.controller;
+
+import com.example.fmanager.dto.CategorizationRuleCreateDto;
+import com.example.fmanager.dto.CategorizationRuleGetDto;
+import com.example.fmanager.models.CategorizationRule;
+import com.example.fmanager.service.CategorizationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/categorization-rules")
+@Tag(name = "Categorization Rules",
+        description = "APIs for managing description-based categorization rules")
+public class CategorizationRuleController {
+
+    private final CategorizationService categorizationService;
+
+    public CategorizationRuleController(CategorizationService categorizationService) {
+        this.categorizationService = categorizationService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Create a new categorization rule",
+            description = "Transactions of the client whose description contains the pattern "
+                    + "are assigned to the category when no category ID is given")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rule created successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid input"),
+        @ApiResponse(responseCode = "404", description = "Client/Category not found")
+    })
+    public ResponseEntity<CategorizationRuleGetDto> createRule(
+            @Valid @RequestBody CategorizationRuleCreateDto ruleCreateDto) {
+        CategorizationRule rule = categorizationService.createRule(ruleCreateDto);
+        return ResponseEntity.ok(categorizationService.getRuleById(rule.getId()));
+    }
+
+    @GetMapping("/filter")
+    @Operation(summary = "Get categorization rules by client ID")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rules retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid client ID")
+    })
+    public List<CategorizationRuleGetDto> getRulesByClient(
+            @Parameter(description = "Client ID to filter rules", example = "1")
+            @RequestParam int clientId) {
+        return categorizationService.findByClientId(clientId);
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete categorization rule by ID")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Rule deleted successfully"),
+        @ApiResponse(responseCode = "404", description = "Rule not found")
+    })
+    public void deleteRule(
+            @Parameter(description = "ID of the rule to delete", example = "1")
+            @PathVariable int id) {
+        categorizationService.deleteRule(id);
+    }
+}
@@ -79,6 +79,7 @@ public class CategoryController {
     @Operation(summary = "Delete category by ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "204", description = "Category deleted successfully"),
+        @ApiResponse(responseCode = "400", description = "Category still in use on some shard"),
         @ApiResponse(responseCode = "404", description = "Category not found")
     })
     public void deleteCategory(
@@ -0,0 +1,46 @@
+package com.example.fmanager.controller;
+
+import com.example.fmanager.dto.MethodProfileDto;
+import com.example.fmanager.service.MethodProfiler;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.Map;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/diagnostics")
+@Tag(name = "Diagnostics", description = "APIs for profiling the service layer")
+public class DiagnosticsController {
+
+    private final MethodProfiler methodProfiler;
+
+    public DiagnosticsController(MethodProfiler methodProfiler) {
+        this.methodProfiler = methodProfiler;
+    }
+
+    @GetMapping("/methods")
+    @Operation(summary = "Get latency and SQL statistics per service method",
+            description = "Empty unless profiling.enabled is set")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Profiles retrieved successfully")
+    })
+    public Map<String, MethodProfileDto> getMethodProfiles() {
+        return methodProfiler.getProfiles();
+    }
+
+    @DeleteMapping("/methods")
+    @Operation(summary = "Clear the service method statistics")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Profiles cleared")
+    })
+    public ResponseEntity<Void> resetMethodProfiles() {
+        methodProfiler.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.fmanager.controller;
+
+import com.example.fmanager.dto.BulkCreateDto;
+import com.example.fmanager.dto.IngestionTicketDto;
+import com.example.fmanager.dto.TransactionCreateDto;
+import com.example.fmanager.service.IngestionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/transactions/ingestion")
+@Tag(name = "Transaction Ingestion",
+        description = "APIs for asynchronous, batched posting of transactions")
+public class IngestionController {
+
+    private final IngestionService ingestionService;
+
+    public IngestionController(IngestionService ingestionService) {
+        this.ingestionService = ingestionService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Queue a transaction for ingestion",
+            description = "Returns a ticket immediately; the transaction is written later "
+                    + "as part of a batch")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Transaction queued"),
+        @ApiResponse(responseCode = "400", description = "Invalid input"),
+        @ApiResponse(responseCode = "503", description = "Ingestion queue is full")
+    })
+    public ResponseEntity<IngestionTicketDto> ingestTransaction(
+            @Valid @RequestBody TransactionCreateDto transactionCreateDto) {
+        return ResponseEntity.accepted().body(ingestionService.submit(transactionCreateDto));
+    }
+
+    @PostMapping("/bulk")
+    @Operation(summary = "Queue multiple transactions for ingestion")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Transactions queued"),
+        @ApiResponse(responseCode = "400", description = "Invalid input"),
+        @ApiResponse(responseCode = "503",
+                description = "Ingestion queue has no room for all items; none were queued")
+    })
+    public ResponseEntity<List<IngestionTicketDto>> ingestTransactionsBulk(
+            @Valid @RequestBody BulkCreateDto<TransactionCreateDto> bulkCreateDto) {
+        return ResponseEntity.accepted().body(
+                ingestionService.submitAll(bulkCreateDto.getItems()));
+    }
+
+    @GetMapping("/{ticketId}")
+    @Operation(summary = "Get ingestion ticket status")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Ticket found"),
+        @ApiResponse(responseCode = "404", description = "Ticket not found or expired")
+    })
+    public ResponseEntity<IngestionTicketDto> getTicket(
+            @Parameter(description = "Ticket ID returned on submission")
+            @PathVariable String ticketId) {
+        return ingestionService.getTicket(ticketId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -1,15 +1,20 @@
 package com.example.fmanager.controller;
 
+import com.example.fmanager.dto.LogJobDto;
+import com.example.fmanager.dto.LogQueryDto;
+import com.example.fmanager.service.LogQuery;
+import com.example.fmanager.service.LogQueryService;
 import com.example.fmanager.service.LogService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.util.concurrent.CompletableFuture;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
@@ -21,6 +26,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/logs")
@@ -28,48 +34,66 @@ import org.springframework.web.bind.annotation.RestController;
 public class LogController {
 
     private final LogService logService;
+    private final LogQueryService logQueryService;
 
-    public LogController(LogService logService) {
+    public LogController(LogService logService, LogQueryService logQueryService) {
         this.logService = logService;
+        this.logQueryService = logQueryService;
+    }
+
+    @Operation(summary = "Query log entries",
+            description = "Streams the entries of a time range that match the level, logger "
+                    + "and pattern filters, oldest first, including rolled segments")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Matching entries streamed"),
+        @ApiResponse(responseCode = "400", description = "Invalid query parameters")
+    })
+    @GetMapping("/query")
+    public ResponseEntity<StreamingResponseBody> queryLogs(
+            @Valid @ParameterObject LogQueryDto criteria) {
+        LogQuery query = logQueryService.prepare(criteria);
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(out -> logQueryService.stream(query, out));
     }
 
     @Operation(summary = "Generate log file for the specified date",
-            description = "Starts asynchronous generation of a log file for the specified date.")
+            description = "Queues extraction of the logs of the specified date and returns "
+                    + "the job at once. A date that is already being extracted returns that job.")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Task started successfully"),
-        @ApiResponse(responseCode = "500", description = "Server error processing request")
+        @ApiResponse(responseCode = "202", description = "Job queued or already running"),
+        @ApiResponse(responseCode = "400", description = "Invalid date"),
+        @ApiResponse(responseCode = "503", description = "Too many extractions queued")
     })
     @PostMapping("/{date}")
-    public ResponseEntity<String> generateLogsByDate(@PathVariable LocalDate date) {
-        try {
-            String dateString = date.toString();
-            CompletableFuture<String> future = logService.generateLogFileForDateAsync(dateString);
-            return ResponseEntity.accepted().body("Task started. ID: " + future.get());
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
-                    .body("Task had been interrupted: " + e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body("Error: " + e.getMessage());
-        }
+    public ResponseEntity<LogJobDto> generateLogsByDate(@PathVariable LocalDate date) {
+        return ResponseEntity.accepted().body(logService.submit(date.toString()));
     }
 
     @Operation(summary = "Get task status by ID",
-            description = "Returns the status of the task by its ID.")
+            description = "Returns the status and progress of the job by its ID.")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Task status retrieved successfully"),
-        @ApiResponse(responseCode = "404", description = "Task ID not found")
+        @ApiResponse(responseCode = "404", description = "Task ID not found or expired")
     })
     @GetMapping("/{logId}/status")
-    public ResponseEntity<String> getTaskStatus(@PathVariable String logId) {
-        if (logService.isTaskCompleted(logId)) {
-            return ResponseEntity.ok("Task completed");
-        } else {
-            return ResponseEntity
-                    .status(HttpStatus.NOT_FOUND)
-                    .body("Task not found or not completed");
-        }
+    public ResponseEntity<LogJobDto> getTaskStatus(@PathVariable String logId) {
+        return logService.getJob(logId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Cancel task by ID",
+            description = "Cancels a queued or running job. Finished jobs are left as they are.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Cancellation requested"),
+        @ApiResponse(responseCode = "404", description = "Task ID not found or expired")
+    })
+    @PostMapping("/{logId}/cancel")
+    public ResponseEntity<LogJobDto> cancelTask(@PathVariable String logId) {
+        return logService.cancel(logId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @Operation(summary = "Get log file by ID",
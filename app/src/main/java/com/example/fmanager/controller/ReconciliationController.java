@@ -0,0 +1,51 @@
+package com.example.fmanager.controller;
+
+import com.example.fmanager.dto.ReconciliationStatusDto;
+import com.example.fmanager.service.BalanceReconciliationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/reconciliation")
+@Tag(name = "Reconciliation", description = "APIs for checking account balances")
+public class ReconciliationController {
+
+    private final BalanceReconciliationService reconciliationService;
+
+    public ReconciliationController(BalanceReconciliationService reconciliationService) {
+        this.reconciliationService = reconciliationService;
+    }
+
+    @GetMapping("/status")
+    @Operation(summary = "Get the progress of the latest balance reconciliation",
+            description = "Includes throughput and up to 100 drifted accounts")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Status retrieved successfully")
+    })
+    public ReconciliationStatusDto getStatus() {
+        return reconciliationService.getStatus();
+    }
+
+    @PostMapping("/run")
+    @Operation(summary = "Start a balance reconciliation",
+            description = "Compares every balance with the opening balance plus the sum of the "
+                    + "account's transactions in the background")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Reconciliation started"),
+        @ApiResponse(responseCode = "400", description = "A reconciliation is already running")
+    })
+    public ResponseEntity<ReconciliationStatusDto> run(
+            @Parameter(description = "Whether drifted balances are corrected", example = "false")
+            @RequestParam(defaultValue = "false") boolean correct) {
+        return ResponseEntity.ok(reconciliationService.start(correct));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.fmanager.controller;
+
+import com.example.fmanager.dto.SpendingSummaryDto;
+import com.example.fmanager.service.ShardRouting;
+import com.example.fmanager.service.SpendingRollupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/reports/spending")
+@Tag(name = "Spending Reports", description = "APIs for pre-aggregated spending summaries")
+public class ReportController {
+
+    private final SpendingRollupService spendingRollupService;
+    private final ShardRouting shardRouting;
+
+    public ReportController(SpendingRollupService spendingRollupService,
+                            ShardRouting shardRouting) {
+        this.spendingRollupService = spendingRollupService;
+        this.shardRouting = shardRouting;
+    }
+
+    @GetMapping("/monthly")
+    @Operation(summary = "Get spending of a client for one month, per category")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Summary retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid parameters")
+    })
+    public List<SpendingSummaryDto> getMonthlySummary(
+            @Parameter(description = "Client ID", example = "1") @RequestParam int clientId,
+            @Parameter(description = "Year", example = "2025") @RequestParam int year,
+            @Parameter(description = "Month (1-12)", example = "3") @RequestParam int month) {
+        return spendingRollupService.getMonthlySummary(clientId, year, month);
+    }
+
+    @GetMapping("/yearly")
+    @Operation(summary = "Get spending of a client for one year, per category")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Summary retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid parameters")
+    })
+    public List<SpendingSummaryDto> getYearlySummary(
+            @Parameter(description = "Client ID", example = "1") @RequestParam int clientId,
+            @Parameter(description = "Year", example = "2025") @RequestParam int year) {
+        return spendingRollupService.getYearlySummary(clientId, year);
+    }
+
+    @GetMapping("/series")
+    @Operation(summary = "Get spending of a client per month and category for one year")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Series retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid parameters")
+    })
+    public List<SpendingSummaryDto> getMonthlySeries(
+            @Parameter(description = "Client ID", example = "1") @RequestParam int clientId,
+            @Parameter(description = "Year", example = "2025") @RequestParam int year) {
+        return spendingRollupService.getMonthlySeries(clientId, year);
+    }
+
+    @PostMapping("/rebuild")
+    @Operation(summary = "Rebuild spending rollups",
+            description = "Recomputes all rollup rows from the transactions table")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rollups rebuilt successfully")
+    })
+    public ResponseEntity<Map<String, Integer>> rebuild() {
+        int buckets = shardRouting.onEachShard(spendingRollupService::rebuild).stream()
+                .mapToInt(Integer::intValue).sum();
+        return ResponseEntity.ok(Map.of("buckets", buckets));
+    }
+}
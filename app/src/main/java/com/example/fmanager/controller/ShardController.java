@@ -0,0 +1,69 @@
+package com.example.fmanager.controller;
+
+import com.example.fmanager.dto.ShardMoveDto;
+import com.example.fmanager.service.ShardRebalancer;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/shards")
+@Tag(name = "Shards", description = "APIs for inspecting and rebalancing client shards")
+public class ShardController {
+
+    private final ShardRebalancer shardRebalancer;
+
+    public ShardController(ShardRebalancer shardRebalancer) {
+        this.shardRebalancer = shardRebalancer;
+    }
+
+    @GetMapping
+    @Operation(summary = "Get the number of clients on every shard")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Client counts retrieved successfully")
+    })
+    public Map<Integer, Long> getClientCounts() {
+        return shardRebalancer.clientCounts();
+    }
+
+    @PostMapping("/clients/{clientId}/move")
+    @Operation(summary = "Move a client to another shard",
+            description = "Copies every row of the client to the target shard and deletes it "
+                    + "from the source; the client's writes wait while it is moved")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Client moved successfully"),
+        @ApiResponse(responseCode = "400", description = "Unknown shard, sharding disabled or "
+                + "client sharing a budget"),
+        @ApiResponse(responseCode = "404", description = "Client not found")
+    })
+    public ResponseEntity<ShardMoveDto> moveClient(
+            @Parameter(description = "ID of the client to move", example = "1")
+            @PathVariable int clientId,
+            @Parameter(description = "Target shard", example = "1")
+            @RequestParam int shard) {
+        return ResponseEntity.ok(shardRebalancer.moveClient(clientId, shard));
+    }
+
+    @PostMapping("/rebalance")
+    @Operation(summary = "Even out the number of clients per shard",
+            description = "Moves clients from the fullest to the emptiest shard until the "
+                    + "counts differ by at most one")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Shards rebalanced successfully"),
+        @ApiResponse(responseCode = "400", description = "Sharding is not configured")
+    })
+    public List<ShardMoveDto> rebalance() {
+        return shardRebalancer.rebalance();
+    }
+}
@@ -1,9 +1,14 @@
 package com.example.fmanager.controller;
 
+import com.example.fmanager.dto.BulkCreateDto;
 import com.example.fmanager.dto.TransactionCreateDto;
 import com.example.fmanager.dto.TransactionGetDto;
+import com.example.fmanager.dto.TransactionSearchDto;
+import com.example.fmanager.dto.TransactionSearchResultDto;
 import com.example.fmanager.exception.NotFoundException;
 import com.example.fmanager.models.Transaction;
+import com.example.fmanager.service.IdempotencyService;
+import com.example.fmanager.service.TransactionJournal;
 import com.example.fmanager.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,13 +17,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Optional;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.dao.DataAccessException;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -29,25 +39,73 @@ import org.springframework.web.bind.annotation.RestController;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
+    private final TransactionJournal transactionJournal;
 
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService,
+                                 IdempotencyService idempotencyService,
+                                 TransactionJournal transactionJournal) {
         this.transactionService = transactionService;
+        this.idempotencyService = idempotencyService;
+        this.transactionJournal = transactionJournal;
     }
 
     @PostMapping
     @Operation(summary = "Create a new transaction")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Transaction created successfully"),
+        @ApiResponse(responseCode = "202",
+                description = "Database unavailable, transaction journaled for replay; "
+                        + "retry with the returned Idempotency-Key to get the result"),
         @ApiResponse(responseCode = "400", description = "Invalid input/Budget limit exceeded"),
         @ApiResponse(responseCode = "404", description = "Account/Category not found"),
-        @ApiResponse(responseCode = "422", description = "Business logic error")
+        @ApiResponse(responseCode = "422",
+                description = "Business logic error/Idempotency-Key reused with another request")
     })
     public ResponseEntity<TransactionGetDto> createTransaction(
+            @Parameter(description = "Retries of the same request with the same key return the "
+                    + "first response instead of posting the transaction again; keys are scoped "
+                    + "to the account")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody TransactionCreateDto transactionCreateDto) {
-        Transaction transaction = transactionService.createTransaction(transactionCreateDto);
-        return transactionService.getTransactionById(transaction.getId())
-                .map(ResponseEntity::ok)
-                .orElseThrow(() -> new NotFoundException("Transaction not found after creation"));
+        String key = transactionJournal.assignKey(
+                idempotencyKey == null || idempotencyKey.isBlank() ? null : idempotencyKey);
+        Optional<String> journaledKey =
+                transactionJournal.appendIfBacklogged(key, transactionCreateDto);
+        if (journaledKey.isPresent()) {
+            return journaled(journaledKey.get());
+        }
+        try {
+            if (key != null) {
+                return ResponseEntity.ok(
+                        idempotencyService.createTransaction(key, transactionCreateDto));
+            }
+            Transaction transaction = transactionService.createTransaction(transactionCreateDto);
+            return transactionService.getTransactionById(transaction.getId())
+                    .map(ResponseEntity::ok)
+                    .orElseThrow(() ->
+                            new NotFoundException("Transaction not found after creation"));
+        } catch (DataAccessException | TransactionException e) {
+            return journaled(transactionJournal.appendAfterFailure(key, transactionCreateDto, e));
+        }
+    }
+
+    private ResponseEntity<TransactionGetDto> journaled(String idempotencyKey) {
+        return ResponseEntity.accepted().header("Idempotency-Key", idempotencyKey).build();
+    }
+
+    @PostMapping("/bulk")
+    @Operation(summary = "Import multiple transactions",
+            description = "Creates transactions in one database transaction; items without "
+                    + "a category ID are categorized by the client's rules")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Transactions imported successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid input/Budget limit exceeded"),
+        @ApiResponse(responseCode = "404", description = "Account/Category not found")
+    })
+    public ResponseEntity<List<TransactionGetDto>> createTransactionsBulk(
+            @Valid @RequestBody BulkCreateDto<TransactionCreateDto> bulkCreateDto) {
+        return ResponseEntity.ok(transactionService.createTransactions(bulkCreateDto.getItems()));
     }
 
     @GetMapping
@@ -90,6 +148,19 @@ public class TransactionController {
         return transactionService.findByClientIdAndCategoryId(clientId, categoryId);
     }
 
+    @GetMapping("/search")
+    @Operation(summary = "Search transactions",
+            description = "Filters by client, account, categories, date range, amount range "
+                    + "and description text; newest first, paginated with nextCursor")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Transactions retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid search parameters")
+    })
+    public TransactionSearchResultDto searchTransactions(
+            @Valid @ParameterObject TransactionSearchDto criteria) {
+        return transactionService.searchTransactions(criteria);
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update transaction by ID",
             description = "Updates an existing transaction with the provided details")
@@ -0,0 +1,41 @@
+package com.example.fmanager.controller;
+
+import com.example.fmanager.dto.TransferCreateDto;
+import com.example.fmanager.dto.TransferGetDto;
+import com.example.fmanager.service.TransferService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/transfers")
+@Tag(name = "Transfers", description = "Moving money between accounts")
+public class TransferController {
+    private final TransferService transferService;
+
+    public TransferController(TransferService transferService) {
+        this.transferService = transferService;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Transfer money between two accounts",
+            description = "Debits the source and credits the target account atomically")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Transfer completed"),
+        @ApiResponse(responseCode = "400",
+                description = "Invalid input/Insufficient funds/Accounts on different shards"),
+        @ApiResponse(responseCode = "404", description = "Account/Category not found")
+    })
+    public ResponseEntity<TransferGetDto> transfer(
+            @Valid @RequestBody TransferCreateDto transferCreateDto) {
+        return ResponseEntity.ok(transferService.transfer(transferCreateDto));
+    }
+}
@@ -1,6 +1,11 @@
 package com.example.fmanager.controller;
 
+import com.example.fmanager.dto.RequestRateDto;
+import com.example.fmanager.dto.RequestSeriesDto;
+import com.example.fmanager.dto.RouteLatencyDto;
+import com.example.fmanager.service.RequestLatencyService;
 import com.example.fmanager.service.VisitCounterService;
+import com.example.fmanager.service.VisitStatsService;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,28 +20,54 @@ import org.springframework.web.bind.annotation.RestController;
 public class VisitCounterController {
 
     private final VisitCounterService visitCounterService;
+    private final RequestLatencyService requestLatencyService;
+    private final VisitStatsService visitStatsService;
 
     @Autowired
-    public VisitCounterController(VisitCounterService visitCounterService) {
+    public VisitCounterController(VisitCounterService visitCounterService,
+                                  RequestLatencyService requestLatencyService,
+                                  VisitStatsService visitStatsService) {
         this.visitCounterService = visitCounterService;
+        this.requestLatencyService = requestLatencyService;
+        this.visitStatsService = visitStatsService;
     }
 
     @GetMapping("/count")
-    public ResponseEntity<Integer> getVisitCount(@RequestParam String url) {
-        int count = visitCounterService.getVisitCount(url);
+    public ResponseEntity<Long> getVisitCount(@RequestParam String url) {
+        long count = visitCounterService.getVisitCount(url);
         return ResponseEntity.ok(count);
     }
 
     @GetMapping("/total")
-    public ResponseEntity<Map<String, Integer>> getTotalVisitCount() {
-        Map<String, Integer> totalCount = new HashMap<>();
+    public ResponseEntity<Map<String, Long>> getTotalVisitCount() {
+        Map<String, Long> totalCount = new HashMap<>();
         totalCount.put("total", visitCounterService.getTotalVisitCount());
         return ResponseEntity.ok(totalCount);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Map<String, Integer>> getAllVisitCounts() {
-        Map<String, Integer> allCounts = visitCounterService.getAllVisitCounts();
+    public ResponseEntity<Map<String, Long>> getAllVisitCounts() {
+        Map<String, Long> allCounts = visitCounterService.getAllVisitCounts();
         return ResponseEntity.ok(allCounts);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/cluster")
+    public ResponseEntity<Map<String, Long>> getClusterVisitCounts() {
+        return ResponseEntity.ok(visitStatsService.getClusterVisitCounts());
+    }
+
+    @GetMapping("/rates")
+    public ResponseEntity<Map<String, RequestRateDto>> getRequestRates() {
+        return ResponseEntity.ok(visitCounterService.getRequestRates());
+    }
+
+    @GetMapping("/series")
+    public ResponseEntity<RequestSeriesDto> getRequestSeries(@RequestParam String url) {
+        return ResponseEntity.ok(visitCounterService.getRequestSeries(url));
+    }
+
+    @GetMapping("/latency")
+    public ResponseEntity<Map<String, RouteLatencyDto>> getLatencies() {
+        return ResponseEntity.ok(requestLatencyService.getLatencies());
+    }
+}
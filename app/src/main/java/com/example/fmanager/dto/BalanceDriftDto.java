@@ -0,0 +1,16 @@
+package com.example.fmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class BalanceDriftDto {
+    private int accountId;
+    private int clientId;
+    private double balance;
+    private double expectedBalance;
+    private double drift;
+}
@@ -0,0 +1,23 @@
+package com.example.fmanager.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CategorizationRuleCreateDto {
+    @NotBlank(message = "Pattern cannot be null")
+    @Size(max = 255, message = "Pattern must be at most 255 characters")
+    private String pattern;
+    @Min(value = 1, message = "Only one category ID must be provided")
+    private Integer categoryId;
+    @Min(value = 1, message = "Only one client ID must be provided")
+    private Integer clientId;
+}
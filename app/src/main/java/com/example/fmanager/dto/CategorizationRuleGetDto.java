@@ -0,0 +1,28 @@
+package com.example.fmanager.dto;
+
+import com.example.fmanager.models.CategorizationRule;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class CategorizationRuleGetDto {
+    private Integer id;
+    private String pattern;
+    private Integer clientId;
+    private Integer categoryId;
+    private String categoryName;
+    private LocalDateTime createdAt;
+
+    public static CategorizationRuleGetDto convertToDto(CategorizationRule rule) {
+        CategorizationRuleGetDto dto = new CategorizationRuleGetDto();
+        dto.setId(rule.getId());
+        dto.setPattern(rule.getPattern());
+        dto.setClientId(rule.getClient().getId());
+        dto.setCategoryId(rule.getCategory().getId());
+        dto.setCategoryName(rule.getCategory().getName());
+        dto.setCreatedAt(rule.getCreatedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.fmanager.dto;
+
+public enum IngestionStatus {
+    QUEUED,
+    COMMITTED,
+    FAILED
+}
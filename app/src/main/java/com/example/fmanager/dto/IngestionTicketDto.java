@@ -0,0 +1,40 @@
+package com.example.fmanager.dto;
+
+import java.time.LocalDateTime;
+import lombok.Getter;
+
+@Getter
+public class IngestionTicketDto {
+    private final String ticketId;
+    private final IngestionStatus status;
+    private final Integer transactionId;
+    private final String error;
+    private final LocalDateTime submittedAt;
+    private final LocalDateTime completedAt;
+
+    private IngestionTicketDto(String ticketId, IngestionStatus status, Integer transactionId,
+                               String error, LocalDateTime submittedAt,
+                               LocalDateTime completedAt) {
+        this.ticketId = ticketId;
+        this.status = status;
+        this.transactionId = transactionId;
+        this.error = error;
+        this.submittedAt = submittedAt;
+        this.completedAt = completedAt;
+    }
+
+    public static IngestionTicketDto queued(String ticketId) {
+        return new IngestionTicketDto(ticketId, IngestionStatus.QUEUED, null, null,
+                LocalDateTime.now(), null);
+    }
+
+    public IngestionTicketDto committed(int transactionId) {
+        return new IngestionTicketDto(ticketId, IngestionStatus.COMMITTED, transactionId, null,
+                submittedAt, LocalDateTime.now());
+    }
+
+    public IngestionTicketDto failed(String error) {
+        return new IngestionTicketDto(ticketId, IngestionStatus.FAILED, null, error,
+                submittedAt, LocalDateTime.now());
+    }
+}
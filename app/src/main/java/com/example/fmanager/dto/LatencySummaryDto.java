@@ -0,0 +1,19 @@
+package com.example.fmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Request count and latency percentiles in milliseconds.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class LatencySummaryDto {
+    private long count;
+    private double p50;
+    private double p90;
+    private double p99;
+    private double p999;
+}
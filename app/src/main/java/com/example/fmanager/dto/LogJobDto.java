@@ -0,0 +1,20 @@
+package com.example.fmanager.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class LogJobDto {
+    private String jobId;
+    private LocalDate date;
+    private LogJobStatus status;
+    private double progress;
+    private String error;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,9 @@
+package com.example.fmanager.dto;
+
+public enum LogJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED
+}
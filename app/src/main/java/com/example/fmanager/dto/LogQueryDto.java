@@ -0,0 +1,38 @@
+package com.example.fmanager.dto;
+
+import io.swagger.v3.oas.annotations.Parameter;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class LogQueryDto {
+    @Parameter(description = "Inclusive lower bound of the entry time")
+    @NotNull(message = "From must be provided")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+    @Parameter(description = "Exclusive upper bound of the entry time")
+    @NotNull(message = "To must be provided")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+    @Parameter(description = "Lowest level to return: TRACE, DEBUG, INFO, WARN or ERROR",
+            example = "WARN")
+    private String level;
+    @Parameter(description = "Substring of the logger name as written in the log",
+            example = "TransactionService")
+    private String logger;
+    @Parameter(description = "Regular expression searched in the whole entry, stack trace "
+            + "included")
+    private String pattern;
+    @Parameter(description = "Maximum number of entries", example = "1000")
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 100000, message = "Limit must be at most 100000")
+    private int limit = 1000;
+}
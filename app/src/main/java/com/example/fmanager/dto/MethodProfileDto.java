@@ -0,0 +1,24 @@
+package com.example.fmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Calls of one service method, latency percentiles in milliseconds, and the SQL statements and
+ * entity rows a call caused.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class MethodProfileDto {
+    private long calls;
+    private double p50;
+    private double p90;
+    private double p99;
+    private double statementsPerCall;
+    private long statementsP99;
+    private long statementsMax;
+    private double rowsPerCall;
+    private long rowsP99;
+}
@@ -0,0 +1,24 @@
+package com.example.fmanager.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ReconciliationStatusDto {
+    private boolean running;
+    private boolean correcting;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long accountsTotal;
+    private long accountsScanned;
+    private long rangesCompleted;
+    private long driftedAccounts;
+    private long correctedAccounts;
+    private double accountsPerSecond;
+    private double progress;
+    private String error;
+    private List<BalanceDriftDto> drifts = List.of();
+}
@@ -0,0 +1,15 @@
+package com.example.fmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class RequestRateDto {
+    private long lastMinute;
+    private long lastHour;
+    private double requestsPerSecond;
+    private double requestsPerMinute;
+}
@@ -0,0 +1,14 @@
+package com.example.fmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class RequestSeriesDto {
+    private String url;
+    private long[] perSecond;
+    private long[] perMinute;
+}
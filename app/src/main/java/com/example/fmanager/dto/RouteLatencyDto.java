@@ -0,0 +1,14 @@
+package com.example.fmanager.dto;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class RouteLatencyDto {
+    private LatencySummaryDto all;
+    private Map<Integer, LatencySummaryDto> byStatus;
+}
@@ -0,0 +1,15 @@
+package com.example.fmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class ShardMoveDto {
+    private int clientId;
+    private int fromShard;
+    private int toShard;
+    private int rowsMoved;
+}
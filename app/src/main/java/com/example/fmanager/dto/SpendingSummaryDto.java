@@ -0,0 +1,19 @@
+package com.example.fmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SpendingSummaryDto {
+    private int period;
+    private int categoryId;
+    private double totalAmount;
+    private long transactionCount;
+    private double minAmount;
+    private double maxAmount;
+}
@@ -1,5 +1,6 @@
 package com.example.fmanager.dto;
 
+import com.example.fmanager.models.ArchivedTransaction;
 import com.example.fmanager.models.Transaction;
 import java.time.LocalDateTime;
 import lombok.Getter;
@@ -31,4 +32,19 @@ public class TransactionGetDto {
         dto.setAccountName(transaction.getAccount().getName());
         return dto;
     }
+
+    public static TransactionGetDto convertToDto(ArchivedTransaction transaction,
+                                                 String accountName, String categoryName) {
+        TransactionGetDto dto = new TransactionGetDto();
+        dto.setId(transaction.id());
+        dto.setCategoryId(transaction.categoryId());
+        dto.setAccountId(transaction.accountId());
+        dto.setAmount(transaction.amount());
+        dto.setDescription(transaction.description());
+        dto.setDate(transaction.date());
+        dto.setCreatedAt(transaction.createdAt());
+        dto.setCategoryName(categoryName);
+        dto.setAccountName(accountName);
+        return dto;
+    }
 }
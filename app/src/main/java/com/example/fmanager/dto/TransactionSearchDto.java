@@ -0,0 +1,41 @@
+package com.example.fmanager.dto;
+
+import io.swagger.v3.oas.annotations.Parameter;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class TransactionSearchDto {
+    @Parameter(description = "Only transactions of this client", example = "1")
+    private Integer clientId;
+    @Parameter(description = "Only transactions of this account", example = "1")
+    private Integer accountId;
+    @Parameter(description = "Only transactions in one of these categories")
+    private List<Integer> categoryIds;
+    @Parameter(description = "Inclusive lower bound of the transaction date")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+    @Parameter(description = "Exclusive upper bound of the transaction date")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+    @Parameter(description = "Inclusive lower bound of the amount")
+    private Double minAmount;
+    @Parameter(description = "Inclusive upper bound of the amount")
+    private Double maxAmount;
+    @Parameter(description = "Case-insensitive substring of the description")
+    private String description;
+    @Parameter(description = "Cursor returned as nextCursor by the previous page")
+    private String cursor;
+    @Parameter(description = "Page size", example = "50")
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 500, message = "Limit must be at most 500")
+    private int limit = 50;
+}
@@ -0,0 +1,14 @@
+package com.example.fmanager.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class TransactionSearchResultDto {
+    private List<TransactionGetDto> items;
+    private String nextCursor;
+}
@@ -0,0 +1,32 @@
+package com.example.fmanager.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PastOrPresent;
+import jakarta.validation.constraints.Positive;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferCreateDto {
+    @NotNull(message = "Source account ID cannot be null")
+    @Min(value = 1, message = "Source account ID must be positive")
+    private Integer fromAccountId;
+    @NotNull(message = "Target account ID cannot be null")
+    @Min(value = 1, message = "Target account ID must be positive")
+    private Integer toAccountId;
+    @Positive(message = "Amount must be greater than zero")
+    private double amount;
+    @NotNull(message = "Category ID cannot be null")
+    @Min(value = 1, message = "Category ID must be positive")
+    private Integer categoryId;
+    private String description;
+    @PastOrPresent(message = "The transfer date must be in past or present")
+    private LocalDateTime date;
+}
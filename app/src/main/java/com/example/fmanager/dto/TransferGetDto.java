@@ -0,0 +1,13 @@
+package com.example.fmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class TransferGetDto {
+    private TransactionGetDto debit;
+    private TransactionGetDto credit;
+}
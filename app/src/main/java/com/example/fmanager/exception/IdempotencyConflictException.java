@@ -0,0 +1,7 @@
+package com.example.fmanager.exception;
+
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(final String message) {
+        super(message);
+    }
+}
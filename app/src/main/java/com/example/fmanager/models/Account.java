@@ -1,6 +1,5 @@
 package com.example.fmanager.models;
 
-import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -31,13 +30,19 @@ public class Account {
     private String name;
     @Column(nullable = false)
     private double balance;
+    /**
+     * Part of {@link #balance} not backed by live transactions: the initial balance, manual
+     * changes and archived transactions. See {@code BalanceReconciliationService}.
+     */
+    @Column(name = "opening_balance", nullable = false)
+    private double openingBalance;
     @CreationTimestamp
     private LocalDateTime createdAt;
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
-    @OneToMany(mappedBy = "account", cascade = CascadeType.ALL,
-            orphanRemoval = true)
+    // Deleted with bulk statements by AccountService.deleteAccount, not by cascading.
+    @OneToMany(mappedBy = "account")
     private Set<Transaction> transactions = new HashSet<>();
 
     @ManyToOne(fetch = FetchType.LAZY)
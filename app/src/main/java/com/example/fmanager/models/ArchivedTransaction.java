@@ -0,0 +1,25 @@
+package com.example.fmanager.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * A transaction moved out of the database into the columnar cold archive.
+ */
+public record ArchivedTransaction(int id,
+                                  String description,
+                                  double amount,
+                                  LocalDateTime date,
+                                  LocalDateTime createdAt,
+                                  int accountId,
+                                  int categoryId) {
+
+    public static ArchivedTransaction of(Transaction transaction) {
+        return new ArchivedTransaction(transaction.getId(), transaction.getDescription(),
+                transaction.getAmount(), transaction.getDate(), transaction.getCreatedAt(),
+                transaction.getAccount().getId(), transaction.getCategory().getId());
+    }
+
+    public LocalDateTime effectiveDate() {
+        return date != null ? date : createdAt;
+    }
+}
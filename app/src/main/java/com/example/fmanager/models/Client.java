@@ -1,6 +1,5 @@
 package com.example.fmanager.models;
 
-import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -9,7 +8,6 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.OneToMany;
-import jakarta.persistence.PreRemove;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 import java.util.Set;
@@ -38,20 +36,12 @@ public class Client {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
-    @OneToMany(mappedBy = "client", fetch = FetchType.LAZY,
-            cascade = CascadeType.ALL, orphanRemoval = true)
+    // Deleted with bulk statements by ClientService.deleteUser, not by cascading.
+    @OneToMany(mappedBy = "client", fetch = FetchType.LAZY)
     private Set<Account> accounts;
 
-    @OneToMany(mappedBy = "client", fetch = FetchType.LAZY,
-            cascade = CascadeType.ALL, orphanRemoval = true)
+    @OneToMany(mappedBy = "client", fetch = FetchType.LAZY)
     private Set<Goal> goals;
     @ManyToMany(mappedBy = "clients")
     private Set<Budget> budgets;
-
-    @PreRemove
-    private void removeUserFromBudgets() {
-        for (Budget budget : budgets) {
-            budget.getClients().remove(this);
-        }
-    }
 }
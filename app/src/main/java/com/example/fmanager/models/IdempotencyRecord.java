@@ -0,0 +1,48 @@
+package com.example.fmanager.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "idempotency_keys")
+@IdClass(IdempotencyRecord.Key.class)
+public class IdempotencyRecord {
+    @Id
+    @Column(name = "account_id")
+    private int accountId;
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String idempotencyKey;
+    @Column(name = "transaction_id", nullable = false)
+    private int transactionId;
+    /**
+     * SHA-256 of the request the key was first used with; {@code null} for keys recorded
+     * before requests were fingerprinted.
+     */
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    @Getter
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private int accountId;
+        private String idempotencyKey;
+    }
+}
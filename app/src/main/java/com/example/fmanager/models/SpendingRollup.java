@@ -0,0 +1,39 @@
+package com.example.fmanager.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "spending_rollups", uniqueConstraints = @UniqueConstraint(
+        name = "uk_spending_rollups_bucket",
+        columnNames = {"client_id", "year_month", "category_id", "account_id"}))
+public class SpendingRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+    @Column(name = "client_id", nullable = false)
+    private int clientId;
+    @Column(name = "category_id", nullable = false)
+    private int categoryId;
+    @Column(name = "account_id", nullable = false)
+    private int accountId;
+    @Column(name = "year_month", nullable = false)
+    private int yearMonth;
+    @Column(name = "total_amount", nullable = false)
+    private double totalAmount;
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+    @Column(name = "min_amount", nullable = false)
+    private double minAmount;
+    @Column(name = "max_amount", nullable = false)
+    private double maxAmount;
+}
@@ -9,8 +9,11 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
@@ -32,13 +35,36 @@ public class Transaction {
     @JoinColumn(name = "account_id", nullable = false)
     private Account account;
 
+    /**
+     * Owner of {@link #account}, copied onto the row so per-client queries don't have to join
+     * through accounts and clients. Always derived from the account, never set directly.
+     */
+    @Column(name = "client_id")
+    @Setter(AccessLevel.NONE)
+    private Integer clientId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     @JsonBackReference
     private Category category;
 
+    /**
+     * Booking date. Left empty it is stored as the creation time, which queries fall back to
+     * anyway; the partitioned table needs it as its partition key.
+     */
     @Column
     private LocalDateTime date;
     @CreationTimestamp
     private LocalDateTime createdAt;
+
+    @PrePersist
+    @PreUpdate
+    void syncDerivedColumns() {
+        if (date == null) {
+            date = createdAt != null ? createdAt : LocalDateTime.now();
+        }
+        if (account != null && account.getClient() != null) {
+            clientId = account.getClient().getId();
+        }
+    }
 }
@@ -1,8 +1,13 @@
 package com.example.fmanager.repository;
 
 import com.example.fmanager.models.Account;
+import jakarta.persistence.LockModeType;
 import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -15,4 +20,52 @@ public interface AccountRepository extends JpaRepository<Account, Integer> {
     @Query("SELECT a FROM Account a WHERE a.client.username = :clientUsername")
     List<Account> findByClientUsername(String clientUsername);
 
+    /**
+     * Reads the account and locks its row, for edits that derive new values from the balance.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") int id);
+
+    @Query("SELECT a.id FROM Account a WHERE a.client.id = :clientId")
+    List<Integer> findIdsByClientId(@Param("clientId") int clientId);
+
+    @Query("SELECT a.id FROM Account a WHERE a.id > :afterId ORDER BY a.id")
+    List<Integer> findIdsAfter(@Param("afterId") int afterId, Limit limit);
+
+    /**
+     * Balance, opening balance, owner and sum of live transactions of every account with an id
+     * in the range, read in one statement and therefore from one snapshot.
+     */
+    @Query("SELECT a.id, a.client.id, a.balance, a.openingBalance, "
+            + "COALESCE(SUM(t.amount), 0.0) "
+            + "FROM Account a LEFT JOIN a.transactions t "
+            + "WHERE a.id BETWEEN :fromId AND :toId "
+            + "GROUP BY a.id, a.client.id, a.balance, a.openingBalance")
+    List<Object[]> sumTransactionsBetween(@Param("fromId") int fromId, @Param("toId") int toId);
+
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, "
+            + "a.updatedAt = CURRENT_TIMESTAMP WHERE a.id = :id")
+    int adjustBalance(@Param("id") int id, @Param("amount") double amount);
+
+    /**
+     * Moves an amount of archived transactions into the opening balance.
+     */
+    @Modifying
+    @Query("UPDATE Account a SET a.openingBalance = a.openingBalance + :amount "
+            + "WHERE a.id = :id")
+    int addToOpeningBalance(@Param("id") int id, @Param("amount") double amount);
+
+    /**
+     * Adds to the balance in one statement, unless the balance would become negative.
+     *
+     * @return 1 if the balance changed, 0 if the account is missing or lacks funds
+     */
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, "
+            + "a.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE a.id = :id AND a.balance + :amount >= 0")
+    int addToBalance(@Param("id") int id, @Param("amount") double amount);
+
 }
@@ -3,6 +3,7 @@ package com.example.fmanager.repository;
 import com.example.fmanager.models.Budget;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,5 +15,19 @@ public interface BudgetRepository extends JpaRepository<Budget, Integer> {
             + "WHERE b.category.id = :categoryId AND c.id = :clientId")
     List<Budget> findByCategoryIdAndClientId(@Param("categoryId") int categoryId,
                                              @Param("clientId") int clientId);
-}
 
+    /**
+     * Adds to the available sum in one statement, unless it would become negative.
+     *
+     * @return 1 if the sum changed, 0 if the budget is missing or would be exceeded
+     */
+    @Modifying
+    @Query("UPDATE Budget b SET b.availableSum = b.availableSum + :amount, "
+            + "b.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE b.id = :id AND b.availableSum + :amount >= 0")
+    int addToAvailableSum(@Param("id") int id, @Param("amount") double amount);
+
+    @Modifying
+    @Query(value = "DELETE FROM client_budgets WHERE client_id = :clientId", nativeQuery = true)
+    int removeClientFromAll(@Param("clientId") int clientId);
+}
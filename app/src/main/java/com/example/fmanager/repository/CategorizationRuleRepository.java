@@ -0,0 +1,21 @@
+package com.example.fmanager.repository;
+
+import com.example.fmanager.models.CategorizationRule;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CategorizationRuleRepository extends JpaRepository<CategorizationRule, Integer> {
+    @Query("SELECT r FROM CategorizationRule r "
+            + "JOIN FETCH r.category "
+            + "WHERE r.client.id = :clientId")
+    List<CategorizationRule> findAllByClientId(@Param("clientId") int clientId);
+
+    @Modifying
+    @Query("DELETE FROM CategorizationRule r WHERE r.client.id = :clientId")
+    int deleteAllByClientId(@Param("clientId") int clientId);
+}
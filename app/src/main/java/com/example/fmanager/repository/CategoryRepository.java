@@ -10,13 +10,17 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Integer> {
     @Query(value = """
-            SELECT DISTINCT categories.id
-            FROM clients
-            JOIN accounts ON clients.id = accounts.client_id
-            JOIN transactions ON accounts.id = transactions.account_id
-            JOIN categories ON categories.id = transactions.category_id
-            WHERE clients.id = :clientId
+            SELECT DISTINCT transactions.category_id
+            FROM transactions
+            WHERE transactions.client_id = :clientId
             """, nativeQuery = true)
     List<Integer> findCategoryIdsByClientId(@Param("clientId") int clientId);
+
+    @Query(value = """
+            SELECT EXISTS (SELECT 1 FROM transactions WHERE category_id = :id)
+                OR EXISTS (SELECT 1 FROM budgets WHERE category_id = :id)
+                OR EXISTS (SELECT 1 FROM categorization_rules WHERE category_id = :id)
+            """, nativeQuery = true)
+    boolean isReferenced(@Param("id") int id);
 }
 
@@ -3,6 +3,7 @@ package com.example.fmanager.repository;
 import com.example.fmanager.models.Goal;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -11,4 +12,8 @@ import org.springframework.stereotype.Repository;
 public interface GoalRepository extends JpaRepository<Goal, Integer> {
     @Query("SELECT g FROM Goal g JOIN g.client c WHERE c.id = :clientId")
     List<Goal> findByClientId(@Param("clientId") int clientId);
+
+    @Modifying
+    @Query("DELETE FROM Goal g WHERE g.client.id = :clientId")
+    int deleteAllByClientId(@Param("clientId") int clientId);
 }
@@ -0,0 +1,32 @@
+package com.example.fmanager.repository;
+
+import com.example.fmanager.models.IdempotencyRecord;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord,
+        IdempotencyRecord.Key> {
+    @Modifying
+    @Query(value = """
+            INSERT INTO idempotency_keys (account_id, idempotency_key, request_hash,
+                                          transaction_id, created_at)
+            VALUES (:accountId, :key, :requestHash, :transactionId, CURRENT_TIMESTAMP)
+            """, nativeQuery = true)
+    void insert(@Param("accountId") int accountId, @Param("key") String key,
+                @Param("requestHash") String requestHash,
+                @Param("transactionId") int transactionId);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :threshold")
+    int deleteAllCreatedBefore(@Param("threshold") LocalDateTime threshold);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.transactionId IN :transactionIds")
+    int deleteAllByTransactionIdIn(@Param("transactionIds") Collection<Integer> transactionIds);
+}
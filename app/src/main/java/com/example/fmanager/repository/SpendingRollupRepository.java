@@ -0,0 +1,81 @@
+package com.example.fmanager.repository;
+
+import com.example.fmanager.dto.SpendingSummaryDto;
+import com.example.fmanager.models.SpendingRollup;
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SpendingRollupRepository extends JpaRepository<SpendingRollup, Integer> {
+    /**
+     * Creates the bucket empty unless it exists, so that concurrent writers of a new bucket all
+     * lock the same row in {@link #findBucketForUpdate} instead of each inserting it.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO spending_rollups (client_id, year_month, category_id, account_id,
+                total_amount, transaction_count, min_amount, max_amount)
+            VALUES (:clientId, :yearMonth, :categoryId, :accountId, 0, 0, 0, 0)
+            ON CONFLICT (client_id, year_month, category_id, account_id) DO NOTHING
+            """, nativeQuery = true)
+    void insertBucketIfAbsent(@Param("clientId") int clientId,
+                              @Param("yearMonth") int yearMonth,
+                              @Param("categoryId") int categoryId,
+                              @Param("accountId") int accountId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM SpendingRollup r "
+            + "WHERE r.clientId = :clientId AND r.yearMonth = :yearMonth "
+            + "AND r.categoryId = :categoryId AND r.accountId = :accountId")
+    Optional<SpendingRollup> findBucketForUpdate(@Param("clientId") int clientId,
+                                                 @Param("yearMonth") int yearMonth,
+                                                 @Param("categoryId") int categoryId,
+                                                 @Param("accountId") int accountId);
+
+    @Query("SELECT new com.example.fmanager.dto.SpendingSummaryDto("
+            + "r.yearMonth, r.categoryId, SUM(r.totalAmount), SUM(r.transactionCount), "
+            + "MIN(r.minAmount), MAX(r.maxAmount)) "
+            + "FROM SpendingRollup r "
+            + "WHERE r.clientId = :clientId AND r.yearMonth BETWEEN :fromMonth AND :toMonth "
+            + "GROUP BY r.yearMonth, r.categoryId "
+            + "ORDER BY r.yearMonth, r.categoryId")
+    List<SpendingSummaryDto> summarizeByMonthAndCategory(@Param("clientId") int clientId,
+                                                         @Param("fromMonth") int fromMonth,
+                                                         @Param("toMonth") int toMonth);
+
+    @Query("SELECT new com.example.fmanager.dto.SpendingSummaryDto("
+            + "0, r.categoryId, SUM(r.totalAmount), SUM(r.transactionCount), "
+            + "MIN(r.minAmount), MAX(r.maxAmount)) "
+            + "FROM SpendingRollup r "
+            + "WHERE r.clientId = :clientId AND r.yearMonth BETWEEN :fromMonth AND :toMonth "
+            + "GROUP BY r.categoryId "
+            + "ORDER BY r.categoryId")
+    List<SpendingSummaryDto> summarizeByCategory(@Param("clientId") int clientId,
+                                                 @Param("fromMonth") int fromMonth,
+                                                 @Param("toMonth") int toMonth);
+
+    /**
+     * Months whose transactions were archived with their partition, see
+     * {@code TransactionPartitionService}.
+     */
+    @Query(value = "SELECT year_month FROM archived_months", nativeQuery = true)
+    List<Integer> findArchivedMonths();
+
+    @Modifying
+    @Query(value = "DELETE FROM spending_rollups "
+            + "WHERE year_month NOT IN (SELECT year_month FROM archived_months)",
+            nativeQuery = true)
+    int deleteAllOutsideArchivedMonths();
+
+    @Modifying
+    @Query("DELETE FROM SpendingRollup r WHERE r.accountId IN :accountIds")
+    int deleteAllByAccountIdIn(@Param("accountIds") Collection<Integer> accountIds);
+}
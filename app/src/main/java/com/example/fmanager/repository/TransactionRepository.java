@@ -1,22 +1,65 @@
 package com.example.fmanager.repository;
 
 import com.example.fmanager.models.Transaction;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Integer> {
+public interface TransactionRepository extends JpaRepository<Transaction, Integer>,
+        JpaSpecificationExecutor<Transaction> {
     @Query("SELECT t FROM Transaction t "
-            + "JOIN t.account a "
-            + "JOIN a.client cl "
-            + "JOIN t.category ct "
-            + "WHERE cl.id = :clientId "
-            + "AND ct.id = :categoryId")
+            + "WHERE t.clientId = :clientId "
+            + "AND t.category.id = :categoryId")
     List<Transaction> findAllByClientIdAndCategoryId(@Param("clientId") int clientId,
                                                      @Param("categoryId") int categoryId);
-}
 
+    // The month bound is spelled out on date rather than on COALESCE(date, createdAt) so that a
+    // partitioned transactions table only scans that month's partition and the default one.
+    @Query("SELECT MIN(t.amount), MAX(t.amount) FROM Transaction t "
+            + "WHERE t.account.id = :accountId "
+            + "AND t.category.id = :categoryId "
+            + "AND ((t.date >= :from AND t.date < :to) "
+            + "OR (t.date IS NULL AND t.createdAt >= :from AND t.createdAt < :to)) "
+            + "AND t.id <> :excludedId")
+    List<Object[]> findAmountRangeExcluding(@Param("accountId") int accountId,
+                                            @Param("categoryId") int categoryId,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to,
+                                            @Param("excludedId") int excludedId);
+
+    @Query("SELECT t.clientId, t.category.id, t.account.id, "
+            + "YEAR(COALESCE(t.date, t.createdAt)) * 100 + MONTH(COALESCE(t.date, t.createdAt)), "
+            + "SUM(t.amount), COUNT(t), MIN(t.amount), MAX(t.amount) "
+            + "FROM Transaction t "
+            + "GROUP BY t.clientId, t.category.id, t.account.id, "
+            + "YEAR(COALESCE(t.date, t.createdAt)) * 100 + MONTH(COALESCE(t.date, t.createdAt))")
+    List<Object[]> aggregateSpendingBuckets();
 
+    @Query("SELECT DISTINCT t.clientId FROM Transaction t "
+            + "WHERE COALESCE(t.date, t.createdAt) < :cutoff")
+    List<Integer> findClientIdsWithTransactionsBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT t FROM Transaction t "
+            + "WHERE t.clientId = :clientId "
+            + "AND COALESCE(t.date, t.createdAt) < :cutoff "
+            + "AND t.id > :afterId "
+            + "ORDER BY t.id")
+    List<Transaction> findAllByClientIdBefore(@Param("clientId") int clientId,
+                                              @Param("cutoff") LocalDateTime cutoff,
+                                              @Param("afterId") int afterId,
+                                              Limit limit);
+
+    @Query("SELECT t.id FROM Transaction t WHERE t.account.id IN :accountIds")
+    List<Integer> findIdsByAccountIdIn(@Param("accountIds") Collection<Integer> accountIds,
+                                       Limit limit);
+
+    @Query("SELECT t.id FROM Transaction t WHERE t.id IN :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+}
@@ -0,0 +1,93 @@
+package com.example.fmanager.repository;
+
+import com.example.fmanager.models.Transaction;
+import jakarta.persistence.criteria.JoinType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Locale;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Predicates for {@code GET /transactions/search}. Date-bounded filters on a client, an account
+ * or categories are served by the (client_id, date), (account_id, date) and (category_id, date)
+ * indexes.
+ */
+public final class TransactionSpecifications {
+
+    private TransactionSpecifications() {
+        throw new UnsupportedOperationException("Class cannot be instantiated");
+    }
+
+    public static Specification<Transaction> fetchAccountAndCategory() {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("account", JoinType.INNER);
+                root.fetch("category", JoinType.INNER);
+            }
+            return cb.conjunction();
+        };
+    }
+
+    public static Specification<Transaction> dated() {
+        return (root, query, cb) -> cb.isNotNull(root.get("date"));
+    }
+
+    public static Specification<Transaction> ofClient(Integer clientId) {
+        return (root, query, cb) -> clientId == null ? null
+                : cb.equal(root.get("clientId"), clientId);
+    }
+
+    public static Specification<Transaction> ofAccount(Integer accountId) {
+        return (root, query, cb) -> accountId == null ? null
+                : cb.equal(root.get("account").get("id"), accountId);
+    }
+
+    public static Specification<Transaction> inCategories(Collection<Integer> categoryIds) {
+        return (root, query, cb) -> categoryIds == null || categoryIds.isEmpty() ? null
+                : root.get("category").get("id").in(categoryIds);
+    }
+
+    public static Specification<Transaction> dateFrom(LocalDateTime from) {
+        return (root, query, cb) -> from == null ? null
+                : cb.greaterThanOrEqualTo(root.get("date"), from);
+    }
+
+    public static Specification<Transaction> dateBefore(LocalDateTime to) {
+        return (root, query, cb) -> to == null ? null : cb.lessThan(root.get("date"), to);
+    }
+
+    public static Specification<Transaction> amountAtLeast(Double minAmount) {
+        return (root, query, cb) -> minAmount == null ? null
+                : cb.greaterThanOrEqualTo(root.get("amount"), minAmount);
+    }
+
+    public static Specification<Transaction> amountAtMost(Double maxAmount) {
+        return (root, query, cb) -> maxAmount == null ? null
+                : cb.lessThanOrEqualTo(root.get("amount"), maxAmount);
+    }
+
+    public static Specification<Transaction> descriptionContains(String text) {
+        return (root, query, cb) -> {
+            if (text == null || text.isBlank()) {
+                return null;
+            }
+            String escaped = text.toLowerCase(Locale.ROOT)
+                    .replace("\\", "\\\\")
+                    .replace("%", "\\%")
+                    .replace("_", "\\_");
+            return cb.like(cb.lower(root.get("description")), "%" + escaped + "%", '\\');
+        };
+    }
+
+    /**
+     * Keyset condition for the order (date desc, id desc): rows strictly after the last row
+     * of the previous page.
+     */
+    public static Specification<Transaction> after(LocalDateTime lastDate, Integer lastId) {
+        return (root, query, cb) -> lastDate == null || lastId == null ? null
+                : cb.or(
+                        cb.lessThan(root.get("date"), lastDate),
+                        cb.and(cb.equal(root.get("date"), lastDate),
+                                cb.lessThan(root.get("id"), lastId)));
+    }
+}
@@ -16,6 +16,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 
 @Service
 public class AccountService {
@@ -24,17 +25,26 @@ public class AccountService {
     private final ClientRepository clientRepository;
     private final TransactionService transactionService;
     private final InMemoryCache cache;
+    private final ReplicaRouting replicaRouting;
+    private final ShardRouting shardRouting;
+    private final TransactionOperations transactionOperations;
 
     public AccountService(AccountRepository accountRepository,
                           InMemoryCache cache,
                           CategoryRepository categoryRepository,
                           TransactionService transactionService,
-                          ClientRepository clientRepository) {
+                          ClientRepository clientRepository,
+                          ReplicaRouting replicaRouting,
+                          ShardRouting shardRouting,
+                          TransactionOperations transactionOperations) {
         this.accountRepository = accountRepository;
         this.categoryRepository = categoryRepository;
         this.clientRepository = clientRepository;
         this.transactionService = transactionService;
         this.cache = cache;
+        this.replicaRouting = replicaRouting;
+        this.shardRouting = shardRouting;
+        this.transactionOperations = transactionOperations;
     }
 
     public Optional<AccountGetDto> getAccountById(int id) {
@@ -43,15 +53,19 @@ public class AccountService {
         return Optional.of(AccountGetDto.convertToDto(account));
     }
 
+    @ReadReplica
     public List<AccountGetDto> findAll() {
-        List<Account> accounts = accountRepository.findAll();
-        List<AccountGetDto> accountGetDtos = new ArrayList<>();
-        for (Account account : accounts) {
-            accountGetDtos.add(AccountGetDto.convertToDto(account));
-        }
-        return accountGetDtos;
+        return shardRouting.gather(() -> {
+            List<Account> accounts = accountRepository.findAll();
+            List<AccountGetDto> accountGetDtos = new ArrayList<>();
+            for (Account account : accounts) {
+                accountGetDtos.add(AccountGetDto.convertToDto(account));
+            }
+            return accountGetDtos;
+        });
     }
 
+    @ReadReplica
     public List<AccountGetDto> findByClientId(int clientId) {
         String cacheKey = "accounts_client_" + clientId;
         if (cache.containsKey(cacheKey)) {
@@ -66,6 +80,7 @@ public class AccountService {
         return accountGetDtos;
     }
 
+    @ReadReplica
     public List<AccountGetDto> findByClientUsername(String clientUsername) {
         return accountRepository.findByClientUsername(clientUsername).stream()
                 .map(AccountGetDto::convertToDto)
@@ -75,6 +90,7 @@ public class AccountService {
     public void clearCacheForClient(int clientId) {
         String cacheKey = "accounts_client_" + clientId;
         cache.remove(cacheKey);
+        replicaRouting.recordWrite(clientId);
     }
 
     @Transactional
@@ -84,6 +100,7 @@ public class AccountService {
         Account account = new Account();
         account.setName(accountCreateDto.getName());
         account.setBalance(accountCreateDto.getBalance());
+        account.setOpeningBalance(accountCreateDto.getBalance());
         account.setClient(client);
         Account savedAccount = accountRepository.save(account);
         List<Integer> categoryIds = categoryRepository.findCategoryIdsByClientId(
@@ -100,21 +117,48 @@ public class AccountService {
 
     @Transactional
     public AccountGetDto updateAccount(int id, AccountUpdateDto accountDetails) {
-        Account account = accountRepository.findById(id)
+        Account account = accountRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new NotFoundException(ACCOUNT_NOT_FOUND_MESSAGE));
         account.setName(accountDetails.getName());
+        account.setOpeningBalance(account.getOpeningBalance()
+                + accountDetails.getBalance() - account.getBalance());
         account.setBalance(accountDetails.getBalance());
         Account savedAccount = accountRepository.save(account);
         clearCacheForClient(savedAccount.getClient().getId());
         return AccountGetDto.convertToDto(savedAccount);
     }
 
-    @Transactional
+    /**
+     * Deletes the account and its transactions with bulk statements. The history goes first in
+     * batches that commit one by one; transactions added meanwhile are deleted together with the
+     * account.
+     */
     public void deleteAccount(int id) {
         Account account = accountRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException(ACCOUNT_NOT_FOUND_MESSAGE));
-        clearCacheForClient(account.getClient().getId());
-        accountRepository.delete(account);
+        int clientId = account.getClient().getId();
+        List<Integer> accountIds = List.of(id);
+        transactionService.deleteAllOfAccounts(clientId, accountIds);
+        transactionOperations.executeWithoutResult(status -> {
+            transactionService.deleteAllOfAccounts(clientId, accountIds);
+            accountRepository.deleteAllByIdInBatch(accountIds);
+        });
+        clearCacheForClient(clientId);
+    }
+
+    /**
+     * Deletes every account of the client with their transactions, batched like
+     * {@link #deleteAccount(int)}. Called inside a transaction, all of it joins that one.
+     */
+    public void deleteAllOfClient(int clientId) {
+        List<Integer> accountIds = accountRepository.findIdsByClientId(clientId);
+        if (accountIds.isEmpty()) {
+            return;
+        }
+        transactionService.deleteAllOfAccounts(clientId, accountIds);
+        transactionOperations.executeWithoutResult(status ->
+                accountRepository.deleteAllByIdInBatch(accountIds));
+        clearCacheForClient(clientId);
     }
 
     public List<Account> getAllAccounts() {
@@ -0,0 +1,267 @@
+package com.example.fmanager.service;
+
+import com.example.fmanager.dto.BalanceDriftDto;
+import com.example.fmanager.dto.ReconciliationStatusDto;
+import com.example.fmanager.exception.InvalidDataException;
+import com.example.fmanager.repository.AccountRepository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Checks that every account's balance equals its opening balance plus the sum of its
+ * transactions. The balance drifts, for example, when a transaction is deleted. A keyset scan
+ * cuts the accounts of each shard into ranges of consecutive ids. Up to
+ * {@code reconciliation.parallelism} ranges per shard are summed at once, each with a single
+ * grouped query, so a pass holds a few short connections and no long transaction. It can be
+ * throttled further with {@code reconciliation.max-accounts-per-second}.
+ *
+ * <p>When correcting, the drift is taken off the balance with a relative update. A posting
+ * that commits between the read and the update changes the balance and the sum alike, so the
+ * correction stays right.
+ */
+@Service
+public class BalanceReconciliationService {
+    private static final Logger logger =
+            LoggerFactory.getLogger(BalanceReconciliationService.class);
+    private static final double TOLERANCE = 0.005;
+    private static final int REPORTED_DRIFTS = 100;
+
+    private final AccountRepository accountRepository;
+    private final AccountService accountService;
+    private final ShardRouting shardRouting;
+    private final TransactionOperations transactionOperations;
+    private final boolean enabled;
+    private final boolean correctScheduled;
+    private final int parallelism;
+    private final int rangeSize;
+    private final int maxAccountsPerSecond;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Run latest;
+
+    public BalanceReconciliationService(AccountRepository accountRepository,
+                                        AccountService accountService,
+                                        ShardRouting shardRouting,
+                                        TransactionOperations transactionOperations,
+                                        @Value("${reconciliation.enabled:false}")
+                                        boolean enabled,
+                                        @Value("${reconciliation.correct:false}")
+                                        boolean correctScheduled,
+                                        @Value("${reconciliation.parallelism:4}")
+                                        int parallelism,
+                                        @Value("${reconciliation.range-size:1000}")
+                                        int rangeSize,
+                                        @Value("${reconciliation.max-accounts-per-second:0}")
+                                        int maxAccountsPerSecond) {
+        this.accountRepository = accountRepository;
+        this.accountService = accountService;
+        this.shardRouting = shardRouting;
+        this.transactionOperations = transactionOperations;
+        this.enabled = enabled;
+        this.correctScheduled = correctScheduled;
+        this.parallelism = parallelism;
+        this.rangeSize = rangeSize;
+        this.maxAccountsPerSecond = maxAccountsPerSecond;
+    }
+
+    @Scheduled(cron = "${reconciliation.cron:0 0 4 * * *}")
+    public void reconcileNightly() {
+        if (enabled && !running.get()) {
+            start(correctScheduled);
+        }
+    }
+
+    /**
+     * Starts a pass in the background and returns its initial status.
+     */
+    public ReconciliationStatusDto start(boolean correct) {
+        Run run = begin(correct);
+        Thread.ofVirtual().name("balance-reconciliation").start(() -> execute(run));
+        return run.toDto(true);
+    }
+
+    /**
+     * Runs a pass on the calling thread and returns its final status.
+     */
+    public ReconciliationStatusDto reconcile(boolean correct) {
+        Run run = begin(correct);
+        execute(run);
+        return run.toDto(false);
+    }
+
+    public ReconciliationStatusDto getStatus() {
+        Run run = latest;
+        return run == null ? new ReconciliationStatusDto() : run.toDto(running.get());
+    }
+
+    private Run begin(boolean correct) {
+        if (!running.compareAndSet(false, true)) {
+            throw new InvalidDataException("A balance reconciliation is already running");
+        }
+        Run run = new Run(correct);
+        latest = run;
+        return run;
+    }
+
+    private void execute(Run run) {
+        try {
+            run.accountsTotal = shardRouting.onEachShard(accountRepository::count).stream()
+                    .mapToLong(Long::longValue).sum();
+            shardRouting.forEachShard(() -> reconcileCurrentShard(run));
+            logger.info("Balance reconciliation checked {} accounts, {} drifted, {} corrected",
+                    run.accountsScanned, run.driftedAccounts, run.correctedAccounts);
+        } catch (RuntimeException e) {
+            run.error = e.getMessage();
+            logger.error("Balance reconciliation failed", e);
+        } finally {
+            run.finishedAt = LocalDateTime.now();
+            run.finishedNanos = System.nanoTime();
+            running.set(false);
+        }
+    }
+
+    private void reconcileCurrentShard(Run run) {
+        int shard = ShardRouting.currentShard();
+        Semaphore permits = new Semaphore(parallelism);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        long startNanos = System.nanoTime();
+        long queued = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            int afterId = 0;
+            List<Integer> ids;
+            do {
+                ids = accountRepository.findIdsAfter(afterId, Limit.of(rangeSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                int fromId = ids.get(0);
+                int toId = ids.get(ids.size() - 1);
+                permits.acquireUninterruptibly();
+                if (failure.get() != null) {
+                    break;
+                }
+                executor.execute(() -> {
+                    try {
+                        shardRouting.onShard(shard, () -> reconcileRange(run, fromId, toId));
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+                afterId = toId;
+                queued += ids.size();
+                throttle(startNanos, queued);
+            } while (ids.size() == rangeSize);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    private int reconcileRange(Run run, int fromId, int toId) {
+        List<Object[]> rows = accountRepository.sumTransactionsBetween(fromId, toId);
+        List<BalanceDriftDto> drifts = new ArrayList<>();
+        for (Object[] row : rows) {
+            double balance = ((Number) row[2]).doubleValue();
+            double expected = ((Number) row[3]).doubleValue() + ((Number) row[4]).doubleValue();
+            if (Math.abs(balance - expected) > TOLERANCE) {
+                drifts.add(new BalanceDriftDto((Integer) row[0], (Integer) row[1], balance,
+                        expected, balance - expected));
+            }
+        }
+        if (run.correct && !drifts.isEmpty()) {
+            transactionOperations.executeWithoutResult(status -> {
+                for (BalanceDriftDto drift : drifts) {
+                    accountRepository.adjustBalance(drift.getAccountId(), -drift.getDrift());
+                }
+            });
+            drifts.stream().map(BalanceDriftDto::getClientId).distinct()
+                    .forEach(accountService::clearCacheForClient);
+            run.correctedAccounts.addAndGet(drifts.size());
+        }
+        run.record(rows.size(), drifts);
+        return rows.size();
+    }
+
+    private void throttle(long startNanos, long queued) {
+        if (maxAccountsPerSecond <= 0) {
+            return;
+        }
+        long dueNanos = queued * 1_000_000_000L / maxAccountsPerSecond;
+        long aheadNanos = dueNanos - (System.nanoTime() - startNanos);
+        if (aheadNanos > 0) {
+            LockSupport.parkNanos(aheadNanos);
+        }
+    }
+
+    private static final class Run {
+        private final boolean correct;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong accountsScanned = new AtomicLong();
+        private final AtomicLong rangesCompleted = new AtomicLong();
+        private final AtomicLong driftedAccounts = new AtomicLong();
+        private final AtomicLong correctedAccounts = new AtomicLong();
+        private final List<BalanceDriftDto> drifts = new ArrayList<>();
+        private volatile long accountsTotal;
+        private volatile LocalDateTime finishedAt;
+        private volatile long finishedNanos;
+        private volatile String error;
+
+        private Run(boolean correct) {
+            this.correct = correct;
+        }
+
+        private void record(int accounts, List<BalanceDriftDto> rangeDrifts) {
+            accountsScanned.addAndGet(accounts);
+            rangesCompleted.incrementAndGet();
+            driftedAccounts.addAndGet(rangeDrifts.size());
+            synchronized (drifts) {
+                for (BalanceDriftDto drift : rangeDrifts) {
+                    if (drifts.size() < REPORTED_DRIFTS) {
+                        drifts.add(drift);
+                    }
+                }
+            }
+        }
+
+        private ReconciliationStatusDto toDto(boolean running) {
+            ReconciliationStatusDto dto = new ReconciliationStatusDto();
+            long scanned = accountsScanned.get();
+            long endNanos = finishedAt == null ? System.nanoTime() : finishedNanos;
+            double seconds = Math.max(endNanos - startNanos, 1) / 1e9;
+            dto.setRunning(running);
+            dto.setCorrecting(correct);
+            dto.setStartedAt(startedAt);
+            dto.setFinishedAt(finishedAt);
+            dto.setAccountsTotal(accountsTotal);
+            dto.setAccountsScanned(scanned);
+            dto.setRangesCompleted(rangesCompleted.get());
+            dto.setDriftedAccounts(driftedAccounts.get());
+            dto.setCorrectedAccounts(correctedAccounts.get());
+            dto.setAccountsPerSecond(scanned / seconds);
+            dto.setProgress(accountsTotal == 0 ? (finishedAt == null ? 0 : 1)
+                    : Math.min(1.0, (double) scanned / accountsTotal));
+            dto.setError(error);
+            synchronized (drifts) {
+                dto.setDrifts(List.copyOf(drifts));
+            }
+            return dto;
+        }
+    }
+}
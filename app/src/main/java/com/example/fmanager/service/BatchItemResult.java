@@ -0,0 +1,18 @@
+package com.example.fmanager.service;
+
+import com.example.fmanager.models.Transaction;
+
+public record BatchItemResult(Transaction transaction, RuntimeException error) {
+
+    static BatchItemResult success(Transaction transaction) {
+        return new BatchItemResult(transaction, null);
+    }
+
+    static BatchItemResult failure(RuntimeException error) {
+        return new BatchItemResult(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
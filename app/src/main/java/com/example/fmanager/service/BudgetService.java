@@ -27,15 +27,22 @@ public class BudgetService {
     private BudgetRepository budgetRepository;
     private CategoryRepository categoryRepository;
     private ClientRepository clientRepository;
+    private ReplicaRouting replicaRouting;
+    private ShardRouting shardRouting;
 
     public BudgetService(BudgetRepository budgetRepository,
                          CategoryRepository categoryRepository,
-                         ClientRepository clientRepository) {
+                         ClientRepository clientRepository,
+                         ReplicaRouting replicaRouting,
+                         ShardRouting shardRouting) {
         this.budgetRepository = budgetRepository;
         this.categoryRepository = categoryRepository;
         this.clientRepository = clientRepository;
+        this.replicaRouting = replicaRouting;
+        this.shardRouting = shardRouting;
     }
 
+    @ReadReplica
     public List<BudgetGetDto> getBudgetsByClientIdAndCategoryId(int clientId, int categoryId) {
         if (!clientRepository.existsById(clientId)) {
             throw new NotFoundException(CLIENT_NOT_FOUND_MESSAGE + clientId);
@@ -48,13 +55,16 @@ public class BudgetService {
                 .toList();
     }
 
+    @ReadReplica
     public List<BudgetGetDto> getAllBudgets() {
-        List<Budget> budgets = budgetRepository.findAll();
-        List<BudgetGetDto> budgetGetDtos = new ArrayList<>();
-        for (Budget budget : budgets) {
-            budgetGetDtos.add(BudgetGetDto.convertToDto(budget));
-        }
-        return budgetGetDtos;
+        return shardRouting.gather(() -> {
+            List<Budget> budgets = budgetRepository.findAll();
+            List<BudgetGetDto> budgetGetDtos = new ArrayList<>();
+            for (Budget budget : budgets) {
+                budgetGetDtos.add(BudgetGetDto.convertToDto(budget));
+            }
+            return budgetGetDtos;
+        });
     }
 
     public Optional<BudgetGetDto> getBudgetById(int id) {
@@ -77,7 +87,9 @@ public class BudgetService {
         budget.setLimitation(budgetCreateDto.getLimitation());
         budget.setCategory(category);
         budget.setClients(clients);
-        return budgetRepository.save(budget);
+        Budget savedBudget = budgetRepository.save(budget);
+        recordWrites(clients);
+        return savedBudget;
     }
 
     @Transactional
@@ -86,6 +98,7 @@ public class BudgetService {
                 .orElseThrow(() -> new NotFoundException(BUDGET_NOT_FOUND_MESSAGE));
         budget.setPeriod(budgetDetails.getPeriod());
         budget.setLimitation(budgetDetails.getLimitation());
+        recordWrites(budget.getClients());
         Set<Client> clients = new HashSet<>();
         for (Integer clientId : budgetDetails.getClientIds()) {
             Client client = clientRepository.findById(clientId)
@@ -93,6 +106,7 @@ public class BudgetService {
             clients.add(client);
         }
         budget.setClients(clients);
+        recordWrites(clients);
         return BudgetGetDto.convertToDto(budgetRepository.save(budget));
     }
 
@@ -100,6 +114,13 @@ public class BudgetService {
     public void deleteBudget(int id) {
         Budget budget = budgetRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException(BUDGET_NOT_FOUND_MESSAGE));
+        recordWrites(budget.getClients());
         budgetRepository.delete(budget);
     }
+
+    private void recordWrites(Set<Client> clients) {
+        if (clients != null) {
+            clients.forEach(client -> replicaRouting.recordWrite(client.getId()));
+        }
+    }
 }
@@ -0,0 +1,105 @@
+package com.example.fmanager.service;
+
+import static com.example.fmanager.exception.NotFoundMessages.CATEGORY_NOT_FOUND_MESSAGE;
+import static com.example.fmanager.exception.NotFoundMessages.CLIENT_NOT_FOUND_MESSAGE;
+import static com.example.fmanager.exception.NotFoundMessages.RULE_NOT_FOUND_MESSAGE;
+
+import com.example.fmanager.dto.CategorizationRuleCreateDto;
+import com.example.fmanager.dto.CategorizationRuleGetDto;
+import com.example.fmanager.exception.NotFoundException;
+import com.example.fmanager.models.CategorizationRule;
+import com.example.fmanager.models.Category;
+import com.example.fmanager.models.Client;
+import com.example.fmanager.repository.CategorizationRuleRepository;
+import com.example.fmanager.repository.CategoryRepository;
+import com.example.fmanager.repository.ClientRepository;
+import jakarta.transaction.Transactional;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+public class CategorizationService {
+    private final CategorizationRuleRepository ruleRepository;
+    private final ClientRepository clientRepository;
+    private final CategoryRepository categoryRepository;
+    private final Map<Integer, DescriptionMatcher> matchers = new ConcurrentHashMap<>();
+
+    public CategorizationService(CategorizationRuleRepository ruleRepository,
+                                 ClientRepository clientRepository,
+                                 CategoryRepository categoryRepository) {
+        this.ruleRepository = ruleRepository;
+        this.clientRepository = clientRepository;
+        this.categoryRepository = categoryRepository;
+    }
+
+    public OptionalInt categorize(int clientId, String description) {
+        return matchers.computeIfAbsent(clientId, this::compileMatcher).match(description);
+    }
+
+    public List<CategorizationRuleGetDto> findByClientId(int clientId) {
+        return ruleRepository.findAllByClientId(clientId).stream()
+                .map(CategorizationRuleGetDto::convertToDto)
+                .toList();
+    }
+
+    @Transactional
+    public CategorizationRule createRule(CategorizationRuleCreateDto ruleCreateDto) {
+        Client client = clientRepository.findById(ruleCreateDto.getClientId())
+                .orElseThrow(() -> new NotFoundException(CLIENT_NOT_FOUND_MESSAGE));
+        Category category = categoryRepository.findById(ruleCreateDto.getCategoryId())
+                .orElseThrow(() -> new NotFoundException(CATEGORY_NOT_FOUND_MESSAGE));
+        CategorizationRule rule = new CategorizationRule();
+        rule.setPattern(ruleCreateDto.getPattern().trim());
+        rule.setClient(client);
+        rule.setCategory(category);
+        CategorizationRule savedRule = ruleRepository.save(rule);
+        evictMatcher(client.getId());
+        return savedRule;
+    }
+
+    public CategorizationRuleGetDto getRuleById(int id) {
+        CategorizationRule rule = ruleRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException(RULE_NOT_FOUND_MESSAGE));
+        return CategorizationRuleGetDto.convertToDto(rule);
+    }
+
+    @Transactional
+    public void deleteRule(int id) {
+        CategorizationRule rule = ruleRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException(RULE_NOT_FOUND_MESSAGE));
+        int clientId = rule.getClient().getId();
+        ruleRepository.delete(rule);
+        evictMatcher(clientId);
+    }
+
+    /**
+     * Drops the client's compiled matcher once the current transaction commits. Evicting
+     * earlier would let a concurrent {@link #categorize} rebuild and cache the matcher from the
+     * rules as they were before the commit.
+     */
+    public void evictMatcher(int clientId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            matchers.remove(clientId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                matchers.remove(clientId);
+            }
+        });
+    }
+
+    private DescriptionMatcher compileMatcher(int clientId) {
+        List<DescriptionMatcher.Rule> rules = ruleRepository.findAllByClientId(clientId).stream()
+                .map(rule -> new DescriptionMatcher.Rule(
+                        rule.getId(), rule.getPattern(), rule.getCategory().getId()))
+                .toList();
+        return DescriptionMatcher.compile(rules);
+    }
+}
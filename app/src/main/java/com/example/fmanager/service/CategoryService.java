@@ -4,25 +4,48 @@ import static com.example.fmanager.exception.NotFoundMessages.CATEGORY_NOT_FOUND
 
 import com.example.fmanager.dto.CategoryCreateDto;
 import com.example.fmanager.dto.CategoryGetDto;
+import com.example.fmanager.exception.InvalidDataException;
 import com.example.fmanager.exception.NotFoundException;
 import com.example.fmanager.models.Category;
 import com.example.fmanager.repository.CategoryRepository;
 import jakarta.transaction.Transactional;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class CategoryService {
+    private static final Logger logger = LoggerFactory.getLogger(CategoryService.class);
+    private static final String UPSERT_SQL = "INSERT INTO categories (id, name) VALUES (?, ?) "
+            + "ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name";
+    private static final String DELETE_UNREFERENCED_SQL = "DELETE FROM categories WHERE id = ? "
+            + "AND NOT EXISTS (SELECT 1 FROM transactions WHERE category_id = ?) "
+            + "AND NOT EXISTS (SELECT 1 FROM budgets WHERE category_id = ?) "
+            + "AND NOT EXISTS (SELECT 1 FROM categorization_rules WHERE category_id = ?)";
+
     private final CategoryRepository categoryRepository;
     private final InMemoryCache cache;
+    private final ShardRouting shardRouting;
 
-    public CategoryService(CategoryRepository categoryRepository, InMemoryCache cache) {
+    public CategoryService(CategoryRepository categoryRepository, InMemoryCache cache,
+                           ShardRouting shardRouting) {
         this.categoryRepository = categoryRepository;
         this.cache = cache;
+        this.shardRouting = shardRouting;
     }
 
+    @ReadReplica
     public List<CategoryGetDto> findAll() {
         String cacheKey = "all_categories";
         if (cache.containsKey(cacheKey)) {
@@ -43,10 +66,12 @@ public class CategoryService {
         return Optional.of(CategoryGetDto.convertToDto(category));
     }
 
+    @Transactional
     public Category createCategory(CategoryCreateDto categoryCreateDto) {
         Category category = new Category();
         category.setName(categoryCreateDto.getName());
         Category savedCategory = categoryRepository.save(category);
+        copyToOtherShards(savedCategory);
         clearCategoryCache();
         return savedCategory;
     }
@@ -57,22 +82,97 @@ public class CategoryService {
                 .orElseThrow(() -> new NotFoundException(CATEGORY_NOT_FOUND_MESSAGE));
         category.setName(categoryDetails.getName());
         Category savedCategory = categoryRepository.save(category);
+        copyToOtherShards(savedCategory);
         clearCategoryCache();
         return CategoryGetDto.convertToDto(savedCategory);
     }
 
+    /**
+     * Deletes a category that nothing on any shard refers to any more.
+     */
     @Transactional
     public void deleteCategory(int id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException(CATEGORY_NOT_FOUND_MESSAGE));
+        if (shardRouting.onEachShard(() -> categoryRepository.isReferenced(id)).contains(true)) {
+            throw new InvalidDataException("Category " + id + " is still in use");
+        }
         clearCategoryCache();
         categoryRepository.delete(category);
+        afterCommit(() -> reportFailures(id,
+                shardRouting.updateOtherShards("DELETE FROM categories WHERE id = ?", id)));
     }
 
     public List<Category> getAllCategories() {
         return categoryRepository.findAll();
     }
 
+    /**
+     * Makes every shard's categories match shard 0, where category requests run. Repairs
+     * shards that missed a change, e.g. because they were down when it committed. A stale
+     * copy that rows on its shard still refer to is kept and logged.
+     */
+    @Scheduled(fixedDelayString = "${datasource.shards.category-sync-interval:PT10M}")
+    public void syncCategories() {
+        if (!shardRouting.isSharded()) {
+            return;
+        }
+        Map<Integer, String> categories = new HashMap<>();
+        shardRouting.jdbcTemplate(0).query("SELECT id, name FROM categories",
+                (RowCallbackHandler) row -> categories.put(row.getInt(1), row.getString(2)));
+        for (int shard = 1; shard < shardRouting.shardCount(); shard++) {
+            JdbcTemplate jdbcTemplate = shardRouting.jdbcTemplate(shard);
+            try {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, categories.entrySet().stream()
+                        .map(entry -> new Object[] {entry.getKey(), entry.getValue()})
+                        .toList());
+                for (int copy : jdbcTemplate.queryForList("SELECT id FROM categories",
+                        Integer.class)) {
+                    if (categories.containsKey(copy)) {
+                        continue;
+                    }
+                    if (jdbcTemplate.update(DELETE_UNREFERENCED_SQL, copy, copy, copy, copy) == 0) {
+                        logger.error("Category {} was deleted but is still used on shard {}",
+                                copy, shard);
+                    }
+                }
+            } catch (DataAccessException e) {
+                logger.error("Category sync of shard {} failed: {}", shard, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Categories are referenced by rows on every shard, so each shard keeps a copy with the
+     * same id. Other shards are only written once the local change has committed.
+     */
+    private void copyToOtherShards(Category category) {
+        int id = category.getId();
+        String name = category.getName();
+        afterCommit(() -> reportFailures(id,
+                shardRouting.updateOtherShards(UPSERT_SQL, id, name)));
+    }
+
+    private static void reportFailures(int id, List<Integer> failedShards) {
+        if (!failedShards.isEmpty()) {
+            logger.error("Category {} diverged on shards {} until the next category sync",
+                    id, failedShards);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     public void clearCategoryCache() {
         String cacheKey = "all_categories";
         cache.remove(cacheKey);
@@ -7,28 +7,55 @@ import com.example.fmanager.dto.ClientGetDto;
 import com.example.fmanager.dto.ClientUpdateDto;
 import com.example.fmanager.exception.NotFoundException;
 import com.example.fmanager.models.Client;
+import com.example.fmanager.repository.BudgetRepository;
+import com.example.fmanager.repository.CategorizationRuleRepository;
 import com.example.fmanager.repository.ClientRepository;
 import jakarta.transaction.Transactional;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 
 @Service
 public class ClientService {
     private ClientRepository clientRepository;
+    private BudgetRepository budgetRepository;
+    private CategorizationRuleRepository categorizationRuleRepository;
+    private AccountService accountService;
+    private GoalService goalService;
+    private TransactionArchiveService transactionArchiveService;
+    private ShardRouting shardRouting;
+    private TransactionOperations transactionOperations;
 
-    public ClientService(ClientRepository userRepository) {
+    public ClientService(ClientRepository userRepository,
+                         BudgetRepository budgetRepository,
+                         CategorizationRuleRepository categorizationRuleRepository,
+                         AccountService accountService,
+                         GoalService goalService,
+                         TransactionArchiveService transactionArchiveService,
+                         ShardRouting shardRouting,
+                         TransactionOperations transactionOperations) {
         this.clientRepository = userRepository;
+        this.budgetRepository = budgetRepository;
+        this.categorizationRuleRepository = categorizationRuleRepository;
+        this.accountService = accountService;
+        this.goalService = goalService;
+        this.transactionArchiveService = transactionArchiveService;
+        this.shardRouting = shardRouting;
+        this.transactionOperations = transactionOperations;
     }
 
+    @ReadReplica
     public List<ClientGetDto> findAll() {
-        List<Client> clients = clientRepository.findAll();
-        List<ClientGetDto> clientDtos = new ArrayList<>();
-        for (Client client : clients) {
-            clientDtos.add(ClientGetDto.convertToDto(client));
-        }
-        return clientDtos;
+        return shardRouting.gather(() -> {
+            List<Client> clients = clientRepository.findAll();
+            List<ClientGetDto> clientDtos = new ArrayList<>();
+            for (Client client : clients) {
+                clientDtos.add(ClientGetDto.convertToDto(client));
+            }
+            return clientDtos;
+        });
     }
 
     public Optional<ClientGetDto> findById(int id) {
@@ -42,7 +69,9 @@ public class ClientService {
         client.setUsername(userCreateDto.getUsername());
         client.setPassword(userCreateDto.getPassword());
         client.setEmail(userCreateDto.getEmail());
-        return clientRepository.save(client);
+        Client savedClient = clientRepository.save(client);
+        shardRouting.registerClient(savedClient.getId());
+        return savedClient;
 
 
     }
@@ -55,11 +84,27 @@ public class ClientService {
         return ClientGetDto.convertToDto(clientRepository.save(user));
     }
 
-    @Transactional
+    /**
+     * Deletes the client and everything it owns with bulk statements in foreign key order,
+     * without loading any of it. The transaction history goes first in batches that commit one
+     * by one; the remaining rows are deleted in a single transaction. Budgets shared with other
+     * clients are kept.
+     */
     public void deleteUser(int id) {
-        Client user = clientRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException(CLIENT_NOT_FOUND_MESSAGE));
-        clientRepository.delete(user);
+        if (!clientRepository.existsById(id)) {
+            throw new NotFoundException(CLIENT_NOT_FOUND_MESSAGE);
+        }
+        accountService.deleteAllOfClient(id);
+        transactionOperations.executeWithoutResult(status -> {
+            // Accounts opened while the history was being deleted
+            accountService.deleteAllOfClient(id);
+            goalService.deleteAllOfClient(id);
+            categorizationRuleRepository.deleteAllByClientId(id);
+            budgetRepository.removeClientFromAll(id);
+            clientRepository.deleteAllByIdInBatch(List.of(id));
+        });
+        transactionArchiveService.deleteClient(id);
+        shardRouting.unregisterClient(id);
     }
 
     public List<Client> findAllClients() {
@@ -0,0 +1,246 @@
+package com.example.fmanager.service;
+
+import com.example.fmanager.models.ArchivedTransaction;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Immutable column-oriented file holding archived transactions of one client, sorted by date.
+ *
+ * <p>Layout: magic, row count, column count, the byte length of every column, then the columns.
+ * Integers are zigzag varints. Ids and timestamps (epoch microseconds) are delta-encoded,
+ * {@code createdAt} is stored relative to the row's timestamp, amounts are integer cents and
+ * descriptions are indexes into a dictionary of distinct values (0 meaning null). Reads map the
+ * file and decode the category column first, so a category-filtered scan leaves segments without
+ * a matching row after one column and only materializes the rows it returns.
+ */
+final class ColumnarSegment {
+    private static final int MAGIC = 0x46434131;
+    private static final int ID = 0;
+    private static final int TIMESTAMP = 1;
+    private static final int UNDATED = 2;
+    private static final int CREATED_AT = 3;
+    private static final int AMOUNT = 4;
+    private static final int ACCOUNT = 5;
+    private static final int CATEGORY = 6;
+    private static final int DICTIONARY = 7;
+    private static final int DESCRIPTION = 8;
+    private static final int COLUMN_COUNT = 9;
+
+    private ColumnarSegment() {
+        throw new UnsupportedOperationException("Class cannot be instantiated");
+    }
+
+    /**
+     * Whether the amount survives the conversion to cents unchanged.
+     */
+    static boolean isEncodable(ArchivedTransaction transaction) {
+        return toCents(transaction.amount()) / 100.0 == transaction.amount()
+                && transaction.effectiveDate() != null;
+    }
+
+    /**
+     * Writes the rows to a temporary file and renames it to {@code path}. The file and its
+     * directory are forced to disk before this returns.
+     */
+    static void write(Path path, List<ArchivedTransaction> transactions) throws IOException {
+        List<ArchivedTransaction> rows = new ArrayList<>(transactions);
+        rows.sort(Comparator.comparing(ArchivedTransaction::effectiveDate)
+                .thenComparingInt(ArchivedTransaction::id));
+        Column[] columns = new Column[COLUMN_COUNT];
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            columns[i] = new Column();
+        }
+        byte[] undated = new byte[(rows.size() + 7) / 8];
+        Map<String, Integer> dictionary = new HashMap<>();
+        long previousId = 0;
+        long previousTimestamp = 0;
+        for (int row = 0; row < rows.size(); row++) {
+            ArchivedTransaction transaction = rows.get(row);
+            long timestamp = toMicros(transaction.effectiveDate());
+            columns[ID].writeLong(transaction.id() - previousId);
+            columns[TIMESTAMP].writeLong(timestamp - previousTimestamp);
+            if (transaction.date() == null) {
+                undated[row / 8] |= (byte) (1 << (row % 8));
+            }
+            columns[CREATED_AT].writeLong(transaction.createdAt() == null ? 0
+                    : toMicros(transaction.createdAt()) - timestamp);
+            columns[AMOUNT].writeLong(toCents(transaction.amount()));
+            columns[ACCOUNT].writeLong(transaction.accountId());
+            columns[CATEGORY].writeLong(transaction.categoryId());
+            String description = transaction.description();
+            int index = 0;
+            if (description != null) {
+                index = dictionary.computeIfAbsent(description, key -> {
+                    byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+                    columns[DICTIONARY].writeLong(bytes.length);
+                    columns[DICTIONARY].write(bytes, 0, bytes.length);
+                    return dictionary.size() + 1;
+                });
+            }
+            columns[DESCRIPTION].writeLong(index);
+            previousId = transaction.id();
+            previousTimestamp = timestamp;
+        }
+        columns[UNDATED].write(undated, 0, undated.length);
+
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES * (3 + COLUMN_COUNT));
+        header.putInt(MAGIC).putInt(rows.size()).putInt(COLUMN_COUNT);
+        for (Column column : columns) {
+            header.putInt(column.size());
+        }
+        header.flip();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(header);
+            for (Column column : columns) {
+                channel.write(ByteBuffer.wrap(column.buffer(), 0, column.size()));
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        // The rename is durable only once the directory entry is.
+        try (FileChannel directory = FileChannel.open(path.getParent(),
+                StandardOpenOption.READ)) {
+            directory.force(true);
+        }
+    }
+
+    static List<ArchivedTransaction> read(Path path, IntPredicate categoryFilter)
+            throws IOException {
+        Mapped mapped = map(path);
+        int rowCount = mapped.rowCount();
+        ByteBuffer[] columns = mapped.columns();
+        List<ArchivedTransaction> result = new ArrayList<>();
+        if (rowCount == 0) {
+            return result;
+        }
+        int[] categories = new int[rowCount];
+        boolean any = false;
+        for (int row = 0; row < rowCount; row++) {
+            categories[row] = (int) readLong(columns[CATEGORY]);
+            any |= categoryFilter.test(categories[row]);
+        }
+        if (!any) {
+            return result;
+        }
+        List<String> dictionary = new ArrayList<>();
+        while (columns[DICTIONARY].hasRemaining()) {
+            byte[] bytes = new byte[(int) readLong(columns[DICTIONARY])];
+            columns[DICTIONARY].get(bytes);
+            dictionary.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        long id = 0;
+        long timestamp = 0;
+        for (int row = 0; row < rowCount; row++) {
+            id += readLong(columns[ID]);
+            timestamp += readLong(columns[TIMESTAMP]);
+            long createdOffset = readLong(columns[CREATED_AT]);
+            long cents = readLong(columns[AMOUNT]);
+            int account = (int) readLong(columns[ACCOUNT]);
+            int description = (int) readLong(columns[DESCRIPTION]);
+            if (!categoryFilter.test(categories[row])) {
+                continue;
+            }
+            boolean undated = (columns[UNDATED].get(row / 8) & (1 << (row % 8))) != 0;
+            LocalDateTime date = fromMicros(timestamp);
+            result.add(new ArchivedTransaction((int) id,
+                    description == 0 ? null : dictionary.get(description - 1),
+                    cents / 100.0, undated ? null : date,
+                    fromMicros(timestamp + createdOffset), account, categories[row]));
+        }
+        return result;
+    }
+
+    static List<Integer> readIds(Path path) throws IOException {
+        Mapped mapped = map(path);
+        List<Integer> ids = new ArrayList<>(mapped.rowCount());
+        long id = 0;
+        for (int row = 0; row < mapped.rowCount(); row++) {
+            id += readLong(mapped.columns()[ID]);
+            ids.add((int) id);
+        }
+        return ids;
+    }
+
+    private record Mapped(int rowCount, ByteBuffer[] columns) {
+    }
+
+    private static Mapped map(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < Integer.BYTES * (3 + COLUMN_COUNT)
+                || buffer.getInt(0) != MAGIC
+                || buffer.getInt(Integer.BYTES * 2) != COLUMN_COUNT) {
+            throw new IOException("Not a columnar archive segment: " + path);
+        }
+        int offset = Integer.BYTES * (3 + COLUMN_COUNT);
+        ByteBuffer[] columns = new ByteBuffer[COLUMN_COUNT];
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            int length = buffer.getInt(Integer.BYTES * (3 + i));
+            columns[i] = buffer.slice(offset, length);
+            offset += length;
+        }
+        return new Mapped(buffer.getInt(Integer.BYTES), columns);
+    }
+
+    private static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    private static long toMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static long readLong(ByteBuffer buffer) {
+        long raw = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            raw |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    private static final class Column extends ByteArrayOutputStream {
+        void writeLong(long value) {
+            long raw = (value << 1) ^ (value >> 63);
+            while ((raw & ~0x7FL) != 0) {
+                write((int) ((raw & 0x7F) | 0x80));
+                raw >>>= 7;
+            }
+            write((int) raw);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
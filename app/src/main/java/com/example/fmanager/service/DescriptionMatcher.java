@@ -0,0 +1,129 @@
+package com.example.fmanager.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton over the patterns of one client's categorization rules.
+ * A description is scanned once, whatever the number of rules. When several rules
+ * match, the longest pattern wins, ties go to the rule that was created first.
+ */
+final class DescriptionMatcher {
+
+    private static final int NO_MATCH = -1;
+
+    private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+    private int[] failure;
+    private int[] bestRule;
+    private final List<Rule> rules;
+
+    record Rule(int ruleId, String pattern, int categoryId) {
+    }
+
+    private DescriptionMatcher(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    static DescriptionMatcher compile(List<Rule> rules) {
+        DescriptionMatcher matcher = new DescriptionMatcher(List.copyOf(rules));
+        matcher.build();
+        return matcher;
+    }
+
+    int size() {
+        return rules.size();
+    }
+
+    OptionalInt match(String description) {
+        if (description == null || rules.isEmpty()) {
+            return OptionalInt.empty();
+        }
+        int state = 0;
+        int best = NO_MATCH;
+        for (int i = 0; i < description.length(); i++) {
+            char symbol = Character.toUpperCase(description.charAt(i));
+            Integer next = transitions.get(state).get(symbol);
+            while (next == null && state != 0) {
+                state = failure[state];
+                next = transitions.get(state).get(symbol);
+            }
+            state = next == null ? 0 : next;
+            best = better(best, bestRule[state]);
+        }
+        return best == NO_MATCH
+                ? OptionalInt.empty()
+                : OptionalInt.of(rules.get(best).categoryId());
+    }
+
+    private void build() {
+        transitions.add(new HashMap<>());
+        List<Integer> terminal = new ArrayList<>();
+        terminal.add(NO_MATCH);
+        for (int index = 0; index < rules.size(); index++) {
+            String pattern = rules.get(index).pattern();
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char symbol = Character.toUpperCase(pattern.charAt(i));
+                Integer next = transitions.get(state).get(symbol);
+                if (next == null) {
+                    next = transitions.size();
+                    transitions.get(state).put(symbol, next);
+                    transitions.add(new HashMap<>());
+                    terminal.add(NO_MATCH);
+                }
+                state = next;
+            }
+            terminal.set(state, better(terminal.get(state), index));
+        }
+
+        failure = new int[transitions.size()];
+        bestRule = new int[transitions.size()];
+        Arrays.fill(bestRule, NO_MATCH);
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : transitions.get(0).values()) {
+            bestRule[child] = terminal.get(child);
+            queue.add(child);
+        }
+        // Breadth-first, so the failure target of every state is finished before its children;
+        // folding its best rule in here keeps matching free of output-chain walks.
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (Map.Entry<Character, Integer> edge : transitions.get(state).entrySet()) {
+                int child = edge.getValue();
+                int fallback = failure[state];
+                Integer target = transitions.get(fallback).get(edge.getKey());
+                while (target == null && fallback != 0) {
+                    fallback = failure[fallback];
+                    target = transitions.get(fallback).get(edge.getKey());
+                }
+                failure[child] = target == null ? 0 : target;
+                bestRule[child] = better(terminal.get(child), bestRule[failure[child]]);
+                queue.add(child);
+            }
+        }
+    }
+
+    private int better(int left, int right) {
+        if (left == NO_MATCH) {
+            return right;
+        }
+        if (right == NO_MATCH) {
+            return left;
+        }
+        int leftLength = rules.get(left).pattern().length();
+        int rightLength = rules.get(right).pattern().length();
+        if (leftLength != rightLength) {
+            return leftLength > rightLength ? left : right;
+        }
+        return rules.get(left).ruleId() <= rules.get(right).ruleId() ? left : right;
+    }
+}
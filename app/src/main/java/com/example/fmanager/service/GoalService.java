@@ -24,15 +24,21 @@ public class GoalService {
     private final InMemoryCache cache;
     private final ClientRepository clientRepository;
     private final TransactionService transactionService; // Инжектируем TransactionService
+    private final ReplicaRouting replicaRouting;
+    private final ShardRouting shardRouting;
 
     public GoalService(GoalRepository goalRepository,
                        InMemoryCache cache,
                        ClientRepository clientRepository,
-                       TransactionService transactionService) {
+                       TransactionService transactionService,
+                       ReplicaRouting replicaRouting,
+                       ShardRouting shardRouting) {
         this.goalRepository = goalRepository;
         this.transactionService = transactionService;
         this.cache = cache;
         this.clientRepository = clientRepository;
+        this.replicaRouting = replicaRouting;
+        this.shardRouting = shardRouting;
     }
 
     @Transactional
@@ -66,15 +72,19 @@ public class GoalService {
         return Optional.of(GoalGetDto.convertToDto(goal));
     }
 
+    @ReadReplica
     public List<GoalGetDto> getAllGoals() {
-        List<Goal> goals = goalRepository.findAll();
-        List<GoalGetDto> goalsDtos = new ArrayList<>();
-        for (Goal goal : goals) {
-            goalsDtos.add(GoalGetDto.convertToDto(goal));
-        }
-        return goalsDtos;
+        return shardRouting.gather(() -> {
+            List<Goal> goals = goalRepository.findAll();
+            List<GoalGetDto> goalsDtos = new ArrayList<>();
+            for (Goal goal : goals) {
+                goalsDtos.add(GoalGetDto.convertToDto(goal));
+            }
+            return goalsDtos;
+        });
     }
 
+    @ReadReplica
     public List<GoalGetDto> findByClientId(int clientId) {
         String cacheKey = "goals_client_" + clientId;
         if (cache.containsKey(cacheKey)) {
@@ -92,6 +102,7 @@ public class GoalService {
     public void clearCacheForClient(int clientId) {
         String cacheKey = "goals_client_" + clientId;
         cache.remove(cacheKey);
+        replicaRouting.recordWrite(clientId);
     }
 
     public Goal createGoal(GoalCreateDto goalCreateDto) {
@@ -121,6 +132,11 @@ public class GoalService {
         return GoalGetDto.convertToDto(savedGoal);
     }
 
+    public void deleteAllOfClient(int clientId) {
+        goalRepository.deleteAllByClientId(clientId);
+        clearCacheForClient(clientId);
+    }
+
     @Transactional
     public void deleteGoal(int id) {
         Goal goal = goalRepository.findById(id)
@@ -0,0 +1,195 @@
+package com.example.fmanager.service;
+
+import static com.example.fmanager.exception.NotFoundMessages.TRANSACTION_NOT_FOUND_MESSAGE;
+
+import com.example.fmanager.dto.TransactionCreateDto;
+import com.example.fmanager.dto.TransactionGetDto;
+import com.example.fmanager.exception.IdempotencyConflictException;
+import com.example.fmanager.exception.InvalidDataException;
+import com.example.fmanager.exception.NotFoundException;
+import com.example.fmanager.models.IdempotencyRecord;
+import com.example.fmanager.models.Transaction;
+import com.example.fmanager.repository.IdempotencyRecordRepository;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Replays the response of a {@code POST /transactions} for a repeated Idempotency-Key.
+ * Keys are scoped to the account the posting is for and remember a fingerprint of the request;
+ * a key replayed with a different request is rejected instead of answered with the first
+ * transaction. Recent responses are kept in a bounded in-memory map, older ones are rebuilt
+ * from the {@code idempotency_keys} table, which is written in the same database transaction as
+ * the transaction itself. Requests racing on a key wait for the first one to finish.
+ */
+@Service
+public class IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String KEY_REUSED_MESSAGE =
+            "Idempotency-Key was already used with a different request";
+
+    private final TransactionService transactionService;
+    private final IdempotencyRecordRepository recordRepository;
+    private final ShardRouting shardRouting;
+    private final Duration ttl;
+    private final Map<IdempotencyRecord.Key, InFlightRequest> inFlight =
+            new ConcurrentHashMap<>();
+    private final Map<IdempotencyRecord.Key, CompletedRequest> completed;
+
+    private record InFlightRequest(String requestHash,
+                                   CompletableFuture<TransactionGetDto> response) {
+    }
+
+    private record CompletedRequest(String requestHash, TransactionGetDto response,
+                                    long expiresAt) {
+    }
+
+    public IdempotencyService(TransactionService transactionService,
+                              IdempotencyRecordRepository recordRepository,
+                              ShardRouting shardRouting,
+                              @Value("${idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${idempotency.max-entries:10000}") int maxEntries) {
+        this.transactionService = transactionService;
+        this.recordRepository = recordRepository;
+        this.shardRouting = shardRouting;
+        this.ttl = ttl;
+        this.completed = Collections.synchronizedMap(
+                new LinkedHashMap<>(16, 0.75f, false) {
+                    @Override
+                    protected boolean removeEldestEntry(
+                            Map.Entry<IdempotencyRecord.Key, CompletedRequest> eldest) {
+                        return size() > maxEntries;
+                    }
+                });
+    }
+
+    public TransactionGetDto createTransaction(String idempotencyKey,
+                                               TransactionCreateDto transactionCreateDto) {
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidDataException(
+                    "Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        IdempotencyRecord.Key key = new IdempotencyRecord.Key(
+                transactionCreateDto.getAccountId(), idempotencyKey);
+        String requestHash = fingerprint(transactionCreateDto);
+        Optional<TransactionGetDto> cached = findCompleted(key, requestHash);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        InFlightRequest request = new InFlightRequest(requestHash, new CompletableFuture<>());
+        InFlightRequest running = inFlight.putIfAbsent(key, request);
+        if (running != null) {
+            checkSameRequest(running.requestHash(), requestHash);
+            return await(running.response());
+        }
+        try {
+            TransactionGetDto response = findCompleted(key, requestHash)
+                    .or(() -> findRecorded(key, requestHash))
+                    .orElseGet(() -> create(key, requestHash, transactionCreateDto));
+            completed.put(key, new CompletedRequest(requestHash, response,
+                    System.currentTimeMillis() + ttl.toMillis()));
+            request.response().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            request.response().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, request);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (completed) {
+            completed.values().removeIf(request -> request.expiresAt() <= now);
+        }
+        LocalDateTime threshold = LocalDateTime.now().minus(ttl);
+        shardRouting.onEachShard(() -> recordRepository.deleteAllCreatedBefore(threshold));
+    }
+
+    /**
+     * SHA-256 of the request fields in a fixed order, as lowercase hex.
+     */
+    static String fingerprint(TransactionCreateDto transactionCreateDto) {
+        String canonical = String.join("\u0000",
+                Objects.toString(transactionCreateDto.getDescription(), ""),
+                Double.toString(transactionCreateDto.getAmount()),
+                Objects.toString(transactionCreateDto.getDate(), ""),
+                Objects.toString(transactionCreateDto.getCategoryId(), ""),
+                Objects.toString(transactionCreateDto.getAccountId(), ""));
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Optional<TransactionGetDto> findCompleted(IdempotencyRecord.Key key,
+                                                      String requestHash) {
+        CompletedRequest request = completed.get(key);
+        if (request == null || request.expiresAt() <= System.currentTimeMillis()) {
+            return Optional.empty();
+        }
+        checkSameRequest(request.requestHash(), requestHash);
+        return Optional.of(request.response());
+    }
+
+    private Optional<TransactionGetDto> findRecorded(IdempotencyRecord.Key key,
+                                                     String requestHash) {
+        return recordRepository.findById(key)
+                .flatMap(request -> {
+                    // Keys recorded before fingerprinting have no hash to compare with.
+                    if (request.getRequestHash() != null) {
+                        checkSameRequest(request.getRequestHash(), requestHash);
+                    }
+                    return transactionService.getTransactionById(request.getTransactionId());
+                });
+    }
+
+    private TransactionGetDto create(IdempotencyRecord.Key key, String requestHash,
+                                     TransactionCreateDto transactionCreateDto) {
+        try {
+            Transaction transaction = transactionService.createTransaction(
+                    transactionCreateDto, key.getIdempotencyKey(), requestHash);
+            return transactionService.getTransactionById(transaction.getId())
+                    .orElseThrow(() -> new NotFoundException(TRANSACTION_NOT_FOUND_MESSAGE));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance committed the same key first; its transaction is the answer.
+            return findRecorded(key, requestHash).orElseThrow(() -> e);
+        }
+    }
+
+    private static void checkSameRequest(String firstHash, String requestHash) {
+        if (!firstHash.equals(requestHash)) {
+            throw new IdempotencyConflictException(KEY_REUSED_MESSAGE);
+        }
+    }
+
+    private TransactionGetDto await(CompletableFuture<TransactionGetDto> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
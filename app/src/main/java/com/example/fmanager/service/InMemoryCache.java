@@ -1,15 +1,21 @@
 package com.example.fmanager.service;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.stereotype.Component;
 
 @Component
 public class InMemoryCache {
-    private final Map<String, Object> cache = new HashMap<>();
+    private final Map<String, Object> cache = new ConcurrentHashMap<>();
 
+    /**
+     * Stores {@code value} unless it was read from a replica, which may lag behind the writes
+     * that evict the entry and would then keep serving stale data from the primary's cache.
+     */
     public void put(String key, Object value) {
-        cache.put(key, value);
+        if (!ReplicaRouting.isReplicaRead()) {
+            cache.put(key, value);
+        }
     }
 
     public Object get(String key) {
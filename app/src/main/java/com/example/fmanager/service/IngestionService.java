@@ -0,0 +1,201 @@
+package com.example.fmanager.service;
+
+import com.example.fmanager.dto.IngestionStatus;
+import com.example.fmanager.dto.IngestionTicketDto;
+import com.example.fmanager.dto.TransactionCreateDto;
+import com.example.fmanager.exception.ServiceOverloadedException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Asynchronous ingestion for high-rate posting sources. Postings are acknowledged with a
+ * ticket as soon as they are queued; a few virtual-thread writers drain the queue in
+ * micro-batches and commit each batch in a single database transaction. Queued postings
+ * live in memory only and are lost if the process dies before they are written.
+ */
+@Service
+public class IngestionService {
+    private static final Logger logger = LoggerFactory.getLogger(IngestionService.class);
+
+    private final TransactionService transactionService;
+    private final ShardRouting shardRouting;
+    private final BlockingQueue<PendingPosting> queue;
+    private final Map<String, IngestionTicketDto> tickets = new ConcurrentHashMap<>();
+    private final List<Thread> writers = new ArrayList<>();
+    private final int writerCount;
+    private final int batchSize;
+    private final Duration ticketTtl;
+    private volatile boolean running;
+
+    private record PendingPosting(String ticketId, TransactionCreateDto transactionCreateDto) {
+    }
+
+    public IngestionService(TransactionService transactionService,
+                            ShardRouting shardRouting,
+                            @Value("${ingestion.queue-capacity:10000}") int queueCapacity,
+                            @Value("${ingestion.writers:2}") int writerCount,
+                            @Value("${ingestion.batch-size:256}") int batchSize,
+                            @Value("${ingestion.ticket-ttl:PT1H}") Duration ticketTtl) {
+        this.transactionService = transactionService;
+        this.shardRouting = shardRouting;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writerCount = writerCount;
+        this.batchSize = batchSize;
+        this.ticketTtl = ticketTtl;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < writerCount; i++) {
+            writers.add(Thread.ofVirtual().name("ingestion-writer-" + i).start(this::drain));
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread writer : writers) {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    public IngestionTicketDto submit(TransactionCreateDto transactionCreateDto) {
+        return submitAll(List.of(transactionCreateDto)).get(0);
+    }
+
+    /**
+     * Queues all postings or, if the queue lacks room for all of them, none, so a rejected
+     * request can be retried as a whole without duplicating postings. Submissions are
+     * serialized; the writers only ever free capacity, so the room checked stays available.
+     */
+    public synchronized List<IngestionTicketDto> submitAll(
+            List<TransactionCreateDto> transactionCreateDtos) {
+        if (queue.remainingCapacity() < transactionCreateDtos.size()) {
+            throw new ServiceOverloadedException("Ingestion queue is full, retry later");
+        }
+        List<IngestionTicketDto> queued = new ArrayList<>(transactionCreateDtos.size());
+        for (TransactionCreateDto transactionCreateDto : transactionCreateDtos) {
+            IngestionTicketDto ticket = IngestionTicketDto.queued(UUID.randomUUID().toString());
+            tickets.put(ticket.getTicketId(), ticket);
+            queue.add(new PendingPosting(ticket.getTicketId(), transactionCreateDto));
+            queued.add(ticket);
+        }
+        return queued;
+    }
+
+    public Optional<IngestionTicketDto> getTicket(String ticketId) {
+        return Optional.ofNullable(tickets.get(ticketId));
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @Scheduled(fixedDelayString = "${ingestion.ticket-purge-interval:PT5M}")
+    public void purgeFinishedTickets() {
+        LocalDateTime threshold = LocalDateTime.now().minus(ticketTtl);
+        tickets.values().removeIf(ticket -> ticket.getStatus() != IngestionStatus.QUEUED
+                && ticket.getCompletedAt().isBefore(threshold));
+    }
+
+    private void drain() {
+        List<PendingPosting> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingPosting first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeByShard(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * A batch is committed on one database, so postings are grouped by the shard of their
+     * account first. Each account is looked up once per batch.
+     */
+    private void writeByShard(List<PendingPosting> batch) {
+        if (!shardRouting.isSharded()) {
+            write(batch);
+            return;
+        }
+        Map<Integer, Integer> shardOfAccount = new HashMap<>();
+        Map<Integer, List<PendingPosting>> byShard = new LinkedHashMap<>();
+        for (PendingPosting posting : batch) {
+            try {
+                int shard = shardOfAccount.computeIfAbsent(
+                        posting.transactionCreateDto().getAccountId(),
+                        shardRouting::shardOfAccount);
+                byShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(posting);
+            } catch (RuntimeException e) {
+                fail(posting.ticketId(), e);
+            }
+        }
+        byShard.forEach((shard, postings) -> shardRouting.onShard(shard, () -> {
+            write(postings);
+            return null;
+        }));
+    }
+
+    private void write(List<PendingPosting> batch) {
+        try {
+            List<BatchItemResult> results = transactionService.createTransactionBatch(
+                    batch.stream().map(PendingPosting::transactionCreateDto).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i).ticketId(), results.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                fail(batch.get(0).ticketId(), e);
+                return;
+            }
+            // The whole batch was rolled back; isolate the offending posting by writing
+            // the rest one at a time.
+            logger.warn("Ingestion batch of {} failed, retrying individually: {}",
+                    batch.size(), e.getMessage());
+            for (PendingPosting posting : batch) {
+                write(List.of(posting));
+            }
+        }
+    }
+
+    private void complete(String ticketId, BatchItemResult result) {
+        if (result.isSuccess()) {
+            tickets.computeIfPresent(ticketId,
+                    (id, ticket) -> ticket.committed(result.transaction().getId()));
+        } else {
+            fail(ticketId, result.error());
+        }
+    }
+
+    private void fail(String ticketId, RuntimeException error) {
+        tickets.computeIfPresent(ticketId, (id, ticket) -> ticket.failed(error.getMessage()));
+    }
+}
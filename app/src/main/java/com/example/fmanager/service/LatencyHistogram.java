@@ -0,0 +1,95 @@
+package com.example.fmanager.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size log-linear histogram in the style of HdrHistogram, for latencies in microseconds
+ * and other non-negative counts. Values below 16 get a bucket each. Every power of two above that
+ * is split into 16 linear buckets, so a reported value is within about 6% of the recorded one.
+ * Values from 2^36 (about 19 hours in microseconds) up are clamped. Histograms with the same
+ * layout merge by adding their buckets.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 36;
+    static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    void record(long micros) {
+        counts.incrementAndGet(index(Math.min(Math.max(micros, 0), MAX_VALUE)));
+    }
+
+    void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = other.counts.get(i);
+            if (count > 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+    }
+
+    /**
+     * Copy of the bucket counts, so that percentiles of one report agree with each other.
+     */
+    long[] snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    static long count(long[] snapshot) {
+        long total = 0;
+        for (long count : snapshot) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Highest value of the bucket holding the given percentile, or 0 if nothing was recorded.
+     */
+    static long valueAtPercentile(long[] snapshot, double percentile) {
+        long total = count(snapshot);
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        int last = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            if (snapshot[i] == 0) {
+                continue;
+            }
+            seen += snapshot[i];
+            last = i;
+            if (seen >= rank) {
+                return highestValue(i);
+            }
+        }
+        return highestValue(last);
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket) << shift) + (1L << shift) - 1;
+    }
+}
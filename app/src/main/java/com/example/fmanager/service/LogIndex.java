@@ -0,0 +1,358 @@
+package com.example.fmanager.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Sparse index of a growing log file whose lines start with {@code yyyy-MM-dd HH:mm:ss}: one
+ * entry of timestamp and byte offset per {@code interval} bytes. New entries are added as the
+ * file grows and appended to a side file, so a restart does not read the log again. The side
+ * file starts with the first bytes of the log it describes. A rolled-over log starts
+ * differently, or is another file, and its index is rebuilt.
+ *
+ * <p>Finding a timestamp's offset costs a binary search and a scan of at most about one interval
+ * of line starts, whatever the size of the log. Lines without a timestamp, such as stack trace
+ * lines, belong to the line before them.
+ */
+final class LogIndex {
+    private static final int HEADER_LENGTH = 64;
+    static final int TIMESTAMP_LENGTH = 19;
+    private static final int ENTRY_LENGTH = 16;
+
+    private final Path logFile;
+    private final Path indexFile;
+    private final int interval;
+    private byte[] header;
+    private Object indexedFile;
+    private long[] keys = new long[64];
+    private long[] offsets = new long[64];
+    private int size;
+    private long nextCandidate;
+
+    LogIndex(Path logFile, Path indexFile, int interval) {
+        this.logFile = logFile;
+        this.indexFile = indexFile;
+        this.interval = interval;
+    }
+
+    /**
+     * Sortable key of a timestamp at the index's one-second resolution, e.g. 20250322120000.
+     */
+    static long key(LocalDateTime time) {
+        return ((((time.getYear() * 100L + time.getMonthValue()) * 100 + time.getDayOfMonth())
+                * 100 + time.getHour()) * 100 + time.getMinute()) * 100 + time.getSecond();
+    }
+
+    /**
+     * Key of the timestamp a log line starts with, or -1 if it has none.
+     */
+    static long key(String line) {
+        if (line.length() < TIMESTAMP_LENGTH) {
+            return -1;
+        }
+        byte[] timestamp = line.substring(0, TIMESTAMP_LENGTH)
+                .getBytes(StandardCharsets.ISO_8859_1);
+        return parseKey(ByteBuffer.wrap(timestamp), 0);
+    }
+
+    /**
+     * Byte range {@code [start, end)} of the complete lines logged from {@code fromKey}
+     * (inclusive) to {@code toKey} (exclusive).
+     */
+    long[] range(long fromKey, long toKey) throws IOException {
+        try (OpenLog log = open()) {
+            return range(log, fromKey, toKey);
+        }
+    }
+
+    /**
+     * Like {@link #range(long, long)}, for the file behind an already opened log, so that the
+     * range is read from the same file it was computed for.
+     */
+    synchronized long[] range(OpenLog log, long fromKey, long toKey) throws IOException {
+        FileChannel channel = log.channel();
+        update(channel, log.fileKey());
+        long end = completeLength(channel);
+        return new long[] {boundary(channel, fromKey, end), boundary(channel, toKey, end)};
+    }
+
+    /**
+     * Opens the log together with the identity of the file that was opened.
+     */
+    OpenLog open() throws IOException {
+        while (true) {
+            Object before = fileKey(logFile);
+            FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ);
+            Object after = fileKey(logFile);
+            if (Objects.equals(before, after)) {
+                return new OpenLog(channel, after);
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Whether the log path still names the file that was opened, i.e. it has not rolled over.
+     */
+    boolean isCurrent(OpenLog log) throws IOException {
+        try {
+            return Objects.equals(fileKey(logFile), log.fileKey());
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void update(FileChannel channel, Object fileKey) throws IOException {
+        long length = channel.size();
+        if (length < HEADER_LENGTH) {
+            return;
+        }
+        byte[] current = readHeader(channel);
+        if (header == null) {
+            load(current);
+        } else if (!Arrays.equals(header, current) || !Objects.equals(indexedFile, fileKey)
+                || lastOffset() >= length) {
+            reset(current);
+        }
+        indexedFile = fileKey;
+        try (FileChannel out = FileChannel.open(indexFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer appended = ByteBuffer.allocate(ENTRY_LENGTH * 64);
+            while (nextCandidate + TIMESTAMP_LENGTH <= length) {
+                long lineStart = lineStartFrom(channel, nextCandidate, length);
+                if (lineStart < 0 || lineStart + TIMESTAMP_LENGTH > length) {
+                    break;
+                }
+                long key = readKey(channel, lineStart);
+                if (key < 0) {
+                    nextCandidate = lineStart + 1;
+                    continue;
+                }
+                key = Math.max(key, size == 0 ? 0 : keys[size - 1]);
+                add(key, lineStart);
+                nextCandidate = lineStart + interval;
+                if (!appended.hasRemaining()) {
+                    flush(out, appended);
+                }
+                appended.putLong(key).putLong(lineStart);
+            }
+            flush(out, appended);
+        }
+    }
+
+    private void load(byte[] current) throws IOException {
+        if (Files.exists(indexFile) && Files.size(indexFile) >= HEADER_LENGTH) {
+            byte[] stored = Files.readAllBytes(indexFile);
+            if (Arrays.equals(current, Arrays.copyOf(stored, HEADER_LENGTH))) {
+                header = current;
+                ByteBuffer entries = ByteBuffer.wrap(stored, HEADER_LENGTH,
+                        (stored.length - HEADER_LENGTH) / ENTRY_LENGTH * ENTRY_LENGTH);
+                while (entries.hasRemaining()) {
+                    add(entries.getLong(), entries.getLong());
+                }
+                nextCandidate = size == 0 ? 0 : offsets[size - 1] + interval;
+                return;
+            }
+        }
+        reset(current);
+    }
+
+    private void reset(byte[] current) throws IOException {
+        header = current;
+        size = 0;
+        nextCandidate = 0;
+        Files.write(indexFile, current);
+    }
+
+    private void add(long key, long offset) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        keys[size] = key;
+        offsets[size] = offset;
+        size++;
+    }
+
+    private long lastOffset() {
+        return size == 0 ? -1 : offsets[size - 1];
+    }
+
+    /**
+     * Offset of the first line with a timestamp at or after {@code key}, or {@code end}.
+     */
+    private long boundary(FileChannel channel, long key, long end) throws IOException {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        long from = low == 0 ? 0 : offsets[low - 1];
+        if (from >= end) {
+            return end;
+        }
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, from,
+                Math.min(end - from, Integer.MAX_VALUE));
+        int position = 0;
+        while (position < region.limit()) {
+            if (position + TIMESTAMP_LENGTH <= region.limit()) {
+                long lineKey = parseKey(region, position);
+                if (lineKey >= key) {
+                    return from + position;
+                }
+            }
+            while (position < region.limit() && region.get(position) != '\n') {
+                position++;
+            }
+            position++;
+        }
+        return end;
+    }
+
+    /**
+     * Start of the first line at or after {@code position}, or -1 if it is not written yet.
+     */
+    private static long lineStartFrom(FileChannel channel, long position, long length)
+            throws IOException {
+        if (position == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long offset = position - 1;
+        while (offset < length) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                return -1;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return -1;
+    }
+
+    /**
+     * Length of the file up to the end of its last complete line.
+     */
+    private static long completeLength(FileChannel channel) throws IOException {
+        long length = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long end = length;
+        while (end > 0) {
+            int chunk = (int) Math.min(buffer.capacity(), end);
+            buffer.clear().limit(chunk);
+            channel.read(buffer, end - chunk);
+            for (int i = chunk - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return end - chunk + i + 1;
+                }
+            }
+            end -= chunk;
+        }
+        return 0;
+    }
+
+    private static Object fileKey(Path path) throws IOException {
+        return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+    }
+
+    private static long readKey(FileChannel channel, long position) throws IOException {
+        ByteBuffer timestamp = readFully(channel, position, TIMESTAMP_LENGTH);
+        return timestamp.hasRemaining() ? -1 : parseKey(timestamp, 0);
+    }
+
+    private static byte[] readHeader(FileChannel channel) throws IOException {
+        return readFully(channel, 0, HEADER_LENGTH).array();
+    }
+
+    /**
+     * Reads {@code length} bytes at {@code position}; fewer remain read at the end of file.
+     */
+    private static ByteBuffer readFully(FileChannel channel, long position, int length)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        int read = 0;
+        while (buffer.hasRemaining() && read >= 0) {
+            read = channel.read(buffer, position + buffer.position());
+        }
+        return buffer;
+    }
+
+    private static void flush(FileChannel out, ByteBuffer appended) throws IOException {
+        appended.flip();
+        while (appended.hasRemaining()) {
+            out.write(appended);
+        }
+        appended.clear();
+    }
+
+    /**
+     * Parses {@code yyyy-MM-dd HH:mm:ss} at the given position into a key, or -1 if the bytes
+     * are not a timestamp.
+     */
+    private static long parseKey(ByteBuffer buffer, int position) {
+        long key = 0;
+        for (int i = 0; i < TIMESTAMP_LENGTH; i++) {
+            byte b = buffer.get(position + i);
+            switch (i) {
+                case 4, 7 -> {
+                    if (b != '-') {
+                        return -1;
+                    }
+                }
+                case 10 -> {
+                    if (b != ' ') {
+                        return -1;
+                    }
+                }
+                case 13, 16 -> {
+                    if (b != ':') {
+                        return -1;
+                    }
+                }
+                default -> {
+                    if (b < '0' || b > '9') {
+                        return -1;
+                    }
+                    key = key * 10 + (b - '0');
+                }
+            }
+        }
+        return key;
+    }
+
+    /**
+     * An open log file and its identity, see {@link BasicFileAttributes#fileKey()}.
+     */
+    record OpenLog(FileChannel channel, Object fileKey) implements Closeable {
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.fmanager.service;
+
+import java.util.regex.Pattern;
+
+/**
+ * A validated log query. Times are {@link LogIndex#key} values; {@code minLevel} indexes
+ * {@link LogQueryService#LEVELS}.
+ */
+public record LogQuery(long fromKey, long toKey, int minLevel, String logger, Pattern pattern,
+                       int limit) {
+
+    /**
+     * Whether the first line of an entry is in range and passes the level and logger filters.
+     * Lines not in the {@code <timestamp> [<thread>] <level> <logger> - } layout only pass
+     * without those filters.
+     */
+    boolean acceptsHeader(String line, long key) {
+        if (key < fromKey || key >= toKey) {
+            return false;
+        }
+        if (minLevel == 0 && logger == null) {
+            return true;
+        }
+        int levelStart = line.indexOf("] ", LogIndex.TIMESTAMP_LENGTH) + 2;
+        int levelEnd = levelStart < 2 ? -1 : line.indexOf(' ', levelStart);
+        if (levelEnd < 0) {
+            return false;
+        }
+        if (LogQueryService.LEVELS.indexOf(line.substring(levelStart, levelEnd)) < minLevel) {
+            return false;
+        }
+        if (logger == null) {
+            return true;
+        }
+        int loggerStart = levelEnd;
+        while (loggerStart < line.length() && line.charAt(loggerStart) == ' ') {
+            loggerStart++;
+        }
+        int loggerEnd = line.indexOf(' ', loggerStart);
+        return loggerEnd > loggerStart
+                && line.substring(loggerStart, loggerEnd).contains(logger);
+    }
+
+    boolean acceptsEntry(CharSequence entry) {
+        return pattern == null || pattern.matcher(entry).find();
+    }
+}
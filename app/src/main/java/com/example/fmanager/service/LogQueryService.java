@@ -0,0 +1,265 @@
+package com.example.fmanager.service;
+
+import com.example.fmanager.dto.LogQueryDto;
+import com.example.fmanager.exception.InvalidDataException;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.zip.GZIPInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Searches the logs of a time range in place, without copying them. The sources are the rolled
+ * segments of the days in range and the active log. A rolled segment is skipped when the
+ * following segment starts before the range does, or when the segment itself starts after it.
+ * Only the indexed byte range of the active log is read.
+ *
+ * <p>Sources are scanned in parallel on a pool of {@code log-query.parallelism} threads, at most
+ * two per thread ahead of the writer. Sources cover consecutive, disjoint spans of time, so
+ * writing their matches in source order yields entries in time order.
+ */
+@Service
+public class LogQueryService {
+    static final List<String> LEVELS = List.of("TRACE", "DEBUG", "INFO", "WARN", "ERROR");
+
+    private final LogService logService;
+    private final ForkJoinPool pool;
+
+    public LogQueryService(LogService logService,
+                           @Value("${log-query.parallelism:0}") int parallelism) {
+        this.logService = logService;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism
+                : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Validates the criteria, so that errors are reported before any output is written.
+     */
+    public LogQuery prepare(LogQueryDto criteria) {
+        if (!criteria.getFrom().isBefore(criteria.getTo())) {
+            throw new InvalidDataException("From must be before to");
+        }
+        int minLevel = 0;
+        if (criteria.getLevel() != null && !criteria.getLevel().isBlank()) {
+            minLevel = LEVELS.indexOf(criteria.getLevel().trim().toUpperCase(Locale.ROOT));
+            if (minLevel < 0) {
+                throw new InvalidDataException("Level must be one of " + LEVELS);
+            }
+        }
+        Pattern pattern = null;
+        if (criteria.getPattern() != null && !criteria.getPattern().isEmpty()) {
+            try {
+                pattern = Pattern.compile(criteria.getPattern());
+            } catch (PatternSyntaxException e) {
+                throw new InvalidDataException("Invalid pattern: " + e.getDescription());
+            }
+        }
+        String logger = criteria.getLogger() == null || criteria.getLogger().isBlank()
+                ? null : criteria.getLogger().trim();
+        return new LogQuery(LogIndex.key(criteria.getFrom()), LogIndex.key(criteria.getTo()),
+                minLevel, logger, pattern, criteria.getLimit());
+    }
+
+    /**
+     * Writes the matching entries in time order, one per line with continuation lines such as
+     * stack traces attached.
+     *
+     * @return the number of entries written
+     */
+    public int stream(LogQuery query, OutputStream out) throws IOException {
+        List<Source> sources = sources(query);
+        AtomicBoolean done = new AtomicBoolean();
+        Deque<ForkJoinTask<List<String>>> pending = new ArrayDeque<>();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        int window = pool.getParallelism() * 2;
+        int next = 0;
+        int written = 0;
+        try {
+            while (written < query.limit() && (next < sources.size() || !pending.isEmpty())) {
+                while (next < sources.size() && pending.size() < window) {
+                    Source source = sources.get(next++);
+                    pending.add(pool.submit(() -> scan(source, query, done)));
+                }
+                for (String entry : pending.poll().join()) {
+                    if (written == query.limit()) {
+                        break;
+                    }
+                    writer.write(entry);
+                    writer.write('\n');
+                    written++;
+                }
+                writer.flush();
+            }
+        } finally {
+            done.set(true);
+            pending.forEach(task -> task.cancel(false));
+        }
+        writer.flush();
+        return written;
+    }
+
+    private List<Source> sources(LogQuery query) throws IOException {
+        List<LogService.RolledSegment> segments = logService.rolledSegments(
+                dayOf(query.fromKey()), dayOf(query.toKey()));
+        long[] firstKeys = new long[segments.size()];
+        for (int i = 0; i < segments.size(); i++) {
+            firstKeys[i] = firstKey(segments.get(i).path());
+        }
+        List<Source> sources = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            boolean startsInTime = firstKeys[i] < query.toKey();
+            boolean endsInTime = i + 1 == segments.size() || firstKeys[i + 1] < 0
+                    || firstKeys[i + 1] >= query.fromKey();
+            if (startsInTime && endsInTime) {
+                sources.add(new Source(segments.get(i).path(), 0, -1));
+            }
+        }
+        if (Files.exists(logService.activeLog())) {
+            long[] range = logService.activeRange(query.fromKey(), query.toKey());
+            if (range[0] < range[1]) {
+                sources.add(new Source(logService.activeLog(), range[0], range[1]));
+            }
+        }
+        return sources;
+    }
+
+    private static List<String> scan(Source source, LogQuery query, AtomicBoolean done) {
+        List<String> matches = new ArrayList<>();
+        StringBuilder entry = new StringBuilder();
+        boolean collecting = false;
+        try (BufferedReader reader = source.open()) {
+            String line;
+            while ((line = reader.readLine()) != null && !done.get()) {
+                long key = LogIndex.key(line);
+                if (key < 0) {
+                    if (collecting) {
+                        entry.append('\n').append(line);
+                    }
+                    continue;
+                }
+                if (collecting && query.acceptsEntry(entry)) {
+                    matches.add(entry.toString());
+                    if (matches.size() == query.limit()) {
+                        return matches;
+                    }
+                }
+                collecting = key < query.toKey() && query.acceptsHeader(line, key);
+                if (key >= query.toKey()) {
+                    break;
+                }
+                entry.setLength(0);
+                if (collecting) {
+                    entry.append(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (collecting && query.acceptsEntry(entry)) {
+            matches.add(entry.toString());
+        }
+        return matches;
+    }
+
+    /**
+     * Key of the first line of a gzipped segment; reading it inflates only the first block.
+     */
+    private static long firstKey(Path segment) throws IOException {
+        try (BufferedReader reader = gzipReader(segment)) {
+            String line = reader.readLine();
+            return line == null ? -1 : LogIndex.key(line);
+        }
+    }
+
+    private static BufferedReader gzipReader(Path segment) throws IOException {
+        return new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(segment), 65536),
+                StandardCharsets.UTF_8));
+    }
+
+    private static LocalDate dayOf(long key) {
+        long day = key / 1_000_000;
+        return LocalDate.of((int) (day / 10_000), (int) (day / 100 % 100), (int) (day % 100));
+    }
+
+    /**
+     * A rolled segment when {@code end} is negative, otherwise the byte range
+     * {@code [start, end)} of the active log.
+     */
+    private record Source(Path path, long start, long end) {
+        private BufferedReader open() throws IOException {
+            if (end < 0) {
+                return gzipReader(path);
+            }
+            return new BufferedReader(new InputStreamReader(
+                    new RangeInputStream(FileChannel.open(path, StandardOpenOption.READ),
+                            start, end), StandardCharsets.UTF_8), 65536);
+        }
+    }
+
+    private static final class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        private RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int read = channel.read(ByteBuffer.wrap(buffer, offset,
+                    (int) Math.min(length, end - position)), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -1,97 +1,365 @@
 package com.example.fmanager.service;
 
+import com.example.fmanager.dto.LogJobDto;
+import com.example.fmanager.dto.LogJobStatus;
+import com.example.fmanager.exception.InvalidDataException;
 import com.example.fmanager.exception.NoDataToFileException;
-import com.example.fmanager.exception.ProcessingFileException;
-import java.io.FileNotFoundException;
+import com.example.fmanager.exception.ServiceOverloadedException;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
-import lombok.Getter;
-import org.springframework.scheduling.annotation.Async;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+/**
+ * Extracts the log lines of one day into {@code logs-<date>.log} as a background job. Lines
+ * still in the active log are located through a {@link LogIndex} and copied as a byte range with
+ * {@link FileChannel#transferTo}, without decoding them. Segments logback rolled away hold a
+ * single day each and are copied whole. Either way the cost follows the size of the result, not
+ * of the log.
+ *
+ * <p>Jobs run on {@code log-extraction.workers} threads behind a queue of
+ * {@code log-extraction.queue-capacity}; a full queue is rejected rather than waited for. A
+ * request for a date that already has a queued or running job joins that job, and a finished
+ * extraction submitted after its day was over is reused. Finished jobs are forgotten, and their files deleted,
+ * after {@code log-extraction.job-ttl}.
+ */
 @Service
-@Getter
 public class LogService {
+    private static final Logger logger = LoggerFactory.getLogger(LogService.class);
 
-    private static final String LOG_FILE_PATH = "logs/application.log";
-    private static final String LOGS_DIR = "logs/";
+    private static final String LOG_FILE = "application.log";
+    private static final String INDEX_FILE = "application.log.idx";
+    private static final String ROLLED_PREFIX = "application-";
+    private static final String ROLLED_SUFFIX = ".log.gz";
+    private static final int INDEX_INTERVAL = 64 * 1024;
+    private static final int CHUNK_SIZE = 8 * 1024 * 1024;
+    private static final int MAX_ATTEMPTS = 3;
 
-    private final Map<String, String> logFiles = new ConcurrentHashMap<>();
-    private final Map<String, Boolean> taskStatus = new ConcurrentHashMap<>();
+    private final Path directory;
+    private final LogIndex logIndex;
+    private final ThreadPoolExecutor executor;
+    private final Duration jobTtl;
+    private final Clock clock;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<LocalDate, Job> latestByDate = new ConcurrentHashMap<>();
 
-    @Async
-    public CompletableFuture<String> generateLogFileForDateAsync(String date) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String existingLogId = findLogIdByDate(date);
-                if (existingLogId != null) {
-                    return existingLogId;
-                }
-                Path logPath = Paths.get(LOG_FILE_PATH);
-                if (!Files.exists(logPath)) {
-                    throw new FileNotFoundException("Log file not found: " + LOG_FILE_PATH);
-                }
+    @Autowired
+    public LogService(@Value("${log-extraction.directory:logs}") String directory,
+                      @Value("${log-extraction.workers:2}") int workers,
+                      @Value("${log-extraction.queue-capacity:16}") int queueCapacity,
+                      @Value("${log-extraction.job-ttl:PT1H}") Duration jobTtl) {
+        this(directory, workers, queueCapacity, jobTtl, INDEX_INTERVAL,
+                Clock.systemDefaultZone());
+    }
 
-                List<String> filteredLines;
-                try (var lines = Files.lines(logPath)) {
-                    filteredLines = lines
-                            .filter(line -> line.startsWith(date))
-                            .toList();
-                }
+    LogService(String directory, int workers, int queueCapacity, Duration jobTtl,
+               int indexInterval, Clock clock) {
+        this.directory = Paths.get(directory);
+        this.logIndex = new LogIndex(this.directory.resolve(LOG_FILE),
+                this.directory.resolve(INDEX_FILE), indexInterval);
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("log-extraction-", 0).daemon().factory());
+        this.jobTtl = jobTtl;
+        this.clock = clock;
+    }
 
-                if (filteredLines.isEmpty()) {
-                    throw new NoDataToFileException("No logs found for the given date");
-                }
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
 
-                Files.createDirectories(Paths.get(LOGS_DIR));
-                String logFileName = LOGS_DIR + "logs-" + date + ".log";
-                Path logFilePath = Paths.get(logFileName);
+    /**
+     * Starts extracting {@code date}, or returns the job that already covers it.
+     */
+    public synchronized LogJobDto submit(String date) {
+        LocalDate day = parseDate(date);
+        Job latest = latestByDate.get(day);
+        // An extraction started while its day was still running misses the later lines.
+        if (latest != null && (!latest.isFinished() || (latest.status == LogJobStatus.COMPLETED
+                && latest.submittedAt.toLocalDate().isAfter(day)
+                && Files.exists(latest.target)))) {
+            return latest.toDto();
+        }
+        Job job = new Job(day);
+        try {
+            executor.execute(job);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceOverloadedException("Too many log extractions queued, retry later");
+        }
+        jobs.put(job.id, job);
+        latestByDate.put(day, job);
+        return job.toDto();
+    }
 
-                if (Files.exists(logFilePath)) {
-                    String logId = UUID.randomUUID().toString();
-                    logFiles.put(logId, logFileName);
-                    taskStatus.put(logId, true);
-                    return logId;
-                }
+    public Optional<LogJobDto> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::toDto);
+    }
 
-                Files.write(logFilePath, filteredLines);
+    /**
+     * Cancels a queued or running job. A running job stops at its next chunk.
+     */
+    public Optional<LogJobDto> cancel(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        job.cancelRequested = true;
+        if (executor.remove(job)) {
+            job.finish(LogJobStatus.CANCELLED, null);
+        }
+        return Optional.of(job.toDto());
+    }
 
-                String logId = UUID.randomUUID().toString();
-                logFiles.put(logId, logFileName);
-                taskStatus.put(logId, true);
+    /**
+     * Path of the extracted file, or {@code null} unless the job completed.
+     */
+    public String getLogFilePath(String jobId) {
+        Job job = jobs.get(jobId);
+        return job == null || job.status != LogJobStatus.COMPLETED ? null : job.target.toString();
+    }
 
-                return logId;
-            } catch (FileNotFoundException e) {
-                throw new ProcessingFileException("Log file not found"); // Явное преобразование
-            } catch (IOException e) {
-                String logId = UUID.randomUUID().toString();
-                taskStatus.put(logId, false);
-                throw new ProcessingFileException("Error processing file");
+    @Scheduled(fixedDelayString = "${log-extraction.job-purge-interval:PT5M}")
+    public synchronized void purgeFinishedJobs() {
+        LocalDateTime threshold = LocalDateTime.now(clock).minus(jobTtl);
+        jobs.values().removeIf(job -> {
+            if (!job.isFinished() || !job.completedAt.isBefore(threshold)) {
+                return false;
             }
+            if (latestByDate.remove(job.day, job)) {
+                deleteQuietly(job.target);
+            }
+            return true;
         });
     }
 
-    private String findLogIdByDate(String date) {
-        for (Map.Entry<String, String> entry : logFiles.entrySet()) {
-            if (entry.getValue().contains(date)) {
-                return entry.getKey();
+    private void run(Job job) {
+        if (job.cancelRequested) {
+            job.finish(LogJobStatus.CANCELLED, null);
+            return;
+        }
+        job.status = LogJobStatus.RUNNING;
+        Path partial = directory.resolve("logs-" + job.day + ".log." + job.id + ".part");
+        try {
+            long written = extract(job, partial);
+            if (written == 0) {
+                throw new NoDataToFileException("No logs found for the given date");
+            }
+            Files.move(partial, job.target, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            job.finish(LogJobStatus.COMPLETED, null);
+        } catch (CancellationException e) {
+            job.finish(LogJobStatus.CANCELLED, null);
+        } catch (NoSuchFileException e) {
+            job.finish(LogJobStatus.FAILED, "Log file not found");
+        } catch (NoDataToFileException e) {
+            job.finish(LogJobStatus.FAILED, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            logger.error("Log extraction for {} failed", job.day, e);
+            job.finish(LogJobStatus.FAILED, "Error processing file");
+        } finally {
+            deleteQuietly(partial);
+        }
+    }
+
+    /**
+     * Writes the day's rolled segments, then its byte range of the active log, to
+     * {@code target}. The range is computed on and copied from one open active log; should the
+     * log roll over meanwhile, the extraction starts again so that no line is written twice or
+     * missed.
+     *
+     * @return the number of bytes written
+     */
+    private long extract(Job job, Path target) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            try (LogIndex.OpenLog active = logIndex.open();
+                 FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                         StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                extract(job, active, out);
+                if (logIndex.isCurrent(active)) {
+                    return out.size();
+                }
+            }
+            if (attempt == MAX_ATTEMPTS) {
+                throw new IOException("Log kept rolling over during extraction");
+            }
+            logger.info("Log rolled over while extracting {}, starting again", job.day);
+        }
+    }
+
+    private void extract(Job job, LogIndex.OpenLog active, FileChannel out) throws IOException {
+        LocalDate day = job.day;
+        long[] range = logIndex.range(active, LogIndex.key(day.atStartOfDay()),
+                LogIndex.key(day.plusDays(1).atStartOfDay()));
+        List<RolledSegment> segments = rolledSegments(day, day);
+        double parts = segments.size() + 1;
+        OutputStream stream = Channels.newOutputStream(out);
+        byte[] buffer = new byte[65536];
+        for (int i = 0; i < segments.size(); i++) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(segments.get(i).path()),
+                    buffer.length)) {
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    job.checkCancelled();
+                    stream.write(buffer, 0, read);
+                }
+            }
+            job.progress = (i + 1) / parts;
+        }
+        FileChannel in = active.channel();
+        long position = range[0];
+        while (position < range[1]) {
+            job.checkCancelled();
+            long copied = in.transferTo(position, Math.min(range[1] - position, CHUNK_SIZE), out);
+            if (copied == 0 && position >= in.size()) {
+                throw new IOException("Log was truncated during extraction");
             }
+            position += copied;
+            job.progress = (segments.size()
+                    + (double) (position - range[0]) / (range[1] - range[0])) / parts;
         }
-        return null;
     }
 
-    public String getLogFilePath(String logId) {
-        return logFiles.get(logId);
+    /**
+     * Byte range of the active log holding the complete lines from {@code fromKey} (inclusive)
+     * to {@code toKey} (exclusive), see {@link LogIndex#key}.
+     */
+    long[] activeRange(long fromKey, long toKey) throws IOException {
+        return logIndex.range(fromKey, toKey);
     }
 
-    public boolean isTaskCompleted(String logId) {
-        return taskStatus.getOrDefault(logId, false);
+    Path activeLog() {
+        return directory.resolve(LOG_FILE);
+    }
+
+    /**
+     * Gzipped segments that logback rolled the active log file into from {@code from} to
+     * {@code to} inclusive, oldest first.
+     */
+    List<RolledSegment> rolledSegments(LocalDate from, LocalDate to) throws IOException {
+        try (Stream<Path> entries = Files.list(directory)) {
+            return entries.map(LogService::rolledSegment)
+                    .filter(segment -> segment != null && !segment.day().isBefore(from)
+                            && !segment.day().isAfter(to))
+                    .sorted(Comparator.comparing(RolledSegment::day)
+                            .thenComparingInt(RolledSegment::index))
+                    .toList();
+        }
+    }
+
+    /**
+     * Parses {@code application-<date>.<index>.log.gz}, or returns {@code null} for other
+     * files.
+     */
+    private static RolledSegment rolledSegment(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(ROLLED_PREFIX) || !name.endsWith(ROLLED_SUFFIX)) {
+            return null;
+        }
+        String key = name.substring(ROLLED_PREFIX.length(),
+                name.length() - ROLLED_SUFFIX.length());
+        int dot = key.lastIndexOf('.');
+        try {
+            return new RolledSegment(path, LocalDate.parse(key.substring(0, Math.max(dot, 0))),
+                    Integer.parseInt(key.substring(dot + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static LocalDate parseDate(String date) {
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new InvalidDataException("Date must be in the format yyyy-MM-dd");
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    record RolledSegment(Path path, LocalDate day, int index) {
+    }
+
+    private final class Job implements Runnable {
+        private final String id = UUID.randomUUID().toString();
+        private final LocalDate day;
+        private final Path target;
+        private final LocalDateTime submittedAt = LocalDateTime.now(clock);
+        private volatile LogJobStatus status = LogJobStatus.QUEUED;
+        private volatile double progress;
+        private volatile boolean cancelRequested;
+        private volatile String error;
+        private volatile LocalDateTime completedAt;
+
+        private Job(LocalDate day) {
+            this.day = day;
+            this.target = directory.resolve("logs-" + day + ".log");
+        }
+
+        @Override
+        public void run() {
+            LogService.this.run(this);
+        }
+
+        private boolean isFinished() {
+            return completedAt != null;
+        }
+
+        private void checkCancelled() {
+            if (cancelRequested) {
+                throw new CancellationException();
+            }
+        }
+
+        private void finish(LogJobStatus finalStatus, String finalError) {
+            error = finalError;
+            if (finalStatus == LogJobStatus.COMPLETED) {
+                progress = 1;
+            }
+            status = finalStatus;
+            completedAt = LocalDateTime.now(clock);
+        }
+
+        private LogJobDto toDto() {
+            return new LogJobDto(id, day, status, progress, error, submittedAt, completedAt);
+        }
     }
 }
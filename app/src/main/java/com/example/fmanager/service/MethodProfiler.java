@@ -0,0 +1,110 @@
+package com.example.fmanager.service;
+
+import com.example.fmanager.dto.MethodProfileDto;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.springframework.stereotype.Service;
+
+/**
+ * Per-method latency, SQL statement and loaded-row distributions, filled by
+ * {@link com.example.fmanager.ProfilingAspect} when {@code profiling.enabled} is set. Statements
+ * and rows are counted per thread and attributed to every service method running on it, so a
+ * method includes what the methods it calls caused. Work handed to other threads is not
+ * counted.
+ */
+@Service
+public class MethodProfiler {
+    private static final ThreadLocal<long[]> COUNTERS = ThreadLocal.withInitial(() -> new long[2]);
+    private static final int STATEMENTS = 0;
+    private static final int ROWS = 1;
+
+    private final Map<Object, MethodStats> methods = new ConcurrentHashMap<>();
+
+    /**
+     * Called for every SQL statement Hibernate prepares on this thread.
+     */
+    public static void countStatement() {
+        COUNTERS.get()[STATEMENTS]++;
+    }
+
+    /**
+     * Called for every entity Hibernate loads on this thread.
+     */
+    public static void countRow() {
+        COUNTERS.get()[ROWS]++;
+    }
+
+    public static long statementCount() {
+        return COUNTERS.get()[STATEMENTS];
+    }
+
+    public static long rowCount() {
+        return COUNTERS.get()[ROWS];
+    }
+
+    /**
+     * Records one call of a method that started with the given thread counters.
+     *
+     * @param key identity of the method, e.g. its {@link java.lang.reflect.Method}
+     * @param namer display name of a key, called once per method
+     */
+    public void record(Object key, Function<Object, String> namer, long nanos,
+                       long statementsBefore, long rowsBefore) {
+        MethodStats stats = methods.get(key);
+        if (stats == null) {
+            stats = methods.computeIfAbsent(key, k -> new MethodStats(namer.apply(k)));
+        }
+        long statements = statementCount() - statementsBefore;
+        long rows = rowCount() - rowsBefore;
+        stats.latency.record(nanos / 1000);
+        stats.statements.record(statements);
+        stats.rows.record(rows);
+        stats.statementTotal.add(statements);
+        stats.rowTotal.add(rows);
+    }
+
+    public Map<String, MethodProfileDto> getProfiles() {
+        Map<String, MethodProfileDto> profiles = new TreeMap<>();
+        for (MethodStats stats : methods.values()) {
+            long[] latency = stats.latency.snapshot();
+            long[] statements = stats.statements.snapshot();
+            long[] rows = stats.rows.snapshot();
+            long calls = LatencyHistogram.count(latency);
+            if (calls == 0) {
+                continue;
+            }
+            profiles.put(stats.name, new MethodProfileDto(calls,
+                    millis(latency, 50), millis(latency, 90), millis(latency, 99),
+                    (double) stats.statementTotal.sum() / calls,
+                    LatencyHistogram.valueAtPercentile(statements, 99),
+                    LatencyHistogram.valueAtPercentile(statements, 100),
+                    (double) stats.rowTotal.sum() / calls,
+                    LatencyHistogram.valueAtPercentile(rows, 99)));
+        }
+        return profiles;
+    }
+
+    public void reset() {
+        methods.clear();
+    }
+
+    private static double millis(long[] snapshot, double percentile) {
+        return LatencyHistogram.valueAtPercentile(snapshot, percentile) / 1000.0;
+    }
+
+    private static final class MethodStats {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram statements = new LatencyHistogram();
+        private final LatencyHistogram rows = new LatencyHistogram();
+        private final LongAdder statementTotal = new LongAdder();
+        private final LongAdder rowTotal = new LongAdder();
+
+        private MethodStats(String name) {
+            this.name = name;
+        }
+    }
+}
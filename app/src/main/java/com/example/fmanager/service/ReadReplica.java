@@ -0,0 +1,17 @@
+package com.example.fmanager.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read-only service method whose queries may be served by a read replica. Calls made
+ * inside a transaction, and calls for a client that wrote within the sticky window, stay on the
+ * primary. The client is taken from a {@code clientId} parameter or from the
+ * {@code getClientId()} of a DTO argument. Results read from a replica are not cached.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadReplica {
+}
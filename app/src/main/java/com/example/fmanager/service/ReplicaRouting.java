@@ -0,0 +1,56 @@
+package com.example.fmanager.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Routing state for the primary/replica data source. The replica flag is per thread and is set
+ * around {@link ReadReplica} methods. Writes record their client, so that the client's reads go
+ * to the primary for {@code datasource.replica.sticky-window} and see their own writes despite
+ * replication lag.
+ */
+@Component
+public class ReplicaRouting {
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    private final Map<Integer, Long> lastWrites = new ConcurrentHashMap<>();
+    private final long stickyWindowNanos;
+
+    public ReplicaRouting(@Value("${datasource.replica.sticky-window:PT5S}")
+                          Duration stickyWindow) {
+        this.stickyWindowNanos = stickyWindow.toNanos();
+    }
+
+    public static boolean isReplicaRead() {
+        return Boolean.TRUE.equals(REPLICA_READ.get());
+    }
+
+    public static void setReplicaRead(boolean replicaRead) {
+        if (replicaRead) {
+            REPLICA_READ.set(Boolean.TRUE);
+        } else {
+            REPLICA_READ.remove();
+        }
+    }
+
+    public void recordWrite(int clientId) {
+        if (stickyWindowNanos > 0) {
+            lastWrites.put(clientId, System.nanoTime());
+        }
+    }
+
+    public boolean isSticky(int clientId) {
+        Long lastWrite = lastWrites.get(clientId);
+        return lastWrite != null && System.nanoTime() - lastWrite < stickyWindowNanos;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.sticky-purge-interval:PT1M}")
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(lastWrite -> now - lastWrite >= stickyWindowNanos);
+    }
+}
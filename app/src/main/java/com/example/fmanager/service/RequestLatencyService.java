@@ -0,0 +1,65 @@
+package com.example.fmanager.service;
+
+import com.example.fmanager.dto.LatencySummaryDto;
+import com.example.fmanager.dto.RouteLatencyDto;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Latency histograms per route pattern and response status. Each histogram takes a few
+ * kilobytes whatever the traffic. Routes past {@code visits.max-keys} share
+ * {@link VisitCounterService#OTHER}.
+ */
+@Service
+public class RequestLatencyService {
+    private final Map<String, Map<Integer, LatencyHistogram>> histograms =
+            new ConcurrentHashMap<>();
+    private final int maxKeys;
+
+    public RequestLatencyService(@Value("${visits.max-keys:500}") int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public void recordLatency(String route, int status, long nanos) {
+        Map<Integer, LatencyHistogram> byStatus = histograms.get(route);
+        if (byStatus == null) {
+            byStatus = histograms.computeIfAbsent(histograms.size() < maxKeys
+                    ? route : VisitCounterService.OTHER, key -> new ConcurrentHashMap<>());
+        }
+        LatencyHistogram histogram = byStatus.get(status);
+        if (histogram == null) {
+            histogram = byStatus.computeIfAbsent(status, key -> new LatencyHistogram());
+        }
+        histogram.record(nanos / 1000);
+    }
+
+    /**
+     * Percentiles per route, over all statuses and for each one.
+     */
+    public Map<String, RouteLatencyDto> getLatencies() {
+        Map<String, RouteLatencyDto> latencies = new TreeMap<>();
+        histograms.forEach((route, byStatus) -> {
+            LatencyHistogram all = new LatencyHistogram();
+            Map<Integer, LatencySummaryDto> summaries = new TreeMap<>();
+            byStatus.forEach((status, histogram) -> {
+                summaries.put(status, summarize(histogram.snapshot()));
+                all.merge(histogram);
+            });
+            latencies.put(route, new RouteLatencyDto(summarize(all.snapshot()), summaries));
+        });
+        return latencies;
+    }
+
+    private static LatencySummaryDto summarize(long[] snapshot) {
+        return new LatencySummaryDto(LatencyHistogram.count(snapshot),
+                millis(snapshot, 50), millis(snapshot, 90), millis(snapshot, 99),
+                millis(snapshot, 99.9));
+    }
+
+    private static double millis(long[] snapshot, double percentile) {
+        return LatencyHistogram.valueAtPercentile(snapshot, percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.fmanager.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Request counts of one endpoint: per second for the last minute and per minute for the last
+ * hour. Each ring cell packs the second or minute it belongs to (high half) with its count (low
+ * half), so a stale cell is reset and incremented by the same compare-and-set.
+ */
+final class RequestRateWindow {
+    static final int SLOTS = 60;
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+    private final AtomicLongArray seconds = new AtomicLongArray(SLOTS);
+    private final AtomicLongArray minutes = new AtomicLongArray(SLOTS);
+
+    void increment(long nowMillis) {
+        long second = nowMillis / 1000;
+        increment(seconds, second);
+        increment(minutes, second / 60);
+    }
+
+    /**
+     * Counts of the last 60 seconds, oldest first. The last one is the current second.
+     */
+    long[] perSecond(long nowMillis) {
+        return series(seconds, nowMillis / 1000);
+    }
+
+    /**
+     * Counts of the last 60 minutes, oldest first. The last one is the current minute.
+     */
+    long[] perMinute(long nowMillis) {
+        return series(minutes, nowMillis / 60_000);
+    }
+
+    private static void increment(AtomicLongArray ring, long period) {
+        int index = (int) (period % SLOTS);
+        long tag = tag(period);
+        long cell;
+        long next;
+        do {
+            cell = ring.get(index);
+            next = (cell & ~COUNT_MASK) == tag ? cell + 1 : tag | 1;
+        } while (!ring.compareAndSet(index, cell, next));
+    }
+
+    private static long[] series(AtomicLongArray ring, long current) {
+        long[] series = new long[SLOTS];
+        for (int i = 0; i < SLOTS; i++) {
+            long period = current - SLOTS + 1 + i;
+            long cell = ring.get((int) (period % SLOTS));
+            series[i] = (cell & ~COUNT_MASK) == tag(period) ? cell & COUNT_MASK : 0;
+        }
+        return series;
+    }
+
+    private static long tag(long period) {
+        return period << 32;
+    }
+}
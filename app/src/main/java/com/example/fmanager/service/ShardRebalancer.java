@@ -0,0 +1,233 @@
+package com.example.fmanager.service;
+
+import static com.example.fmanager.exception.NotFoundMessages.CLIENT_NOT_FOUND_MESSAGE;
+
+import com.example.fmanager.dto.ShardMoveDto;
+import com.example.fmanager.exception.InvalidDataException;
+import com.example.fmanager.exception.NotFoundException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Moves clients between shards with all rows they own. The source rows are locked for the
+ * whole move, which blocks the client's writes (their foreign key checks need the locked
+ * client and account rows); they are copied to the target and committed there, the directory
+ * is switched, and only then are they deleted from the source. Writes that waited for the
+ * locks then fail instead of landing on the old shard. A move that stopped half way is simply
+ * repeated: leftovers on the target are removed before copying.
+ *
+ * <p>Other instances route the client by their cached directory entry until it expires
+ * ({@code datasource.shards.directory-ttl}); until then its requests there fail as not found.
+ */
+@Service
+public class ShardRebalancer {
+    private static final Logger logger = LoggerFactory.getLogger(ShardRebalancer.class);
+    private static final int BATCH_SIZE = 1000;
+    private static final String OF_ACCOUNTS = "account_id IN (SELECT id FROM accounts "
+            + "WHERE client_id = ?)";
+    /** Tables in foreign key order, with the predicate selecting the client's rows. */
+    private static final List<Map.Entry<String, String>> CLIENT_ROWS = List.of(
+            Map.entry("clients", "id = ?"),
+            Map.entry("accounts", "client_id = ?"),
+            Map.entry("budgets", "id IN (SELECT budget_id FROM client_budgets "
+                    + "WHERE client_id = ?)"),
+            Map.entry("client_budgets", "client_id = ?"),
+            Map.entry("goals", "client_id = ?"),
+            Map.entry("categorization_rules", "client_id = ?"),
+            Map.entry("transactions", OF_ACCOUNTS),
+            Map.entry("idempotency_keys", "transaction_id IN (SELECT id FROM transactions "
+                    + "WHERE " + OF_ACCOUNTS + ")"),
+            Map.entry("spending_rollups", "client_id = ?"));
+
+    private final ShardRouting shardRouting;
+
+    public ShardRebalancer(ShardRouting shardRouting) {
+        this.shardRouting = shardRouting;
+    }
+
+    public Map<Integer, Long> clientCounts() {
+        return shardRouting.clientCounts();
+    }
+
+    public ShardMoveDto moveClient(int clientId, int targetShard) {
+        if (!shardRouting.isSharded()) {
+            throw new InvalidDataException("Sharding is not configured");
+        }
+        if (targetShard < 0 || targetShard >= shardRouting.shardCount()) {
+            throw new InvalidDataException("Unknown shard " + targetShard);
+        }
+        shardRouting.evictClient(clientId);
+        int sourceShard = shardRouting.shardOfClient(clientId);
+        if (sourceShard == targetShard) {
+            return new ShardMoveDto(clientId, sourceShard, targetShard, 0);
+        }
+        try (Connection source = shardRouting.dataSource(sourceShard).getConnection();
+             Connection target = shardRouting.dataSource(targetShard).getConnection()) {
+            source.setAutoCommit(false);
+            target.setAutoCommit(false);
+            try {
+                int rows = move(source, target, clientId, targetShard);
+                logger.info("Moved client {} from shard {} to shard {} ({} rows)",
+                        clientId, sourceShard, targetShard, rows);
+                return new ShardMoveDto(clientId, sourceShard, targetShard, rows);
+            } catch (SQLException | RuntimeException e) {
+                source.rollback();
+                target.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("Moving client " + clientId, null, e);
+        }
+    }
+
+    /**
+     * Moves clients from the fullest to the emptiest shard until their client counts differ
+     * by at most one. Clients sharing a budget with another client stay where they are.
+     */
+    public List<ShardMoveDto> rebalance() {
+        if (!shardRouting.isSharded()) {
+            throw new InvalidDataException("Sharding is not configured");
+        }
+        Map<Integer, Long> counts = clientCounts();
+        List<ShardMoveDto> moves = new ArrayList<>();
+        while (true) {
+            int fullest = Collections.max(counts.entrySet(), Map.Entry.comparingByValue())
+                    .getKey();
+            int emptiest = Collections.min(counts.entrySet(), Map.Entry.comparingByValue())
+                    .getKey();
+            if (counts.get(fullest) - counts.get(emptiest) <= 1) {
+                return moves;
+            }
+            ShardMoveDto move = moveAnyClient(fullest, emptiest);
+            if (move == null) {
+                logger.warn("No movable client left on shard {}", fullest);
+                return moves;
+            }
+            moves.add(move);
+            counts.merge(fullest, -1L, Long::sum);
+            counts.merge(emptiest, 1L, Long::sum);
+        }
+    }
+
+    private ShardMoveDto moveAnyClient(int sourceShard, int targetShard) {
+        List<Integer> candidates = shardRouting.jdbcTemplate(sourceShard).queryForList(
+                "SELECT id FROM clients c WHERE NOT EXISTS (SELECT 1 FROM client_budgets own "
+                        + "JOIN client_budgets other ON other.budget_id = own.budget_id "
+                        + "AND other.client_id <> own.client_id WHERE own.client_id = c.id) "
+                        + "ORDER BY id DESC LIMIT 10", Integer.class);
+        for (int clientId : candidates) {
+            if (shardRouting.shardOfClient(clientId) == sourceShard) {
+                return moveClient(clientId, targetShard);
+            }
+        }
+        return null;
+    }
+
+    private int move(Connection source, Connection target, int clientId, int targetShard)
+            throws SQLException {
+        if (!exists(source, "SELECT id FROM clients WHERE id = ? FOR UPDATE", clientId)) {
+            throw new NotFoundException(CLIENT_NOT_FOUND_MESSAGE + clientId);
+        }
+        exists(source, "SELECT id FROM accounts WHERE client_id = ? FOR UPDATE", clientId);
+        if (exists(source, "SELECT 1 FROM client_budgets own JOIN client_budgets other "
+                + "ON other.budget_id = own.budget_id AND other.client_id <> own.client_id "
+                + "WHERE own.client_id = ?", clientId)) {
+            throw new InvalidDataException("Client " + clientId
+                    + " shares a budget with another client and cannot be moved alone");
+        }
+        deleteClientRows(target, clientId);
+        int rows = 0;
+        for (Map.Entry<String, String> table : CLIENT_ROWS) {
+            rows += copy(source, target, table, clientId);
+        }
+        target.commit();
+        shardRouting.assignClient(clientId, targetShard);
+        deleteClientRows(source, clientId);
+        source.commit();
+        return rows;
+    }
+
+    private static boolean exists(Connection connection, String sql, int clientId)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, clientId);
+            try (ResultSet rows = statement.executeQuery()) {
+                return rows.next();
+            }
+        }
+    }
+
+    private static int copy(Connection source, Connection target, Map.Entry<String, String> table,
+                            int clientId) throws SQLException {
+        try (PreparedStatement select = source.prepareStatement(
+                "SELECT * FROM " + table.getKey() + " WHERE " + table.getValue())) {
+            select.setFetchSize(BATCH_SIZE);
+            select.setInt(1, clientId);
+            try (ResultSet rows = select.executeQuery()) {
+                ResultSetMetaData metadata = rows.getMetaData();
+                int columns = metadata.getColumnCount();
+                List<String> names = new ArrayList<>();
+                for (int column = 1; column <= columns; column++) {
+                    names.add(metadata.getColumnName(column));
+                }
+                String insert = "INSERT INTO " + table.getKey() + " (" + String.join(", ", names)
+                        + ") VALUES (" + String.join(", ", Collections.nCopies(columns, "?"))
+                        + ")";
+                int copied = 0;
+                try (PreparedStatement statement = target.prepareStatement(insert)) {
+                    while (rows.next()) {
+                        for (int column = 1; column <= columns; column++) {
+                            statement.setObject(column, rows.getObject(column));
+                        }
+                        statement.addBatch();
+                        if (++copied % BATCH_SIZE == 0) {
+                            statement.executeBatch();
+                        }
+                    }
+                    statement.executeBatch();
+                }
+                return copied;
+            }
+        }
+    }
+
+    private static void deleteClientRows(Connection connection, int clientId)
+            throws SQLException {
+        // Budgets are found through client_budgets, which has to be deleted first.
+        List<Integer> budgetIds = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT budget_id FROM client_budgets WHERE client_id = ?")) {
+            statement.setInt(1, clientId);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    budgetIds.add(rows.getInt(1));
+                }
+            }
+        }
+        for (int i = CLIENT_ROWS.size() - 1; i >= 0; i--) {
+            String table = CLIENT_ROWS.get(i).getKey();
+            boolean budgets = "budgets".equals(table);
+            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + table
+                    + " WHERE " + (budgets ? "id = ANY (?)" : CLIENT_ROWS.get(i).getValue()))) {
+                if (budgets) {
+                    statement.setArray(1, connection.createArrayOf("integer",
+                            budgetIds.toArray()));
+                } else {
+                    statement.setInt(1, clientId);
+                }
+                statement.executeUpdate();
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.fmanager.service;
+
+import com.example.fmanager.dto.AccountCreateDto;
+import com.example.fmanager.dto.BudgetCreateDto;
+import com.example.fmanager.dto.BulkCreateDto;
+import com.example.fmanager.dto.CategorizationRuleCreateDto;
+import com.example.fmanager.dto.ClientCreateDto;
+import com.example.fmanager.dto.GoalCreateDto;
+import com.example.fmanager.dto.TransactionCreateDto;
+import com.example.fmanager.dto.TransferCreateDto;
+import com.example.fmanager.exception.InvalidDataException;
+import java.lang.reflect.Type;
+import java.util.HashSet;
+import java.util.Set;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+/**
+ * Resolves the shard of a request that was not resolved from its URL from the client or
+ * account its body refers to. A new client is placed on the shard with the fewest clients.
+ */
+@ControllerAdvice
+public class ShardRequestBodyAdvice extends RequestBodyAdviceAdapter {
+    private final ShardRouting shardRouting;
+
+    public ShardRequestBodyAdvice(ShardRouting shardRouting) {
+        this.shardRouting = shardRouting;
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter,
+                            Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return shardRouting.isSharded();
+    }
+
+    @Override
+    public Object afterBodyRead(Object body,
+                                HttpInputMessage inputMessage,
+                                MethodParameter parameter,
+                                Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        if (!ShardRouting.isResolved()) {
+            Integer shard = shardOf(body);
+            if (shard != null) {
+                ShardRouting.setCurrentShard(shard);
+            }
+        }
+        return body;
+    }
+
+    private Integer shardOf(Object body) {
+        if (body instanceof ClientCreateDto) {
+            return shardRouting.placeNewClient();
+        }
+        if (body instanceof AccountCreateDto account && account.getClientId() != null) {
+            return shardRouting.shardOfClient(account.getClientId());
+        }
+        if (body instanceof GoalCreateDto goal && goal.getClientId() != null) {
+            return shardRouting.shardOfClient(goal.getClientId());
+        }
+        if (body instanceof CategorizationRuleCreateDto rule && rule.getClientId() != null) {
+            return shardRouting.shardOfClient(rule.getClientId());
+        }
+        if (body instanceof TransactionCreateDto transaction
+                && transaction.getAccountId() != null) {
+            return shardRouting.shardOfAccount(transaction.getAccountId());
+        }
+        Set<Integer> shards = new HashSet<>();
+        if (body instanceof BudgetCreateDto budget && budget.getClientIds() != null) {
+            budget.getClientIds().forEach(clientId ->
+                    shards.add(shardRouting.shardOfClient(clientId)));
+        } else if (body instanceof TransferCreateDto transfer
+                && transfer.getFromAccountId() != null && transfer.getToAccountId() != null) {
+            shards.add(shardRouting.shardOfAccount(transfer.getFromAccountId()));
+            shards.add(shardRouting.shardOfAccount(transfer.getToAccountId()));
+        } else if (body instanceof BulkCreateDto<?> bulk) {
+            for (Object item : bulk.getItems()) {
+                Integer shard = shardOf(item);
+                if (shard != null) {
+                    shards.add(shard);
+                }
+            }
+        }
+        if (shards.size() > 1) {
+            throw new InvalidDataException(
+                    "The request refers to clients that live on different shards");
+        }
+        return shards.isEmpty() ? null : shards.iterator().next();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.fmanager.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Resolves the shard of a request from its {@code clientId} or {@code accountId} parameter or
+ * from the entity id in its path. Requests carrying the client in the body are resolved by
+ * {@link ShardRequestBodyAdvice}; anything else runs on shard 0.
+ */
+@Component
+public class ShardResolutionInterceptor implements HandlerInterceptor {
+    private static final Map<String, String> TABLES = Map.of(
+            "accounts", "accounts",
+            "transactions", "transactions",
+            "goals", "goals",
+            "budgets", "budgets",
+            "categorization-rules", "categorization_rules");
+
+    private final ShardRouting shardRouting;
+
+    public ShardResolutionInterceptor(ShardRouting shardRouting) {
+        this.shardRouting = shardRouting;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request,
+                             HttpServletResponse response,
+                             Object handler) {
+        if (shardRouting.isSharded()) {
+            Integer shard = resolve(request);
+            if (shard != null) {
+                ShardRouting.setCurrentShard(shard);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request,
+                                HttpServletResponse response,
+                                Object handler,
+                                Exception ex) {
+        ShardRouting.clearCurrentShard();
+    }
+
+    private Integer resolve(HttpServletRequest request) {
+        Integer clientId = parse(request.getParameter("clientId"));
+        if (clientId != null) {
+            return shardRouting.shardOfClient(clientId);
+        }
+        Integer accountId = parse(request.getParameter("accountId"));
+        if (accountId != null) {
+            return shardRouting.shardOfAccount(accountId);
+        }
+        Map<?, ?> variables = (Map<?, ?>) request.getAttribute(
+                HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        Integer id = variables == null ? null : parse((String) variables.get("id"));
+        if (id == null) {
+            return null;
+        }
+        String resource = request.getRequestURI().substring(request.getContextPath().length())
+                .split("/")[1];
+        if ("clients".equals(resource)) {
+            return shardRouting.shardOfClient(id);
+        }
+        String table = TABLES.get(resource);
+        return table == null ? null : shardRouting.shardOfRow(table, id);
+    }
+
+    private static Integer parse(String value) {
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
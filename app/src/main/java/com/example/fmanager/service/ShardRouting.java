@@ -0,0 +1,307 @@
+package com.example.fmanager.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Client-ID sharding. A client lives on one shard together with its accounts, transactions,
+ * goals, budgets, categorization rules and spending rollups; categories are copied to every
+ * shard. Shard 0 keeps the {@code client_shards} directory, and clients without a row there
+ * live on shard 0, so an existing database becomes shard 0 unchanged.
+ *
+ * <p>The current shard is per thread and selects the target of the routing data source. It is
+ * resolved once per request, before the first statement, because the request's entity manager
+ * keeps the connection it opens first. Identity sequences are interleaved across shards (see
+ * {@code datasource.shards.id-stride}), so ids are unique over all shards and an entity id alone
+ * locates its row.
+ */
+public class ShardRouting {
+    private static final Logger logger = LoggerFactory.getLogger(ShardRouting.class);
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final List<DataSource> shards;
+    private final List<JdbcTemplate> jdbcTemplates = new ArrayList<>();
+    private final int idStride;
+    private final long directoryTtlNanos;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private final Map<Integer, CachedShard> directory = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private record CachedShard(int shard, long loadedAt) {
+    }
+
+    public ShardRouting(List<DataSource> shards,
+                        int idStride,
+                        Duration directoryTtl,
+                        ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.shards = List.copyOf(shards);
+        this.idStride = idStride;
+        this.directoryTtlNanos = directoryTtl.toNanos();
+        this.transactionManager = transactionManager;
+        for (DataSource shard : this.shards) {
+            jdbcTemplates.add(new JdbcTemplate(shard));
+        }
+    }
+
+    /**
+     * Routing for a single database: everything is shard 0 and nothing touches the database.
+     */
+    public static ShardRouting unsharded() {
+        return new ShardRouting(List.of(), 1, Duration.ZERO, null);
+    }
+
+    public static int currentShard() {
+        Integer shard = CURRENT_SHARD.get();
+        return shard == null ? 0 : shard;
+    }
+
+    public static boolean isResolved() {
+        return CURRENT_SHARD.get() != null;
+    }
+
+    public static void setCurrentShard(int shard) {
+        CURRENT_SHARD.set(shard);
+    }
+
+    public static void clearCurrentShard() {
+        CURRENT_SHARD.remove();
+    }
+
+    public boolean isSharded() {
+        return shards.size() > 1;
+    }
+
+    public int shardCount() {
+        return Math.max(shards.size(), 1);
+    }
+
+    public int idStride() {
+        return idStride;
+    }
+
+    public DataSource dataSource(int shard) {
+        return shards.get(shard);
+    }
+
+    public JdbcTemplate jdbcTemplate(int shard) {
+        return jdbcTemplates.get(shard);
+    }
+
+    public int shardOfClient(int clientId) {
+        if (!isSharded()) {
+            return 0;
+        }
+        CachedShard cached = directory.get(clientId);
+        if (cached != null && System.nanoTime() - cached.loadedAt() < directoryTtlNanos) {
+            return cached.shard();
+        }
+        List<Integer> rows = jdbcTemplate(0).queryForList(
+                "SELECT shard FROM client_shards WHERE client_id = ?", Integer.class, clientId);
+        int shard = rows.isEmpty() ? 0 : rows.get(0);
+        directory.put(clientId, new CachedShard(shard, System.nanoTime()));
+        return shard;
+    }
+
+    public int shardOfAccount(int accountId) {
+        return shardOfRow("accounts", accountId);
+    }
+
+    /**
+     * Shard holding the row with the given id in one of the sharded tables. The shard that
+     * generated the id is checked first; the others only for rows of clients that were moved
+     * or that predate sharding. Returns that first candidate when no shard has the row.
+     */
+    public int shardOfRow(String table, int id) {
+        if (!isSharded()) {
+            return 0;
+        }
+        int generatedBy = Math.floorMod(id - 1, idStride);
+        List<Integer> candidates = new ArrayList<>();
+        if (generatedBy < shards.size()) {
+            candidates.add(generatedBy);
+        }
+        for (int shard = 0; shard < shards.size(); shard++) {
+            if (shard != generatedBy) {
+                candidates.add(shard);
+            }
+        }
+        for (int shard : candidates) {
+            if (!jdbcTemplate(shard).queryForList("SELECT 1 FROM " + table + " WHERE id = ?",
+                    Integer.class, id).isEmpty()) {
+                return shard;
+            }
+        }
+        return candidates.get(0);
+    }
+
+    public Map<Integer, Long> clientCounts() {
+        Map<Integer, Long> counts = new LinkedHashMap<>();
+        for (int shard = 0; shard < shardCount(); shard++) {
+            counts.put(shard, isSharded() ? jdbcTemplate(shard).queryForObject(
+                    "SELECT COUNT(*) FROM clients", Long.class) : 0L);
+        }
+        return counts;
+    }
+
+    /**
+     * Shard for a client about to be created: the one with the fewest clients.
+     */
+    public int placeNewClient() {
+        if (!isSharded()) {
+            return 0;
+        }
+        return clientCounts().entrySet().stream()
+                .min(Map.Entry.comparingByValue())
+                .orElseThrow()
+                .getKey();
+    }
+
+    /**
+     * Records that a client just created on the current shard lives there.
+     */
+    public void registerClient(int clientId) {
+        if (isSharded()) {
+            assignClient(clientId, currentShard());
+        }
+    }
+
+    public void assignClient(int clientId, int shard) {
+        jdbcTemplate(0).update("INSERT INTO client_shards (client_id, shard) VALUES (?, ?) "
+                + "ON CONFLICT (client_id) DO UPDATE SET shard = EXCLUDED.shard", clientId, shard);
+        directory.put(clientId, new CachedShard(shard, System.nanoTime()));
+    }
+
+    public void unregisterClient(int clientId) {
+        if (isSharded()) {
+            jdbcTemplate(0).update("DELETE FROM client_shards WHERE client_id = ?", clientId);
+            directory.remove(clientId);
+        }
+    }
+
+    public void evictClient(int clientId) {
+        directory.remove(clientId);
+    }
+
+    /**
+     * Runs work on the given shard. The calling thread must not hold a connection yet, e.g.
+     * a background writer between batches.
+     */
+    public <T> T onShard(int shard, Supplier<T> work) {
+        Integer previous = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_SHARD.remove();
+            } else {
+                CURRENT_SHARD.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Runs work once per shard, in parallel and each in its own transaction, and returns the
+     * results in shard order. Without sharding the work runs directly on the calling thread.
+     */
+    public <T> List<T> onEachShard(Supplier<T> work) {
+        if (!isSharded()) {
+            return Collections.singletonList(work.get());
+        }
+        TransactionTemplate transactionTemplate =
+                new TransactionTemplate(transactionManager.getObject());
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> onShard(target,
+                    () -> transactionTemplate.execute(status -> work.get())), executor));
+        }
+        return join(futures);
+    }
+
+    /**
+     * Scatter-gather: runs the query on every shard and concatenates the results.
+     */
+    public <T> List<T> gather(Supplier<List<T>> query) {
+        List<T> result = new ArrayList<>();
+        for (List<T> part : onEachShard(query)) {
+            result.addAll(part);
+        }
+        return result;
+    }
+
+    /**
+     * Runs a task once per shard, in parallel and without a surrounding transaction, for jobs
+     * that commit in batches themselves.
+     */
+    public void forEachShard(Runnable task) {
+        if (!isSharded()) {
+            task.run();
+            return;
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.runAsync(() -> onShard(target, () -> {
+                task.run();
+                return null;
+            }), executor));
+        }
+        join(futures);
+    }
+
+    /**
+     * Executes a statement on every shard except the current one, to keep copies of
+     * reference data in step. A shard that fails does not stop the others.
+     *
+     * @return shards the statement failed on
+     */
+    public List<Integer> updateOtherShards(String sql, Object... args) {
+        List<Integer> failed = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            if (shard == currentShard()) {
+                continue;
+            }
+            try {
+                jdbcTemplate(shard).update(sql, args);
+            } catch (DataAccessException e) {
+                logger.warn("Update of shard {} failed: {}", shard, e.getMessage());
+                failed.add(shard);
+            }
+        }
+        return failed;
+    }
+
+    private static <T> List<T> join(List<CompletableFuture<T>> futures) {
+        List<T> results = new ArrayList<>();
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.fmanager.service;
+
+import com.example.fmanager.dto.SpendingSummaryDto;
+import com.example.fmanager.exception.InvalidDataException;
+import com.example.fmanager.models.ArchivedTransaction;
+import com.example.fmanager.models.SpendingRollup;
+import com.example.fmanager.models.Transaction;
+import com.example.fmanager.repository.SpendingRollupRepository;
+import com.example.fmanager.repository.TransactionRepository;
+import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maintains the spending_rollups table: one row per client, month, category and account with
+ * the sum, count, minimum and maximum of its transaction amounts. Rows are updated by the
+ * transaction write paths in the same database transaction, so reports never add up raw
+ * transactions.
+ */
+@Service
+public class SpendingRollupService {
+    private final SpendingRollupRepository rollupRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionArchiveService transactionArchiveService;
+
+    public SpendingRollupService(SpendingRollupRepository rollupRepository,
+                                 TransactionRepository transactionRepository,
+                                 TransactionArchiveService transactionArchiveService) {
+        this.rollupRepository = rollupRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionArchiveService = transactionArchiveService;
+    }
+
+    private record Bucket(int clientId, int yearMonth, int categoryId, int accountId) {
+    }
+
+    private static final Comparator<Bucket> LOCK_ORDER =
+            Comparator.comparingInt(Bucket::accountId)
+            .thenComparingInt(Bucket::yearMonth)
+            .thenComparingInt(Bucket::categoryId);
+
+    private static final class Delta {
+        private double total;
+        private long count;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        private void add(double amount) {
+            total += amount;
+            count++;
+            min = Math.min(min, amount);
+            max = Math.max(max, amount);
+        }
+    }
+
+    public void recordTransaction(Transaction transaction) {
+        recordTransactions(List.of(transaction));
+    }
+
+    public void recordTransactions(List<Transaction> transactions) {
+        // Buckets are locked in one fixed order so writers sharing buckets cannot deadlock.
+        Map<Bucket, Delta> deltas = new TreeMap<>(LOCK_ORDER);
+        for (Transaction transaction : transactions) {
+            deltas.computeIfAbsent(bucketOf(transaction), bucket -> new Delta())
+                    .add(transaction.getAmount());
+        }
+        for (Map.Entry<Bucket, Delta> entry : deltas.entrySet()) {
+            Bucket bucket = entry.getKey();
+            Delta delta = entry.getValue();
+            rollupRepository.insertBucketIfAbsent(bucket.clientId(), bucket.yearMonth(),
+                    bucket.categoryId(), bucket.accountId());
+            SpendingRollup rollup = rollupRepository.findBucketForUpdate(bucket.clientId(),
+                            bucket.yearMonth(), bucket.categoryId(), bucket.accountId())
+                    .orElseGet(() -> newRollup(bucket));
+            if (rollup.getTransactionCount() == 0) {
+                rollup.setMinAmount(delta.min);
+                rollup.setMaxAmount(delta.max);
+            } else {
+                rollup.setMinAmount(Math.min(rollup.getMinAmount(), delta.min));
+                rollup.setMaxAmount(Math.max(rollup.getMaxAmount(), delta.max));
+            }
+            rollup.setTotalAmount(rollup.getTotalAmount() + delta.total);
+            rollup.setTransactionCount(rollup.getTransactionCount() + delta.count);
+            rollupRepository.save(rollup);
+        }
+    }
+
+    /**
+     * Takes a transaction out of its bucket. Must be called before the transaction is changed
+     * or deleted, because the bucket and the amount are read from it.
+     */
+    public void revertTransaction(Transaction transaction) {
+        revert(bucketOf(transaction), transaction.getAmount(), transaction.getId());
+    }
+
+    /**
+     * Applies {@code change} to the transaction and moves it from the bucket it was in to the
+     * one it is in afterwards. Both buckets are locked in {@link #LOCK_ORDER} before either is
+     * touched, so updates moving transactions between two months in opposite directions cannot
+     * deadlock.
+     */
+    public void updateTransaction(Transaction transaction, Runnable change) {
+        Bucket previous = bucketOf(transaction);
+        double previousAmount = transaction.getAmount();
+        change.run();
+        Bucket current = bucketOf(transaction);
+        Set<Bucket> buckets = new TreeSet<>(LOCK_ORDER);
+        buckets.add(previous);
+        buckets.add(current);
+        for (Bucket bucket : buckets) {
+            if (bucket.equals(current)) {
+                rollupRepository.insertBucketIfAbsent(bucket.clientId(), bucket.yearMonth(),
+                        bucket.categoryId(), bucket.accountId());
+            }
+            rollupRepository.findBucketForUpdate(bucket.clientId(), bucket.yearMonth(),
+                    bucket.categoryId(), bucket.accountId());
+        }
+        revert(previous, previousAmount, transaction.getId());
+        recordTransaction(transaction);
+    }
+
+    private void revert(Bucket bucket, double amount, int transactionId) {
+        SpendingRollup rollup = rollupRepository.findBucketForUpdate(bucket.clientId(),
+                bucket.yearMonth(), bucket.categoryId(), bucket.accountId()).orElse(null);
+        if (rollup == null) {
+            return;
+        }
+        if (rollup.getTransactionCount() <= 1) {
+            rollupRepository.delete(rollup);
+            return;
+        }
+        rollup.setTotalAmount(rollup.getTotalAmount() - amount);
+        rollup.setTransactionCount(rollup.getTransactionCount() - 1);
+        // The removed amount may have been the bucket's extreme; only this bucket is rescanned.
+        // A month archived with its partition has lost its rows, so its minimum and maximum
+        // stay as they are and are bounds rather than exact values.
+        if ((amount <= rollup.getMinAmount() || amount >= rollup.getMaxAmount())
+                && !rollupRepository.findArchivedMonths().contains(bucket.yearMonth())) {
+            rescanAmountRange(rollup, bucket, transactionId);
+        }
+        rollupRepository.save(rollup);
+    }
+
+    /**
+     * Sets the bucket's minimum and maximum from its live and cold-archived transactions other
+     * than {@code excludedId}.
+     */
+    private void rescanAmountRange(SpendingRollup rollup, Bucket bucket, int excludedId) {
+        LocalDateTime from = monthStart(bucket.yearMonth());
+        LocalDateTime to = from.plusMonths(1);
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        List<Object[]> range = transactionRepository.findAmountRangeExcluding(
+                bucket.accountId(), bucket.categoryId(), from, to, excludedId);
+        if (!range.isEmpty() && range.get(0)[0] != null) {
+            min = ((Number) range.get(0)[0]).doubleValue();
+            max = ((Number) range.get(0)[1]).doubleValue();
+        }
+        for (ArchivedTransaction archived : transactionArchiveService.findByClientId(
+                bucket.clientId(), categoryId -> categoryId == bucket.categoryId())) {
+            LocalDateTime date = archived.effectiveDate();
+            if (archived.id() != excludedId && archived.accountId() == bucket.accountId()
+                    && !date.isBefore(from) && date.isBefore(to)) {
+                min = Math.min(min, archived.amount());
+                max = Math.max(max, archived.amount());
+            }
+        }
+        if (min <= max) {
+            rollup.setMinAmount(min);
+            rollup.setMaxAmount(max);
+        }
+    }
+
+    /**
+     * Drops the buckets of deleted accounts.
+     */
+    public void deleteAllOfAccounts(List<Integer> accountIds) {
+        rollupRepository.deleteAllByAccountIdIn(accountIds);
+    }
+
+    @ReadReplica
+    public List<SpendingSummaryDto> getMonthlySummary(int clientId, int year, int month) {
+        int yearMonth = toYearMonth(year, month);
+        return rollupRepository.summarizeByMonthAndCategory(clientId, yearMonth, yearMonth);
+    }
+
+    @ReadReplica
+    public List<SpendingSummaryDto> getYearlySummary(int clientId, int year) {
+        List<SpendingSummaryDto> summaries = rollupRepository.summarizeByCategory(
+                clientId, toYearMonth(year, 1), toYearMonth(year, 12));
+        summaries.forEach(summary -> summary.setPeriod(year));
+        return summaries;
+    }
+
+    @ReadReplica
+    public List<SpendingSummaryDto> getMonthlySeries(int clientId, int year) {
+        return rollupRepository.summarizeByMonthAndCategory(
+                clientId, toYearMonth(year, 1), toYearMonth(year, 12));
+    }
+
+    /**
+     * Recomputes every rollup row from the transactions table and the cold archive, e.g. after
+     * the table was introduced on an existing database. With sharding this covers the current
+     * shard only. Months archived with their partition keep their rows: their transactions are
+     * gone from the database, and any posted since were added to the kept rows.
+     *
+     * @return number of buckets recomputed
+     */
+    @Transactional
+    public int rebuild() {
+        Set<Integer> archivedMonths = new HashSet<>(rollupRepository.findArchivedMonths());
+        rollupRepository.deleteAllOutsideArchivedMonths();
+        Map<Bucket, SpendingRollup> rollups = new LinkedHashMap<>();
+        for (Object[] row : transactionRepository.aggregateSpendingBuckets()) {
+            Bucket bucket = new Bucket(((Number) row[0]).intValue(),
+                    ((Number) row[3]).intValue(), ((Number) row[1]).intValue(),
+                    ((Number) row[2]).intValue());
+            if (archivedMonths.contains(bucket.yearMonth())) {
+                continue;
+            }
+            SpendingRollup rollup = newRollup(bucket);
+            rollup.setTotalAmount(((Number) row[4]).doubleValue());
+            rollup.setTransactionCount(((Number) row[5]).longValue());
+            rollup.setMinAmount(((Number) row[6]).doubleValue());
+            rollup.setMaxAmount(((Number) row[7]).doubleValue());
+            rollups.put(bucket, rollup);
+        }
+        transactionArchiveService.forEachArchived((clientId, transaction) -> {
+            LocalDateTime date = transaction.effectiveDate();
+            Bucket bucket = new Bucket(clientId,
+                    toYearMonth(date.getYear(), date.getMonthValue()),
+                    transaction.categoryId(), transaction.accountId());
+            if (archivedMonths.contains(bucket.yearMonth())) {
+                return;
+            }
+            SpendingRollup rollup = rollups.computeIfAbsent(bucket, this::newRollup);
+            double amount = transaction.amount();
+            if (rollup.getTransactionCount() == 0) {
+                rollup.setMinAmount(amount);
+                rollup.setMaxAmount(amount);
+            } else {
+                rollup.setMinAmount(Math.min(rollup.getMinAmount(), amount));
+                rollup.setMaxAmount(Math.max(rollup.getMaxAmount(), amount));
+            }
+            rollup.setTotalAmount(rollup.getTotalAmount() + amount);
+            rollup.setTransactionCount(rollup.getTransactionCount() + 1);
+        });
+        rollupRepository.saveAll(rollups.values());
+        return rollups.size();
+    }
+
+    private SpendingRollup newRollup(Bucket bucket) {
+        SpendingRollup rollup = new SpendingRollup();
+        rollup.setClientId(bucket.clientId());
+        rollup.setYearMonth(bucket.yearMonth());
+        rollup.setCategoryId(bucket.categoryId());
+        rollup.setAccountId(bucket.accountId());
+        return rollup;
+    }
+
+    private Bucket bucketOf(Transaction transaction) {
+        LocalDateTime date = transaction.getDate() != null ? transaction.getDate()
+                : transaction.getCreatedAt() != null ? transaction.getCreatedAt()
+                : LocalDateTime.now();
+        return new Bucket(transaction.getAccount().getClient().getId(),
+                toYearMonth(date.getYear(), date.getMonthValue()),
+                transaction.getCategory().getId(),
+                transaction.getAccount().getId());
+    }
+
+    private int toYearMonth(int year, int month) {
+        if (month < 1 || month > 12) {
+            throw new InvalidDataException("Month must be between 1 and 12");
+        }
+        return year * 100 + month;
+    }
+
+    private LocalDateTime monthStart(int yearMonth) {
+        return LocalDateTime.of(yearMonth / 100, yearMonth % 100, 1, 0, 0);
+    }
+}
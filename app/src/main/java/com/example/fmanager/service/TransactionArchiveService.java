@@ -0,0 +1,261 @@
+package com.example.fmanager.service;
+
+import com.example.fmanager.exception.ProcessingFileException;
+import com.example.fmanager.models.ArchivedTransaction;
+import com.example.fmanager.models.Transaction;
+import com.example.fmanager.repository.AccountRepository;
+import com.example.fmanager.repository.TransactionRepository;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Cold tier for transactions older than the retention period. Each client's old transactions
+ * are written to {@link ColumnarSegment} files under {@code client-<id>/} in the archive
+ * directory and then deleted from the database. Per-client reads and the spending rollup
+ * rebuild merge the archive back in.
+ *
+ * <p>A segment is made durable before its rows are deleted. If the process stops in between,
+ * the rows exist twice until the next run, which only deletes them; meanwhile per-client reads
+ * prefer the live row. Amounts of deleted rows move into their account's opening balance in the
+ * same database transaction as the delete, so balances still reconcile.
+ */
+@Service
+public class TransactionArchiveService {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionArchiveService.class);
+    private static final String CLIENT_PREFIX = "client-";
+    private static final String SEGMENT_SUFFIX = ".fca";
+    private static final int LIVE_ID_BATCH = 1000;
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final ShardRouting shardRouting;
+    private final TransactionOperations transactionOperations;
+    private final boolean enabled;
+    private final Path directory;
+    private final int retentionMonths;
+    private final int segmentRows;
+
+    public TransactionArchiveService(TransactionRepository transactionRepository,
+                                     AccountRepository accountRepository,
+                                     ShardRouting shardRouting,
+                                     TransactionOperations transactionOperations,
+                                     @Value("${cold-archive.enabled:false}") boolean enabled,
+                                     @Value("${cold-archive.directory:archive/clients}")
+                                     String directory,
+                                     @Value("${cold-archive.retention-months:24}")
+                                     int retentionMonths,
+                                     @Value("${cold-archive.segment-rows:50000}")
+                                     int segmentRows) {
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.shardRouting = shardRouting;
+        this.transactionOperations = transactionOperations;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.retentionMonths = retentionMonths;
+        this.segmentRows = segmentRows;
+    }
+
+    @Scheduled(cron = "${cold-archive.cron:0 0 3 * * *}")
+    public void archiveExpired() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDate.now().withDayOfMonth(1)
+                .minusMonths(retentionMonths).atStartOfDay();
+        shardRouting.forEachShard(() -> {
+            for (int clientId
+                    : transactionRepository.findClientIdsWithTransactionsBefore(cutoff)) {
+                archiveClient(clientId, cutoff);
+            }
+        });
+    }
+
+    /**
+     * Moves the client's transactions dated before {@code cutoff} into the archive. Amounts that
+     * are not whole cents stay in the database.
+     *
+     * @return number of transactions removed from the database
+     */
+    public int archiveClient(int clientId, LocalDateTime cutoff) {
+        Set<Integer> alreadyArchived = new HashSet<>();
+        Path clientDirectory = clientDirectory(clientId);
+        try {
+            Files.createDirectories(clientDirectory);
+            for (Path segment : segments(clientId)) {
+                alreadyArchived.addAll(ColumnarSegment.readIds(segment));
+            }
+            int removed = 0;
+            int afterId = 0;
+            List<Transaction> batch;
+            do {
+                batch = transactionRepository.findAllByClientIdBefore(clientId, cutoff, afterId,
+                        Limit.of(segmentRows));
+                List<ArchivedTransaction> rows = new ArrayList<>();
+                List<Integer> deletable = new ArrayList<>();
+                Map<Integer, Double> deletedByAccount = new HashMap<>();
+                for (Transaction transaction : batch) {
+                    ArchivedTransaction archived = ArchivedTransaction.of(transaction);
+                    boolean encodable = ColumnarSegment.isEncodable(archived);
+                    if (encodable && !alreadyArchived.contains(archived.id())) {
+                        rows.add(archived);
+                    }
+                    if (encodable || alreadyArchived.contains(archived.id())) {
+                        deletable.add(archived.id());
+                        deletedByAccount.merge(archived.accountId(), archived.amount(),
+                                Double::sum);
+                    }
+                    afterId = archived.id();
+                }
+                if (!rows.isEmpty()) {
+                    ColumnarSegment.write(clientDirectory.resolve("segment-"
+                            + System.currentTimeMillis() + "-" + rows.get(0).id()
+                            + SEGMENT_SUFFIX), rows);
+                }
+                if (!deletable.isEmpty()) {
+                    transactionOperations.executeWithoutResult(status -> {
+                        deletedByAccount.forEach(accountRepository::addToOpeningBalance);
+                        transactionRepository.deleteAllByIdInBatch(deletable);
+                    });
+                    removed += deletable.size();
+                }
+            } while (batch.size() == segmentRows);
+            if (removed > 0) {
+                logger.info("Archived {} transactions of client {}", removed, clientId);
+            }
+            return removed;
+        } catch (IOException e) {
+            throw new ProcessingFileException("Failed to archive transactions of client "
+                    + clientId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Archived transactions of a client whose category matches the filter. Segments are not
+     * rewritten when an account is deleted, so rows of accounts that no longer exist are
+     * skipped here.
+     */
+    public List<ArchivedTransaction> findByClientId(int clientId, IntPredicate categoryFilter) {
+        List<ArchivedTransaction> result = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        try {
+            List<Path> segments = segments(clientId);
+            if (segments.isEmpty()) {
+                return result;
+            }
+            Set<Integer> accountIds = new HashSet<>(accountRepository.findIdsByClientId(clientId));
+            for (Path segment : segments) {
+                for (ArchivedTransaction transaction : ColumnarSegment.read(segment,
+                        categoryFilter)) {
+                    if (accountIds.contains(transaction.accountId())
+                            && seen.add(transaction.id())) {
+                        result.add(transaction);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new ProcessingFileException("Failed to read archived transactions of client "
+                    + clientId + ": " + e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Removes the archive of a deleted client.
+     */
+    public void deleteClient(int clientId) {
+        Path clientDirectory = clientDirectory(clientId);
+        if (!Files.isDirectory(clientDirectory)) {
+            return;
+        }
+        try (Stream<Path> entries = Files.walk(clientDirectory)) {
+            for (Path entry : entries.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(entry);
+            }
+        } catch (IOException e) {
+            throw new ProcessingFileException("Failed to delete archived transactions of client "
+                    + clientId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Passes every archived transaction of the current shard's clients, with its client id, to
+     * the consumer. Rows still in the database because a run stopped before deleting them are
+     * left out, so that callers that also read the table count them once.
+     */
+    public void forEachArchived(BiConsumer<Integer, ArchivedTransaction> consumer) {
+        for (int clientId : archivedClientIds()) {
+            if (shardRouting.shardOfClient(clientId) != ShardRouting.currentShard()) {
+                continue;
+            }
+            List<ArchivedTransaction> archived = findByClientId(clientId, category -> true);
+            Set<Integer> liveIds = findLiveIds(archived);
+            for (ArchivedTransaction transaction : archived) {
+                if (!liveIds.contains(transaction.id())) {
+                    consumer.accept(clientId, transaction);
+                }
+            }
+        }
+    }
+
+    private Set<Integer> findLiveIds(List<ArchivedTransaction> archived) {
+        Set<Integer> liveIds = new HashSet<>();
+        for (int from = 0; from < archived.size(); from += LIVE_ID_BATCH) {
+            liveIds.addAll(transactionRepository.findExistingIds(archived
+                    .subList(from, Math.min(from + LIVE_ID_BATCH, archived.size())).stream()
+                    .map(ArchivedTransaction::id).toList()));
+        }
+        return liveIds;
+    }
+
+    private List<Integer> archivedClientIds() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> entries = Files.list(directory)) {
+            return entries.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(CLIENT_PREFIX))
+                    .map(name -> Integer.parseInt(name.substring(CLIENT_PREFIX.length())))
+                    .toList();
+        } catch (IOException e) {
+            throw new ProcessingFileException("Failed to list the transaction archive: "
+                    + e.getMessage());
+        }
+    }
+
+    private List<Path> segments(int clientId) throws IOException {
+        Path clientDirectory = clientDirectory(clientId);
+        if (!Files.isDirectory(clientDirectory)) {
+            return List.of();
+        }
+        try (Stream<Path> entries = Files.list(clientDirectory)) {
+            return entries.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path clientDirectory(int clientId) {
+        return directory.resolve(CLIENT_PREFIX + clientId);
+    }
+}
@@ -0,0 +1,448 @@
+package com.example.fmanager.service;
+
+import com.example.fmanager.dto.TransactionCreateDto;
+import com.example.fmanager.exception.ProcessingFileException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+/**
+ * Store-and-forward buffer for {@code POST /transactions} while the database is unreachable.
+ * Postings are appended to memory-mapped segment files and acknowledged once the segment is
+ * forced to disk; concurrent appenders share a single force. A replayer thread feeds the
+ * journal, in order, into the idempotent write path, so a posting replayed twice after a crash
+ * is still written once. While a backlog exists every new posting goes through the journal too,
+ * which keeps postings in arrival order.
+ *
+ * <p>Record layout: payload length (int), CRC32 of the payload (int), JSON payload. A zero
+ * length marks the end of the written part of a segment.
+ */
+@Service
+public class TransactionJournal {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionJournal.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+    private final ShardRouting shardRouting;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final Duration retryInterval;
+
+    private final Object appendMonitor = new Object();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushed = flushLock.newCondition();
+    private final Set<String> pendingKeys = ConcurrentHashMap.newKeySet();
+
+    private Segment active;
+    private long appendedSequence;
+    private long durableSequence;
+    private boolean flushing;
+    private Thread replayer;
+    private volatile boolean running;
+
+    record JournalEntry(String idempotencyKey, TransactionCreateDto transaction) {
+    }
+
+    private record Segment(long index, Path path, FileChannel channel, MappedByteBuffer buffer) {
+    }
+
+    public TransactionJournal(IdempotencyService idempotencyService,
+                              ObjectMapper objectMapper,
+                              ShardRouting shardRouting,
+                              @Value("${journal.enabled:false}") boolean enabled,
+                              @Value("${journal.directory:journal}") String directory,
+                              @Value("${journal.segment-size:16777216}") int segmentSize,
+                              @Value("${journal.retry-interval:PT1S}") Duration retryInterval) {
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
+        this.shardRouting = shardRouting;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentSize = segmentSize;
+        this.retryInterval = retryInterval;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        List<Long> segments = listSegments();
+        Checkpoint checkpoint = readCheckpoint();
+        for (long index : segments) {
+            if (index < checkpoint.segment()) {
+                Files.deleteIfExists(segmentPath(index));
+            }
+        }
+        long lastIndex = segments.isEmpty() ? checkpoint.segment()
+                : Math.max(checkpoint.segment(), segments.get(segments.size() - 1));
+        for (long index = checkpoint.segment(); index <= lastIndex; index++) {
+            if (!Files.exists(segmentPath(index)) && index != lastIndex) {
+                continue;
+            }
+            Segment segment = openSegment(index);
+            int start = index == checkpoint.segment() ? checkpoint.offset() : 0;
+            int end = scan(segment, start, entry -> pendingKeys.add(entry.idempotencyKey()));
+            if (index == lastIndex) {
+                segment.buffer().position(end);
+                active = segment;
+            } else {
+                segment.channel().close();
+            }
+        }
+        running = true;
+        replayer = Thread.ofVirtual().name("journal-replayer").start(this::replayLoop);
+        logger.info("Transaction journal opened in {} with {} pending postings",
+                directory, pendingKeys.size());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        replayer.interrupt();
+        replayer.join(retryInterval.toMillis() * 2);
+        synchronized (appendMonitor) {
+            active.buffer().force();
+            active.channel().close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * With the journal enabled every direct write carries an idempotency key, so a posting
+     * whose commit outcome was unknown can be journaled and replayed without duplicating it.
+     */
+    public String assignKey(String idempotencyKey) {
+        if (!enabled || idempotencyKey != null) {
+            return idempotencyKey;
+        }
+        return "journal-" + UUID.randomUUID();
+    }
+
+    public boolean isPending(String idempotencyKey) {
+        return idempotencyKey != null && pendingKeys.contains(idempotencyKey);
+    }
+
+    /**
+     * Journals the posting when there is already a backlog, so it is not applied ahead of
+     * postings accepted earlier. Returns the key the posting was journaled under.
+     */
+    public Optional<String> appendIfBacklogged(String idempotencyKey,
+                                               TransactionCreateDto transactionCreateDto) {
+        if (!enabled || pendingKeys.isEmpty()) {
+            return Optional.empty();
+        }
+        if (isPending(idempotencyKey)) {
+            return Optional.of(idempotencyKey);
+        }
+        return Optional.of(append(idempotencyKey, transactionCreateDto));
+    }
+
+    /**
+     * Journals a posting whose direct write failed because the database is unreachable;
+     * any other failure is rethrown unchanged.
+     */
+    public String appendAfterFailure(String idempotencyKey,
+                                     TransactionCreateDto transactionCreateDto,
+                                     RuntimeException failure) {
+        if (!enabled || !isDatabaseUnavailable(failure)) {
+            throw failure;
+        }
+        logger.warn("Database unavailable, journaling posting: {}", failure.getMessage());
+        return append(idempotencyKey, transactionCreateDto);
+    }
+
+    private String append(String idempotencyKey, TransactionCreateDto transactionCreateDto) {
+        String key = assignKey(idempotencyKey);
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(new JournalEntry(key, transactionCreateDto));
+        } catch (IOException e) {
+            throw new ProcessingFileException("Cannot serialize journal entry");
+        }
+        long sequence;
+        synchronized (appendMonitor) {
+            if (active.buffer().remaining() < HEADER_SIZE + payload.length + Integer.BYTES) {
+                roll();
+            }
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            MappedByteBuffer buffer = active.buffer();
+            int start = buffer.position();
+            buffer.position(start + Integer.BYTES);
+            buffer.putInt((int) crc.getValue());
+            buffer.put(payload);
+            // The length goes in last, so a torn write reads back as the end of the segment.
+            buffer.putInt(start, payload.length);
+            pendingKeys.add(key);
+            sequence = ++appendedSequence;
+        }
+        awaitDurable(sequence);
+        return key;
+    }
+
+    private void roll() {
+        try {
+            active.buffer().force();
+            active.channel().close();
+            active = openSegment(active.index() + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void awaitDurable(long sequence) {
+        flushLock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (flushing) {
+                    flushed.awaitUninterruptibly();
+                    continue;
+                }
+                flushing = true;
+                long target;
+                flushLock.unlock();
+                try {
+                    MappedByteBuffer buffer;
+                    synchronized (appendMonitor) {
+                        target = appendedSequence;
+                        buffer = active.buffer();
+                    }
+                    buffer.force();
+                } finally {
+                    flushLock.lock();
+                    flushing = false;
+                    flushed.signalAll();
+                }
+                durableSequence = Math.max(durableSequence, target);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void replayLoop() {
+        while (running) {
+            try {
+                if (pendingKeys.isEmpty() || replayFrom(readCheckpoint()) == 0) {
+                    Thread.sleep(retryInterval.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.error("Journal replay failed: {}", e.getMessage());
+                sleepQuietly();
+            }
+        }
+    }
+
+    /**
+     * Replays the complete records after the checkpoint until the end of the journal or until
+     * the database turns out to be unavailable. Returns the number of records replayed.
+     */
+    private int replayFrom(Checkpoint checkpoint) throws IOException {
+        long index = checkpoint.segment();
+        int offset = checkpoint.offset();
+        int replayed = 0;
+        while (running) {
+            Path path = segmentPath(index);
+            if (!Files.exists(path)) {
+                return replayed;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                buffer.position(offset);
+                Optional<JournalEntry> entry;
+                while ((entry = next(buffer)).isPresent()) {
+                    if (!replay(entry.get())) {
+                        return replayed;
+                    }
+                    replayed++;
+                    offset = buffer.position();
+                    writeCheckpoint(new Checkpoint(index, offset));
+                }
+            }
+            boolean isActive;
+            synchronized (appendMonitor) {
+                isActive = active.index() == index;
+            }
+            if (isActive) {
+                return replayed;
+            }
+            Files.deleteIfExists(path);
+            index++;
+            offset = 0;
+            writeCheckpoint(new Checkpoint(index, offset));
+        }
+        return replayed;
+    }
+
+    private boolean replay(JournalEntry entry) {
+        try {
+            TransactionCreateDto transaction = entry.transaction();
+            int shard = shardRouting.isSharded()
+                    ? shardRouting.shardOfAccount(transaction.getAccountId()) : 0;
+            shardRouting.onShard(shard, () -> idempotencyService.createTransaction(
+                    entry.idempotencyKey(), transaction));
+        } catch (RuntimeException e) {
+            if (isDatabaseUnavailable(e)) {
+                return false;
+            }
+            logger.error("Journaled posting {} rejected on replay: {}",
+                    entry.idempotencyKey(), e.getMessage());
+        }
+        pendingKeys.remove(entry.idempotencyKey());
+        return true;
+    }
+
+    private int scan(Segment segment, int start, Consumer<JournalEntry> sink) {
+        ByteBuffer buffer = segment.buffer().duplicate();
+        buffer.position(start);
+        Optional<JournalEntry> entry;
+        int end = start;
+        while ((entry = next(buffer)).isPresent()) {
+            sink.accept(entry.get());
+            end = buffer.position();
+        }
+        return end;
+    }
+
+    private Optional<JournalEntry> next(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE) {
+            return Optional.empty();
+        }
+        int start = buffer.position();
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length <= 0 || length > buffer.remaining()) {
+            buffer.position(start);
+            return Optional.empty();
+        }
+        byte[] payload = new byte[length];
+        buffer.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != checksum) {
+            buffer.position(start);
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(payload, JournalEntry.class));
+        } catch (IOException e) {
+            buffer.position(start);
+            return Optional.empty();
+        }
+    }
+
+    private boolean isDatabaseUnavailable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CannotCreateTransactionException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof SQLTransientConnectionException
+                    || cause instanceof ConnectException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Segment openSegment(long index) throws IOException {
+        Path path = segmentPath(index);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        return new Segment(index, path, channel, buffer);
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX)
+                            && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> segments.add(Long.parseLong(name.substring(
+                            SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        segments.sort(Long::compare);
+        return segments;
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private record Checkpoint(long segment, int offset) {
+    }
+
+    private Checkpoint readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return new Checkpoint(0, 0);
+        }
+        String[] parts = Files.readString(path, StandardCharsets.US_ASCII).trim().split(":");
+        return new Checkpoint(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    private void writeCheckpoint(Checkpoint checkpoint) throws IOException {
+        Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(temporary, checkpoint.segment() + ":" + checkpoint.offset(),
+                StandardCharsets.US_ASCII);
+        Files.move(temporary, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(retryInterval.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.fmanager.service;
+
+import com.example.fmanager.exception.ProcessingFileException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Maintains the monthly partitions of {@code transactions} created by the optional
+ * {@code db/partitioning} migration: months ahead of the current one are created in advance, and
+ * months older than the retention period are written to a gzipped CSV file in the archive
+ * directory, then detached and dropped. Spending rollups are kept, so reports still cover archived
+ * months, and the dropped amounts move into the accounts' opening balances. Archived months are
+ * recorded in {@code archived_months}, which a rollup rebuild leaves untouched.
+ *
+ * <p>Switching partitioning on takes both {@code classpath:db/partitioning} in
+ * {@code spring.flyway.locations} and {@code partitioning.enabled=true}.
+ */
+@Service
+public class TransactionPartitionService {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionPartitionService.class);
+    private static final String PARTITION_PREFIX = "transactions_p";
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final ShardRouting shardRouting;
+    private final TransactionOperations transactionOperations;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Path archiveDirectory;
+
+    public TransactionPartitionService(JdbcTemplate jdbcTemplate,
+                                       DataSource dataSource,
+                                       ShardRouting shardRouting,
+                                       TransactionOperations transactionOperations,
+                                       @Value("${partitioning.enabled:false}") boolean enabled,
+                                       @Value("${partitioning.months-ahead:3}") int monthsAhead,
+                                       @Value("${partitioning.retention-months:24}")
+                                       int retentionMonths,
+                                       @Value("${partitioning.archive-directory:archive}")
+                                       String archiveDirectory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.shardRouting = shardRouting;
+        this.transactionOperations = transactionOperations;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archiveDirectory = Path.of(archiveDirectory);
+    }
+
+    @Scheduled(cron = "${partitioning.cron:0 30 2 * * *}")
+    public void maintain() {
+        if (enabled) {
+            shardRouting.forEachShard(this::maintainCurrentShard);
+        }
+    }
+
+    private void maintainCurrentShard() {
+        if (!isPartitioned()) {
+            logger.warn("partitioning.enabled is set but transactions is not partitioned; "
+                    + "add classpath:db/partitioning to spring.flyway.locations");
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        createPartitionsThrough(current.plusMonths(monthsAhead));
+        archivePartitionsBefore(current.minusMonths(retentionMonths));
+    }
+
+    public boolean isPartitioned() {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT relkind FROM pg_class WHERE oid = to_regclass('transactions')",
+                String.class);
+        return kinds.size() == 1 && "p".equals(kinds.get(0));
+    }
+
+    /**
+     * Creates every missing partition from the current month up to {@code last}.
+     *
+     * @return months for which a partition was created
+     */
+    public List<YearMonth> createPartitionsThrough(YearMonth last) {
+        List<YearMonth> existing = findPartitionMonths(true);
+        List<YearMonth> created = new ArrayList<>();
+        for (YearMonth month = YearMonth.now(); !month.isAfter(last); month = month.plusMonths(1)) {
+            if (existing.contains(month)) {
+                continue;
+            }
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month)
+                    + " PARTITION OF transactions FOR VALUES FROM ('" + month.atDay(1)
+                    + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+            created.add(month);
+        }
+        if (!created.isEmpty()) {
+            logger.info("Created transaction partitions for {}", created);
+        }
+        return created;
+    }
+
+    /**
+     * Archives every partition for a month before {@code cutoff}. A partition left detached but
+     * not dropped is picked up again and finished.
+     *
+     * @return archive files written
+     */
+    public List<Path> archivePartitionsBefore(YearMonth cutoff) {
+        List<Path> archived = new ArrayList<>();
+        for (YearMonth month : findPartitionMonths(false)) {
+            if (month.isBefore(cutoff)) {
+                archived.add(archivePartition(month));
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Copies the partition to its archive file while it is still attached, makes the file and
+     * its directory durable, and only then detaches it, moves its amounts into the opening
+     * balances and drops it in one transaction. Rows written after the copy fail the
+     * transaction, and the month is archived again by the next run.
+     */
+    private Path archivePartition(YearMonth month) {
+        String partition = partitionName(month);
+        boolean attached = findPartitionMonths(true).contains(month);
+        // Every shard has partitions of the same names.
+        Path directory = shardRouting.isSharded()
+                ? archiveDirectory.resolve("shard-" + ShardRouting.currentShard())
+                : archiveDirectory;
+        Path target = directory.resolve(partition + ".csv.gz");
+        Path temporary = directory.resolve(partition + ".csv.gz.tmp");
+        long copied;
+        try {
+            Files.createDirectories(directory);
+            try (Connection connection = dataSource.getConnection();
+                 FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                         StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 GZIPOutputStream out = new GZIPOutputStream(Channels.newOutputStream(file))) {
+                copied = connection.unwrap(PGConnection.class).getCopyAPI().copyOut(
+                        "COPY " + partition + " TO STDOUT WITH (FORMAT csv, HEADER)", out);
+                out.finish();
+                file.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            forceDirectory(directory);
+        } catch (IOException | SQLException e) {
+            throw new ProcessingFileException("Failed to archive partition " + partition
+                    + ": " + e.getMessage());
+        }
+        transactionOperations.executeWithoutResult(status -> {
+            if (attached) {
+                jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + partition);
+            }
+            long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + partition,
+                    Long.class);
+            if (rows != copied) {
+                throw new ProcessingFileException("Partition " + partition + " changed while "
+                        + "it was archived: copied " + copied + " of " + rows + " rows");
+            }
+            jdbcTemplate.update("UPDATE accounts a SET opening_balance = a.opening_balance + "
+                    + "p.total FROM (SELECT account_id, SUM(amount) AS total FROM " + partition
+                    + " GROUP BY account_id) p WHERE a.id = p.account_id");
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            jdbcTemplate.update("INSERT INTO archived_months (year_month, archived_at) "
+                    + "VALUES (?, now()) ON CONFLICT (year_month) DO NOTHING",
+                    month.getYear() * 100 + month.getMonthValue());
+        });
+        logger.info("Archived transactions for {} to {}", month, target);
+        return target;
+    }
+
+    /**
+     * Makes a rename in {@code directory} durable.
+     */
+    private static void forceDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Months that have a partition table. With {@code attachedOnly} unset this also returns
+     * partitions detached but not yet archived.
+     */
+    List<YearMonth> findPartitionMonths(boolean attachedOnly) {
+        String sql = "SELECT c.relname FROM pg_class c "
+                + "JOIN pg_namespace n ON n.oid = c.relnamespace "
+                + "WHERE n.nspname = current_schema() AND c.relkind = 'r' "
+                + "AND c.relname LIKE '" + PARTITION_PREFIX + "%'"
+                + (attachedOnly ? " AND c.relispartition" : "");
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : jdbcTemplate.queryForList(sql, String.class)) {
+            parsePartitionName(name).ifPresent(months::add);
+        }
+        months.sort(null);
+        return months;
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(SUFFIX_FORMAT);
+    }
+
+    static Optional<YearMonth> parsePartitionName(String name) {
+        if (!name.startsWith(PARTITION_PREFIX)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(YearMonth.parse(name.substring(PARTITION_PREFIX.length()),
+                    SUFFIX_FORMAT));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+}
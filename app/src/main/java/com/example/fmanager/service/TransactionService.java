@@ -6,52 +6,100 @@ import static com.example.fmanager.exception.NotFoundMessages.TRANSACTION_NOT_FO
 
 import com.example.fmanager.dto.TransactionCreateDto;
 import com.example.fmanager.dto.TransactionGetDto;
+import com.example.fmanager.dto.TransactionSearchDto;
+import com.example.fmanager.dto.TransactionSearchResultDto;
 import com.example.fmanager.exception.BudgetLimitExceededException;
 import com.example.fmanager.exception.InvalidDataException;
 import com.example.fmanager.exception.NotFoundException;
 import com.example.fmanager.models.Account;
+import com.example.fmanager.models.ArchivedTransaction;
 import com.example.fmanager.models.Budget;
 import com.example.fmanager.models.Category;
 import com.example.fmanager.models.Transaction;
 import com.example.fmanager.repository.AccountRepository;
 import com.example.fmanager.repository.BudgetRepository;
 import com.example.fmanager.repository.CategoryRepository;
+import com.example.fmanager.repository.IdempotencyRecordRepository;
 import com.example.fmanager.repository.TransactionRepository;
+import com.example.fmanager.repository.TransactionSpecifications;
 import jakarta.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 
 @Service
 public class TransactionService {
+    private static final int DELETE_BATCH_SIZE = 1000;
+
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
     private final CategoryRepository categoryRepository;
     private final BudgetRepository budgetRepository;
+    private final CategorizationService categorizationService;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final SpendingRollupService spendingRollupService;
+    private final TransactionArchiveService transactionArchiveService;
     private final InMemoryCache cache;
+    private final ReplicaRouting replicaRouting;
+    private final ShardRouting shardRouting;
+    private final TransactionOperations transactionOperations;
 
     public TransactionService(TransactionRepository transactionsRepository,
                               AccountRepository accountRepository,
                               InMemoryCache cache,
                               CategoryRepository categoryRepository,
-                              BudgetRepository budgetRepository) {
+                              BudgetRepository budgetRepository,
+                              CategorizationService categorizationService,
+                              IdempotencyRecordRepository idempotencyRecordRepository,
+                              SpendingRollupService spendingRollupService,
+                              TransactionArchiveService transactionArchiveService,
+                              ReplicaRouting replicaRouting,
+                              ShardRouting shardRouting,
+                              TransactionOperations transactionOperations) {
         this.accountRepository = accountRepository;
         this.transactionRepository = transactionsRepository;
         this.categoryRepository = categoryRepository;
         this.budgetRepository = budgetRepository;
+        this.categorizationService = categorizationService;
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.spendingRollupService = spendingRollupService;
+        this.transactionArchiveService = transactionArchiveService;
         this.cache = cache;
+        this.replicaRouting = replicaRouting;
+        this.shardRouting = shardRouting;
+        this.transactionOperations = transactionOperations;
     }
 
+    @ReadReplica
     public List<TransactionGetDto> getAllTransactions() {
-        List<Transaction> transactions = transactionRepository.findAll();
-        List<TransactionGetDto> transactionGetDtos = new ArrayList<>();
-        for (Transaction transaction : transactions) {
-            transactionGetDtos.add(TransactionGetDto.convertToDto(transaction));
-        }
-        return transactionGetDtos;
+        return shardRouting.gather(() -> {
+            List<Transaction> transactions = transactionRepository.findAll();
+            List<TransactionGetDto> transactionGetDtos = new ArrayList<>();
+            for (Transaction transaction : transactions) {
+                transactionGetDtos.add(TransactionGetDto.convertToDto(transaction));
+            }
+            return transactionGetDtos;
+        });
     }
 
+    @ReadReplica
     public List<TransactionGetDto> findByClientIdAndCategoryId(int clientId, int categoryId) {
         String cacheKey = "transactions_client_" + clientId + "_category_" + categoryId;
         if (cache.containsKey(cacheKey)) {
@@ -60,16 +108,97 @@ public class TransactionService {
         List<Transaction> transactions = transactionRepository
                 .findAllByClientIdAndCategoryId(clientId, categoryId);
         List<TransactionGetDto> transactionGetDtos = new ArrayList<>();
+        Set<Integer> liveIds = new HashSet<>();
         for (Transaction transaction : transactions) {
             transactionGetDtos.add(TransactionGetDto.convertToDto(transaction));
+            liveIds.add(transaction.getId());
+        }
+        List<ArchivedTransaction> archived = transactionArchiveService
+                .findByClientId(clientId, id -> id == categoryId);
+        if (!archived.isEmpty()) {
+            Map<Integer, String> accountNames = new HashMap<>();
+            for (Account account : accountRepository.findAllByClientId(clientId)) {
+                accountNames.put(account.getId(), account.getName());
+            }
+            String categoryName = categoryRepository.findById(categoryId)
+                    .map(Category::getName).orElse(null);
+            List<TransactionGetDto> archivedDtos = new ArrayList<>();
+            for (ArchivedTransaction transaction : archived) {
+                if (!liveIds.contains(transaction.id())) {
+                    archivedDtos.add(TransactionGetDto.convertToDto(transaction,
+                            accountNames.get(transaction.accountId()), categoryName));
+                }
+            }
+            transactionGetDtos.addAll(0, archivedDtos);
         }
         cache.put(cacheKey, transactionGetDtos);
         return transactionGetDtos;
     }
 
+    @ReadReplica
+    public TransactionSearchResultDto searchTransactions(TransactionSearchDto criteria) {
+        if (criteria.getFrom() != null && criteria.getTo() != null
+                && !criteria.getFrom().isBefore(criteria.getTo())) {
+            throw new InvalidDataException("'from' must be before 'to'");
+        }
+        LocalDateTime lastDate = null;
+        Integer lastId = null;
+        if (criteria.getCursor() != null && !criteria.getCursor().isBlank()) {
+            try {
+                String[] cursor = new String(Base64.getUrlDecoder().decode(criteria.getCursor()),
+                        StandardCharsets.UTF_8).split("\\|");
+                lastDate = LocalDateTime.parse(cursor[0]);
+                lastId = Integer.parseInt(cursor[1]);
+            } catch (IllegalArgumentException | DateTimeParseException
+                     | ArrayIndexOutOfBoundsException e) {
+                throw new InvalidDataException("Invalid search cursor");
+            }
+        }
+        Specification<Transaction> specification = Specification
+                .where(TransactionSpecifications.fetchAccountAndCategory())
+                .and(TransactionSpecifications.dated())
+                .and(TransactionSpecifications.ofClient(criteria.getClientId()))
+                .and(TransactionSpecifications.ofAccount(criteria.getAccountId()))
+                .and(TransactionSpecifications.inCategories(criteria.getCategoryIds()))
+                .and(TransactionSpecifications.dateFrom(criteria.getFrom()))
+                .and(TransactionSpecifications.dateBefore(criteria.getTo()))
+                .and(TransactionSpecifications.amountAtLeast(criteria.getMinAmount()))
+                .and(TransactionSpecifications.amountAtMost(criteria.getMaxAmount()))
+                .and(TransactionSpecifications.descriptionContains(criteria.getDescription()))
+                .and(TransactionSpecifications.after(lastDate, lastId));
+        Sort sort = Sort.by(Sort.Order.desc("date"), Sort.Order.desc("id"));
+        // One row more than requested tells whether another page exists without a count query.
+        Supplier<List<TransactionGetDto>> page = () -> transactionRepository.findBy(
+                specification, query -> query.sortBy(sort).limit(criteria.getLimit() + 1).all())
+                .stream().map(TransactionGetDto::convertToDto).toList();
+        List<TransactionGetDto> transactions;
+        if (!shardRouting.isSharded() || criteria.getClientId() != null
+                || criteria.getAccountId() != null) {
+            transactions = page.get();
+        } else {
+            // Without a client the page is merged from every shard's first rows past the cursor.
+            transactions = shardRouting.gather(page).stream()
+                    .sorted(Comparator.comparing(TransactionGetDto::getDate)
+                            .thenComparing(TransactionGetDto::getId).reversed())
+                    .toList();
+        }
+
+        boolean hasMore = transactions.size() > criteria.getLimit();
+        List<TransactionGetDto> items = new ArrayList<>(hasMore
+                ? transactions.subList(0, criteria.getLimit()) : transactions);
+        String nextCursor = null;
+        if (hasMore) {
+            TransactionGetDto last = items.get(items.size() - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getDate() + "|" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+        return new TransactionSearchResultDto(items, nextCursor);
+    }
+
     public void clearCacheForClientAndCategory(int clientId, int categoryId) {
         String cacheKey = "transactions_client_" + clientId + "_category_" + categoryId;
         cache.remove(cacheKey);
+        replicaRouting.recordWrite(clientId);
     }
 
     public Optional<TransactionGetDto> getTransactionById(int id) {
@@ -88,70 +217,221 @@ public class TransactionService {
         Account account = accountRepository.findById(transactionCreateDto.getAccountId())
                 .orElseThrow(() -> new NotFoundException(ACCOUNT_NOT_FOUND_MESSAGE));
 
-        // 2. Проверяем баланс счета (для расходных операций)
+        // 2. Проверяем баланс счета (для расходных операций); окончательно решает addToBalance
         if (account.getBalance() + transactionCreateDto.getAmount() < 0) {
             throw new InvalidDataException("Insufficient funds in the account");
         }
 
         transaction.setAmount(transactionCreateDto.getAmount());
-        account.setBalance(account.getBalance() + transaction.getAmount());
-        accountRepository.save(account);
         transaction.setAccount(account);
 
-        Category category = categoryRepository.findById(transactionCreateDto.getCategoryId())
+        int categoryId = resolveCategoryId(transactionCreateDto, account);
+        Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new NotFoundException(CATEGORY_NOT_FOUND_MESSAGE));
         transaction.setCategory(category);
 
-        // 3. Для расходов: пробуем обновить бюджеты (если они есть)
+        // 3. Для расходов: проверяем бюджеты (если они есть)
+        List<Budget> budgets = List.of();
         if (transaction.getAmount() < 0) {
-            List<Budget> budgets = budgetRepository.findByCategoryIdAndClientId(
+            budgets = budgetRepository.findByCategoryIdAndClientId(
                     category.getId(),
                     account.getClient().getId()
             );
 
             // Не кидаем ошибку если бюджетов нет - просто пропускаем
             for (Budget budget : budgets) {
-                double newAvailableSum = budget.getAvailableSum() + transaction.getAmount();
-
-                if (newAvailableSum >= 0) {
-                    budget.setAvailableSum(newAvailableSum);
-                    budgetRepository.save(budget);
-                } else {
-                    throw new BudgetLimitExceededException(
-                    String.format("Budget limit '%s' exceeded! Available: %.2f, required: %.2f",
-                                    budget.getCategory().getName(),
-                                    budget.getAvailableSum(),
-                                    Math.abs(transaction.getAmount()))
-                    );
+                if (budget.getAvailableSum() + transaction.getAmount() < 0) {
+                    throw budgetLimitExceeded(budget, budget.getAvailableSum(),
+                            transaction.getAmount());
                 }
             }
         }
 
-        // 4. Сохраняем транзакцию
+        // 4. Rollup bucket, the account row, then budgets by ascending id
+        spendingRollupService.recordTransaction(transaction);
+        addToBalance(account.getId(), transaction.getAmount());
+        budgets.stream().sorted(Comparator.comparingInt(Budget::getId))
+                .forEach(budget -> addToAvailableSum(budget, transaction.getAmount()));
+
+        // 5. Сохраняем транзакцию
         Transaction savedTransaction = transactionRepository.save(transaction);
         clearCacheForClientAndCategory(account.getClient().getId(), category.getId());
 
         return savedTransaction;
     }
 
+    /**
+     * Creates the transaction and records the idempotency key of its account in the same
+     * database transaction.
+     */
+    @Transactional
+    public Transaction createTransaction(TransactionCreateDto transactionCreateDto,
+                                         String idempotencyKey, String requestHash) {
+        Transaction savedTransaction = createTransaction(transactionCreateDto);
+        idempotencyRecordRepository.insert(transactionCreateDto.getAccountId(), idempotencyKey,
+                requestHash, savedTransaction.getId());
+        return savedTransaction;
+    }
+
+    @Transactional
+    public List<TransactionGetDto> createTransactions(
+            List<TransactionCreateDto> transactionCreateDtos) {
+        List<TransactionGetDto> transactionGetDtos = new ArrayList<>();
+        for (TransactionCreateDto transactionCreateDto : transactionCreateDtos) {
+            transactionGetDtos.add(TransactionGetDto.convertToDto(
+                    createTransaction(transactionCreateDto)));
+        }
+        return transactionGetDtos;
+    }
+
+    /**
+     * Writes a micro-batch of postings in one database transaction. Items are checked in order
+     * against running account balances and budget sums; an item that fails validation is
+     * reported and skipped without affecting the rest. Every touched account and budget is
+     * and budget changed once with its aggregated change. Should a concurrent write leave an
+     * account without the funds, or a budget without the room, for its change, the whole batch
+     * fails.
+     */
+    @Transactional
+    public List<BatchItemResult> createTransactionBatch(
+            List<TransactionCreateDto> transactionCreateDtos) {
+        Set<Integer> accountIds = new LinkedHashSet<>();
+        for (TransactionCreateDto transactionCreateDto : transactionCreateDtos) {
+            accountIds.add(transactionCreateDto.getAccountId());
+        }
+        Map<Integer, Account> accounts = new HashMap<>();
+        for (Account account : accountRepository.findAllById(accountIds)) {
+            accounts.put(account.getId(), account);
+        }
+        Map<Integer, Category> categories = new HashMap<>();
+        Map<String, List<Budget>> budgetsByCategoryAndClient = new HashMap<>();
+        Map<Integer, Budget> touchedBudgets = new HashMap<>();
+        Map<Integer, Double> availableSums = new HashMap<>();
+        Map<Integer, Double> budgetChanges = new TreeMap<>();
+        Map<Integer, Double> balances = new HashMap<>();
+        Map<Integer, Double> balanceChanges = new TreeMap<>();
+        List<Transaction> pending = new ArrayList<>();
+        List<BatchItemResult> results = new ArrayList<>();
+
+        for (TransactionCreateDto transactionCreateDto : transactionCreateDtos) {
+            try {
+                Account account = accounts.get(transactionCreateDto.getAccountId());
+                if (account == null) {
+                    throw new NotFoundException(ACCOUNT_NOT_FOUND_MESSAGE);
+                }
+                double amount = transactionCreateDto.getAmount();
+                double balance = balances.getOrDefault(account.getId(), account.getBalance());
+                if (balance + amount < 0) {
+                    throw new InvalidDataException("Insufficient funds in the account");
+                }
+                int categoryId = resolveCategoryId(transactionCreateDto, account);
+                Category category = categories.get(categoryId);
+                if (category == null) {
+                    category = categoryRepository.findById(categoryId)
+                            .orElseThrow(() -> new NotFoundException(CATEGORY_NOT_FOUND_MESSAGE));
+                    categories.put(categoryId, category);
+                }
+                int clientId = account.getClient().getId();
+                List<Budget> budgets = List.of();
+                if (amount < 0) {
+                    budgets = budgetsByCategoryAndClient.computeIfAbsent(
+                            categoryId + "_" + clientId,
+                            key -> budgetRepository.findByCategoryIdAndClientId(
+                                    categoryId, clientId));
+                    for (Budget budget : budgets) {
+                        double available = availableSums.getOrDefault(budget.getId(),
+                                budget.getAvailableSum());
+                        if (available + amount < 0) {
+                            throw budgetLimitExceeded(budget, available, amount);
+                        }
+                    }
+                }
+
+                balances.put(account.getId(), balance + amount);
+                balanceChanges.merge(account.getId(), amount, Double::sum);
+                for (Budget budget : budgets) {
+                    availableSums.put(budget.getId(), availableSums.getOrDefault(
+                            budget.getId(), budget.getAvailableSum()) + amount);
+                    budgetChanges.merge(budget.getId(), amount, Double::sum);
+                    touchedBudgets.put(budget.getId(), budget);
+                }
+                Transaction transaction = new Transaction();
+                transaction.setDescription(transactionCreateDto.getDescription());
+                transaction.setDate(transactionCreateDto.getDate());
+                transaction.setAmount(amount);
+                transaction.setAccount(account);
+                transaction.setCategory(category);
+                pending.add(transaction);
+                results.add(BatchItemResult.success(transaction));
+            } catch (RuntimeException e) {
+                results.add(BatchItemResult.failure(e));
+            }
+        }
+
+        // Rollup buckets, account rows, then budgets by ascending id, as every writer locks them
+        spendingRollupService.recordTransactions(pending);
+        balanceChanges.forEach(this::addToBalance);
+        budgetChanges.forEach((id, amount) -> addToAvailableSum(touchedBudgets.get(id), amount));
+        transactionRepository.saveAll(pending);
+        for (Transaction transaction : pending) {
+            clearCacheForClientAndCategory(transaction.getAccount().getClient().getId(),
+                    transaction.getCategory().getId());
+        }
+        return results;
+    }
+
+    /**
+     * Changes the balance in one conditional statement, so a concurrent posting or transfer
+     * cannot be lost between reading the balance and writing it back.
+     */
+    private void addToBalance(int accountId, double amount) {
+        if (accountRepository.addToBalance(accountId, amount) == 0) {
+            throw new InvalidDataException("Insufficient funds in the account");
+        }
+    }
+
+    private void addToAvailableSum(Budget budget, double amount) {
+        if (budgetRepository.addToAvailableSum(budget.getId(), amount) == 0) {
+            throw budgetLimitExceeded(budget, budget.getAvailableSum(), amount);
+        }
+    }
+
+    private static BudgetLimitExceededException budgetLimitExceeded(Budget budget,
+                                                                    double available,
+                                                                    double amount) {
+        return new BudgetLimitExceededException(String.format(
+                "Budget limit '%s' exceeded! Available: %.2f, required: %.2f",
+                budget.getCategory().getName(), available, Math.abs(amount)));
+    }
+
+    private int resolveCategoryId(TransactionCreateDto transactionCreateDto, Account account) {
+        if (transactionCreateDto.getCategoryId() != null) {
+            return transactionCreateDto.getCategoryId();
+        }
+        return categorizationService
+                .categorize(account.getClient().getId(), transactionCreateDto.getDescription())
+                .orElseThrow(() -> new InvalidDataException(
+                        "No category ID given and no categorization rule matches"));
+    }
+
     @Transactional
     public TransactionGetDto updateTransaction(int id, TransactionCreateDto transactionDetails) {
         Transaction transaction = transactionRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException(TRANSACTION_NOT_FOUND_MESSAGE));
-        transaction.setDescription(transactionDetails.getDescription());
-        transaction.setDate(transactionDetails.getDate());
         Account account = accountRepository.findById(transaction.getAccount().getId())
                 .orElseThrow(() -> new IllegalArgumentException(ACCOUNT_NOT_FOUND_MESSAGE));
         double amountDifference = transactionDetails.getAmount() - transaction.getAmount();
-        if (account.getBalance() + amountDifference < 0) {
+        spendingRollupService.updateTransaction(transaction, () -> {
+            transaction.setDescription(transactionDetails.getDescription());
+            transaction.setDate(transactionDetails.getDate());
+            transaction.setAmount(transactionDetails.getAmount());
+        });
+        if (accountRepository.addToBalance(account.getId(), amountDifference) == 0) {
             throw new InvalidDataException(
                     "Insufficient funds: transaction update would result in negative balance"
             );
         }
-        transaction.setAmount(transactionDetails.getAmount());
         Transaction savedTransaction = transactionRepository.save(transaction);
-        account.setBalance(account.getBalance() + amountDifference);
-        accountRepository.save(account);
         clearCacheForClientAndCategory(account.getClient().getId(),
                 savedTransaction.getCategory().getId());
         return TransactionGetDto.convertToDto(savedTransaction);
@@ -165,6 +445,42 @@ public class TransactionService {
                 .orElseThrow(() -> new IllegalArgumentException(ACCOUNT_NOT_FOUND_MESSAGE));
         clearCacheForClientAndCategory(account.getClient().getId(),
                 transaction.getCategory().getId());
+        spendingRollupService.revertTransaction(transaction);
         transactionRepository.delete(transaction);
     }
+
+    /**
+     * Deletes the transactions of the client's given accounts with their idempotency keys and
+     * spending rollups. Transactions are deleted by id in batches of {@value #DELETE_BATCH_SIZE},
+     * each committed on its own unless the caller already runs a transaction, so a long history
+     * is neither loaded into memory nor kept locked until the end.
+     *
+     * @return number of deleted transactions
+     */
+    public int deleteAllOfAccounts(int clientId, List<Integer> accountIds) {
+        if (accountIds.isEmpty()) {
+            return 0;
+        }
+        List<Integer> categoryIds = categoryRepository.findCategoryIdsByClientId(clientId);
+        int deleted = 0;
+        List<Integer> batch;
+        do {
+            batch = transactionRepository.findIdsByAccountIdIn(accountIds,
+                    Limit.of(DELETE_BATCH_SIZE));
+            if (!batch.isEmpty()) {
+                List<Integer> ids = batch;
+                transactionOperations.executeWithoutResult(status -> {
+                    idempotencyRecordRepository.deleteAllByTransactionIdIn(ids);
+                    transactionRepository.deleteAllByIdInBatch(ids);
+                });
+                deleted += batch.size();
+            }
+        } while (batch.size() == DELETE_BATCH_SIZE);
+        transactionOperations.executeWithoutResult(status ->
+                spendingRollupService.deleteAllOfAccounts(accountIds));
+        for (Integer categoryId : categoryIds) {
+            clearCacheForClientAndCategory(clientId, categoryId);
+        }
+        return deleted;
+    }
 }
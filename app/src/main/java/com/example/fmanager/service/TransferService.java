@@ -0,0 +1,112 @@
+package com.example.fmanager.service;
+
+import static com.example.fmanager.exception.NotFoundMessages.ACCOUNT_NOT_FOUND_MESSAGE;
+import static com.example.fmanager.exception.NotFoundMessages.CATEGORY_NOT_FOUND_MESSAGE;
+
+import com.example.fmanager.dto.TransactionGetDto;
+import com.example.fmanager.dto.TransferCreateDto;
+import com.example.fmanager.dto.TransferGetDto;
+import com.example.fmanager.exception.InvalidDataException;
+import com.example.fmanager.exception.NotFoundException;
+import com.example.fmanager.models.Account;
+import com.example.fmanager.models.Category;
+import com.example.fmanager.models.Transaction;
+import com.example.fmanager.repository.AccountRepository;
+import com.example.fmanager.repository.CategoryRepository;
+import com.example.fmanager.repository.TransactionRepository;
+import jakarta.transaction.Transactional;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Service;
+
+/**
+ * Moves money between two accounts in one database transaction: a debit on the source and a
+ * credit on the target. Transfers do not count against budgets.
+ *
+ * <p>Locks are taken in the order TransactionService uses for postings, batches and edits:
+ * spending rollup buckets first, then account rows by ascending id. Two transfers in opposite
+ * directions therefore queue on the same row instead of deadlocking. Balances change through
+ * conditional update statements, so the funds check and the debit cannot be separated by a
+ * concurrent write. Account edits lock the single account row they rewrite.
+ */
+@Service
+public class TransferService {
+    private final AccountRepository accountRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionRepository transactionRepository;
+    private final SpendingRollupService spendingRollupService;
+    private final AccountService accountService;
+    private final TransactionService transactionService;
+
+    public TransferService(AccountRepository accountRepository,
+                           CategoryRepository categoryRepository,
+                           TransactionRepository transactionRepository,
+                           SpendingRollupService spendingRollupService,
+                           AccountService accountService,
+                           TransactionService transactionService) {
+        this.accountRepository = accountRepository;
+        this.categoryRepository = categoryRepository;
+        this.transactionRepository = transactionRepository;
+        this.spendingRollupService = spendingRollupService;
+        this.accountService = accountService;
+        this.transactionService = transactionService;
+    }
+
+    @Transactional
+    public TransferGetDto transfer(TransferCreateDto transferCreateDto) {
+        int fromId = transferCreateDto.getFromAccountId();
+        int toId = transferCreateDto.getToAccountId();
+        if (fromId == toId) {
+            throw new InvalidDataException("Source and target account must differ");
+        }
+        Map<Integer, Account> accounts = new HashMap<>();
+        for (Account account : accountRepository.findAllById(List.of(fromId, toId))) {
+            accounts.put(account.getId(), account);
+        }
+        Account from = accounts.get(fromId);
+        Account to = accounts.get(toId);
+        if (from == null || to == null) {
+            throw new NotFoundException(ACCOUNT_NOT_FOUND_MESSAGE);
+        }
+        Category category = categoryRepository.findById(transferCreateDto.getCategoryId())
+                .orElseThrow(() -> new NotFoundException(CATEGORY_NOT_FOUND_MESSAGE));
+
+        double amount = transferCreateDto.getAmount();
+        String description = transferCreateDto.getDescription();
+        Transaction debit = transaction(from, category, -amount, description != null
+                ? description : "Transfer to account " + toId, transferCreateDto);
+        Transaction credit = transaction(to, category, amount, description != null
+                ? description : "Transfer from account " + fromId, transferCreateDto);
+
+        spendingRollupService.recordTransactions(List.of(debit, credit));
+        for (Account account : List.of(from, to).stream()
+                .sorted(Comparator.comparingInt(Account::getId)).toList()) {
+            double change = account == from ? -amount : amount;
+            if (accountRepository.addToBalance(account.getId(), change) == 0) {
+                throw new InvalidDataException("Insufficient funds in the account");
+            }
+        }
+        transactionRepository.saveAll(List.of(debit, credit));
+
+        for (Account account : List.of(from, to)) {
+            int clientId = account.getClient().getId();
+            accountService.clearCacheForClient(clientId);
+            transactionService.clearCacheForClientAndCategory(clientId, category.getId());
+        }
+        return new TransferGetDto(TransactionGetDto.convertToDto(debit),
+                TransactionGetDto.convertToDto(credit));
+    }
+
+    private Transaction transaction(Account account, Category category, double amount,
+                                    String description, TransferCreateDto transferCreateDto) {
+        Transaction transaction = new Transaction();
+        transaction.setAccount(account);
+        transaction.setCategory(category);
+        transaction.setAmount(amount);
+        transaction.setDescription(description);
+        transaction.setDate(transferCreateDto.getDate());
+        return transaction;
+    }
+}
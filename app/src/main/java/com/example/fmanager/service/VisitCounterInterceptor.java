@@ -5,23 +5,50 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
 
+/**
+ * Counts and times each request under the pattern of the handler that matched it, so
+ * {@code /transactions/1} and {@code /transactions/2} share {@code /transactions/{id}}.
+ */
 @Component
 public class VisitCounterInterceptor implements HandlerInterceptor {
+    static final String UNMATCHED = "unmatched";
+    private static final String START_ATTRIBUTE =
+            VisitCounterInterceptor.class.getName() + ".start";
 
     private final VisitCounterService visitCounterService;
+    private final RequestLatencyService requestLatencyService;
 
     @Autowired
-    public VisitCounterInterceptor(VisitCounterService visitCounterService) {
+    public VisitCounterInterceptor(VisitCounterService visitCounterService,
+                                   RequestLatencyService requestLatencyService) {
         this.visitCounterService = visitCounterService;
+        this.requestLatencyService = requestLatencyService;
     }
 
     @Override
     public boolean preHandle(HttpServletRequest request,
                              HttpServletResponse response,
                              Object handler) {
-        String url = request.getRequestURI();
-        visitCounterService.incrementVisitCount(url);
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        visitCounterService.incrementVisitCount(route(request));
         return true;
     }
-}
\ No newline at end of file
+
+    @Override
+    public void afterCompletion(HttpServletRequest request,
+                                HttpServletResponse response,
+                                Object handler,
+                                Exception ex) {
+        if (request.getAttribute(START_ATTRIBUTE) instanceof Long start) {
+            requestLatencyService.recordLatency(route(request), response.getStatus(),
+                    System.nanoTime() - start);
+        }
+    }
+
+    private static String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern instanceof String url ? url : UNMATCHED;
+    }
+}
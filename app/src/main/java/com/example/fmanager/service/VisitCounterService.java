@@ -1,27 +1,137 @@
 package com.example.fmanager.service;
 
+import com.example.fmanager.dto.RequestRateDto;
+import com.example.fmanager.dto.RequestSeriesDto;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+/**
+ * Counts requests per route pattern such as {@code /transactions/{id}}: a lifetime total and a
+ * {@link RequestRateWindow} of recent load. A known key costs one lock-free map lookup, one
+ * {@link LongAdder} increment and two compare-and-sets. There are at most
+ * {@code visits.max-keys} keys. Requests past the cap are counted under {@link #OTHER}.
+ */
 @Service
 public class VisitCounterService {
+    public static final String OTHER = "other";
 
-    private final Map<String, Integer> visitCounts = new ConcurrentHashMap<>();
+    private final Map<String, Endpoint> visitCounts = new ConcurrentHashMap<>();
+    private final Endpoint other = new Endpoint();
+    private final int maxKeys;
+    private final LongSupplier clock;
+
+    @Autowired
+    public VisitCounterService(@Value("${visits.max-keys:500}") int maxKeys) {
+        this(maxKeys, System::currentTimeMillis);
+    }
+
+    VisitCounterService(int maxKeys, LongSupplier clock) {
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+    }
 
     public void incrementVisitCount(String url) {
-        visitCounts.compute(url, (key, value) -> value == null ? 1 : value + 1);
+        Endpoint endpoint = visitCounts.get(url);
+        if (endpoint == null) {
+            endpoint = register(url);
+        }
+        endpoint.total.increment();
+        endpoint.window.increment(clock.getAsLong());
+    }
+
+    /**
+     * Adds counts persisted by an earlier run.
+     *
+     * @return the key the counts were added to, {@link #OTHER} past the cap
+     */
+    public String restoreVisitCount(String url, long count) {
+        Endpoint endpoint = find(url);
+        if (endpoint == null) {
+            endpoint = register(url);
+        }
+        endpoint.total.add(count);
+        return endpoint == other ? OTHER : url;
+    }
+
+    public long getVisitCount(String url) {
+        Endpoint endpoint = find(url);
+        return endpoint == null ? 0 : endpoint.total.sum();
+    }
+
+    public long getTotalVisitCount() {
+        long total = other.total.sum();
+        for (Endpoint endpoint : visitCounts.values()) {
+            total += endpoint.total.sum();
+        }
+        return total;
+    }
+
+    public Map<String, Long> getAllVisitCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        visitCounts.forEach((url, endpoint) -> counts.put(url, endpoint.total.sum()));
+        long overflow = other.total.sum();
+        if (overflow > 0) {
+            counts.put(OTHER, overflow);
+        }
+        return counts;
+    }
+
+    /**
+     * Average rates of every endpoint with requests in the last hour.
+     */
+    public Map<String, RequestRateDto> getRequestRates() {
+        long now = clock.getAsLong();
+        Map<String, RequestRateDto> rates = new TreeMap<>();
+        visitCounts.forEach((url, endpoint) -> addRate(rates, url, endpoint, now));
+        addRate(rates, OTHER, other, now);
+        return rates;
+    }
+
+    public RequestSeriesDto getRequestSeries(String url) {
+        long now = clock.getAsLong();
+        Endpoint endpoint = find(url);
+        RequestRateWindow window = endpoint == null ? new RequestRateWindow() : endpoint.window;
+        return new RequestSeriesDto(url, window.perSecond(now), window.perMinute(now));
+    }
+
+    private void addRate(Map<String, RequestRateDto> rates, String url, Endpoint endpoint,
+                         long now) {
+        long lastMinute = sum(endpoint.window.perSecond(now));
+        long lastHour = sum(endpoint.window.perMinute(now));
+        if (lastHour > 0) {
+            rates.put(url, new RequestRateDto(lastMinute, lastHour,
+                    (double) lastMinute / RequestRateWindow.SLOTS,
+                    (double) lastHour / RequestRateWindow.SLOTS));
+        }
+    }
+
+    private Endpoint find(String url) {
+        return OTHER.equals(url) ? other : visitCounts.get(url);
     }
 
-    public int getVisitCount(String url) {
-        return visitCounts.getOrDefault(url, 0);
+    private Endpoint register(String url) {
+        if (visitCounts.size() >= maxKeys) {
+            return other;
+        }
+        return visitCounts.computeIfAbsent(url, key -> new Endpoint());
     }
 
-    public int getTotalVisitCount() {
-        return visitCounts.values().stream().mapToInt(Integer::intValue).sum();
+    private static long sum(long[] counts) {
+        long sum = 0;
+        for (long count : counts) {
+            sum += count;
+        }
+        return sum;
     }
 
-    public Map<String, Integer> getAllVisitCounts() {
-        return new ConcurrentHashMap<>(visitCounts);
+    private static final class Endpoint {
+        private final LongAdder total = new LongAdder();
+        private final RequestRateWindow window = new RequestRateWindow();
     }
-}
\ No newline at end of file
+}
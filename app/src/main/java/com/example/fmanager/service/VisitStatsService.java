@@ -0,0 +1,165 @@
+package com.example.fmanager.service;
+
+import com.example.fmanager.exception.ProcessingFileException;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Persists the in-memory visit counts. Each instance owns one row per key in
+ * {@code visit_counts}. Every {@code visits.flush-interval} the counts added since the last
+ * flush are written in one batch. At startup this instance's rows are loaded back. Requests
+ * never touch the table. Cluster-wide totals are the sum over all instances, so they lag by up
+ * to one flush interval.
+ *
+ * <p>An instance is identified by {@code visits.instance-id}. Two instances sharing an id would
+ * each restore the other's counts, so a host name is not used. Without the property, a random
+ * id is generated once and kept in {@code visits.instance-id-file}.
+ */
+@Service
+public class VisitStatsService {
+    private static final Logger logger = LoggerFactory.getLogger(VisitStatsService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouting shardRouting;
+    private final TransactionOperations transactionOperations;
+    private final VisitCounterService visitCounterService;
+    private final boolean enabled;
+    private final String instanceId;
+    private final Map<String, Long> flushed = new HashMap<>();
+    private boolean restored;
+
+    public VisitStatsService(JdbcTemplate jdbcTemplate,
+                             ShardRouting shardRouting,
+                             TransactionOperations transactionOperations,
+                             VisitCounterService visitCounterService,
+                             @Value("${visits.persistence.enabled:true}") boolean enabled,
+                             @Value("${visits.instance-id:}") String instanceId,
+                             @Value("${visits.instance-id-file:visits-instance-id}")
+                             String instanceIdFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouting = shardRouting;
+        this.transactionOperations = transactionOperations;
+        this.visitCounterService = visitCounterService;
+        this.enabled = enabled;
+        this.instanceId = !enabled || !instanceId.isBlank() ? instanceId
+                : loadOrCreateInstanceId(Path.of(instanceIdFile));
+    }
+
+    String getInstanceId() {
+        return instanceId;
+    }
+
+    private static String loadOrCreateInstanceId(Path file) {
+        try {
+            if (Files.exists(file)) {
+                String stored = Files.readString(file, StandardCharsets.US_ASCII).trim();
+                if (!stored.isEmpty()) {
+                    return stored;
+                }
+            }
+            String generated = UUID.randomUUID().toString();
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(temporary, generated, StandardCharsets.US_ASCII);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Generated visit stats instance id {} in {}", generated, file);
+            return generated;
+        } catch (IOException e) {
+            throw new ProcessingFileException("Failed to read or create the instance id file "
+                    + file + "; set visits.instance-id instead: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the counts of this instance. Flushing waits for it, so counts taken before the
+     * load are not written twice.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void restore() {
+        if (!enabled || restored) {
+            return;
+        }
+        List<Map<String, Object>> rows = shardRouting.onShard(0, () -> jdbcTemplate
+                .queryForList("SELECT url, visits FROM visit_counts WHERE instance_id = ?",
+                        instanceId));
+        for (Map<String, Object> row : rows) {
+            long visits = ((Number) row.get("visits")).longValue();
+            String key = visitCounterService.restoreVisitCount((String) row.get("url"), visits);
+            flushed.merge(key, visits, Long::sum);
+        }
+        restored = true;
+        logger.info("Restored visit counts of {} endpoints for instance {}", rows.size(),
+                instanceId);
+    }
+
+    @Scheduled(fixedDelayString = "${visits.flush-interval:PT1M}")
+    @PreDestroy
+    public synchronized void flush() {
+        if (!enabled || !restored) {
+            return;
+        }
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        visitCounterService.getAllVisitCounts().forEach((url, count) -> {
+            long delta = count - flushed.getOrDefault(url, 0L);
+            if (delta > 0) {
+                deltas.put(url, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            shardRouting.onShard(0, () -> {
+                transactionOperations.executeWithoutResult(status -> write(deltas));
+                return null;
+            });
+            deltas.forEach((url, delta) -> flushed.merge(url, delta, Long::sum));
+        } catch (DataAccessException e) {
+            logger.warn("Failed to flush visit counts, retrying later: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Visits per key summed over every instance.
+     */
+    public Map<String, Long> getClusterVisitCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        shardRouting.onShard(0, () -> jdbcTemplate.queryForList(
+                "SELECT url, SUM(visits) AS visits FROM visit_counts GROUP BY url ORDER BY url"))
+                .forEach(row -> counts.put((String) row.get("url"),
+                        ((Number) row.get("visits")).longValue()));
+        return counts;
+    }
+
+    /**
+     * Adds the deltas to this instance's rows, creating the missing ones.
+     */
+    private void write(Map<String, Long> deltas) {
+        List<Object[]> rows = new ArrayList<>();
+        deltas.forEach((url, delta) -> rows.add(new Object[] {instanceId, url, delta}));
+        jdbcTemplate.batchUpdate("INSERT INTO visit_counts (instance_id, url, visits, updated_at) "
+                + "VALUES (?, ?, ?, CURRENT_TIMESTAMP) ON CONFLICT (instance_id, url) DO UPDATE "
+                + "SET visits = visit_counts.visits + EXCLUDED.visits, "
+                + "updated_at = EXCLUDED.updated_at", rows);
+    }
+}
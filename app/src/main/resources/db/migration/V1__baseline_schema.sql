@@ -0,0 +1,111 @@
+-- Schema as previously generated by Hibernate (ddl-auto=update). IF NOT EXISTS lets databases
+-- created that way be adopted with baseline-on-migrate without touching existing tables.
+
+CREATE TABLE IF NOT EXISTS clients (
+    id         INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    username   VARCHAR(255) NOT NULL,
+    email      VARCHAR(255) NOT NULL,
+    password   VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    CONSTRAINT pk_clients PRIMARY KEY (id),
+    CONSTRAINT uk_clients_username UNIQUE (username),
+    CONSTRAINT uk_clients_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS categories (
+    id   INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    name VARCHAR(255),
+    CONSTRAINT pk_categories PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS accounts (
+    id         INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    name       VARCHAR(255),
+    balance    DOUBLE PRECISION NOT NULL,
+    client_id  INTEGER          NOT NULL,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    CONSTRAINT pk_accounts PRIMARY KEY (id),
+    CONSTRAINT fk_accounts_client FOREIGN KEY (client_id) REFERENCES clients (id)
+);
+
+CREATE TABLE IF NOT EXISTS budgets (
+    id            INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    category_id   INTEGER          NOT NULL,
+    limitation    DOUBLE PRECISION NOT NULL,
+    available_sum DOUBLE PRECISION NOT NULL,
+    period        INTEGER          NOT NULL,
+    created_at    TIMESTAMP(6),
+    updated_at    TIMESTAMP(6),
+    CONSTRAINT pk_budgets PRIMARY KEY (id),
+    CONSTRAINT fk_budgets_category FOREIGN KEY (category_id) REFERENCES categories (id)
+);
+
+CREATE TABLE IF NOT EXISTS client_budgets (
+    budget_id INTEGER NOT NULL,
+    client_id INTEGER NOT NULL,
+    CONSTRAINT pk_client_budgets PRIMARY KEY (budget_id, client_id),
+    CONSTRAINT fk_client_budgets_budget FOREIGN KEY (budget_id) REFERENCES budgets (id),
+    CONSTRAINT fk_client_budgets_client FOREIGN KEY (client_id) REFERENCES clients (id)
+);
+
+CREATE TABLE IF NOT EXISTS goals (
+    id             INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    name           VARCHAR(255),
+    target_amount  DOUBLE PRECISION NOT NULL,
+    current_amount DOUBLE PRECISION NOT NULL,
+    start_date     DATE,
+    end_date       DATE,
+    client_id      INTEGER          NOT NULL,
+    CONSTRAINT pk_goals PRIMARY KEY (id),
+    CONSTRAINT fk_goals_client FOREIGN KEY (client_id) REFERENCES clients (id)
+);
+
+CREATE TABLE IF NOT EXISTS transactions (
+    id          INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    description VARCHAR(255),
+    amount      DOUBLE PRECISION NOT NULL,
+    account_id  INTEGER          NOT NULL,
+    client_id   INTEGER,
+    category_id INTEGER          NOT NULL,
+    date        TIMESTAMP(6),
+    created_at  TIMESTAMP(6),
+    CONSTRAINT pk_transactions PRIMARY KEY (id),
+    CONSTRAINT fk_transactions_account FOREIGN KEY (account_id) REFERENCES accounts (id),
+    CONSTRAINT fk_transactions_category FOREIGN KEY (category_id) REFERENCES categories (id)
+);
+
+CREATE TABLE IF NOT EXISTS categorization_rules (
+    id          INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    pattern     VARCHAR(255) NOT NULL,
+    client_id   INTEGER      NOT NULL,
+    category_id INTEGER      NOT NULL,
+    created_at  TIMESTAMP(6),
+    CONSTRAINT pk_categorization_rules PRIMARY KEY (id),
+    CONSTRAINT fk_categorization_rules_client FOREIGN KEY (client_id) REFERENCES clients (id),
+    CONSTRAINT fk_categorization_rules_category
+        FOREIGN KEY (category_id) REFERENCES categories (id)
+);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(255) NOT NULL,
+    transaction_id  INTEGER      NOT NULL,
+    created_at      TIMESTAMP(6),
+    CONSTRAINT pk_idempotency_keys PRIMARY KEY (idempotency_key)
+);
+
+CREATE TABLE IF NOT EXISTS spending_rollups (
+    id                INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    client_id         INTEGER          NOT NULL,
+    year_month        INTEGER          NOT NULL,
+    category_id       INTEGER          NOT NULL,
+    account_id        INTEGER          NOT NULL,
+    total_amount      DOUBLE PRECISION NOT NULL,
+    transaction_count BIGINT           NOT NULL,
+    min_amount        DOUBLE PRECISION NOT NULL,
+    max_amount        DOUBLE PRECISION NOT NULL,
+    CONSTRAINT pk_spending_rollups PRIMARY KEY (id),
+    CONSTRAINT uk_spending_rollups_bucket
+        UNIQUE (client_id, year_month, category_id, account_id)
+);
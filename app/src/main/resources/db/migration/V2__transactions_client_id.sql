@@ -0,0 +1,7 @@
+-- Databases adopted from ddl-auto=update may predate the denormalized owner column. It has to
+-- exist before V3 indexes it.
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS client_id INTEGER;
+
+UPDATE transactions
+SET client_id = (SELECT accounts.client_id FROM accounts WHERE accounts.id = transactions.account_id)
+WHERE client_id IS NULL;
@@ -0,0 +1,29 @@
+-- Indexes for the @Query methods in com.example.fmanager.repository. Foreign keys are not
+-- indexed automatically, so every owner lookup below was a sequential scan before.
+
+-- AccountRepository.findAllByClientId
+CREATE INDEX IF NOT EXISTS idx_accounts_client ON accounts (client_id);
+
+-- BudgetRepository.findByCategoryIdAndClientId (the primary key covers lookups by budget_id)
+CREATE INDEX IF NOT EXISTS idx_client_budgets_client ON client_budgets (client_id);
+CREATE INDEX IF NOT EXISTS idx_budgets_category ON budgets (category_id);
+
+-- CategorizationRuleRepository.findAllByClientId
+CREATE INDEX IF NOT EXISTS idx_categorization_rules_client ON categorization_rules (client_id);
+
+-- GoalRepository.findByClientId
+CREATE INDEX IF NOT EXISTS idx_goals_client ON goals (client_id);
+
+-- IdempotencyRecordRepository.deleteAllCreatedBefore
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created ON idempotency_keys (created_at);
+
+-- TransactionRepository.findAllByClientIdAndCategoryId, CategoryRepository.findCategoryIdsByClientId
+CREATE INDEX IF NOT EXISTS idx_transactions_client_category
+    ON transactions (client_id, category_id);
+-- TransactionRepository.findAmountRangeExcluding
+CREATE INDEX IF NOT EXISTS idx_transactions_account_category
+    ON transactions (account_id, category_id);
+-- GET /transactions/search, ordered by date within a client, an account or a category
+CREATE INDEX IF NOT EXISTS idx_transactions_client_date ON transactions (client_id, date);
+CREATE INDEX IF NOT EXISTS idx_transactions_account_date ON transactions (account_id, date);
+CREATE INDEX IF NOT EXISTS idx_transactions_category_date ON transactions (category_id, date);
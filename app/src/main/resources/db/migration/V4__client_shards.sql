@@ -0,0 +1,7 @@
+-- Directory of client-ID sharding, read on shard 0 only. Clients without a row live on shard 0.
+
+CREATE TABLE IF NOT EXISTS client_shards (
+    client_id INTEGER NOT NULL,
+    shard     INTEGER NOT NULL,
+    CONSTRAINT pk_client_shards PRIMARY KEY (client_id)
+);
@@ -0,0 +1,7 @@
+-- Indexes for the set-based deletes of a client's or an account's rows.
+
+-- IdempotencyRecordRepository.deleteAllByTransactionIdIn
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_transaction ON idempotency_keys (transaction_id);
+
+-- SpendingRollupRepository.deleteAllByAccountIdIn
+CREATE INDEX IF NOT EXISTS idx_spending_rollups_account ON spending_rollups (account_id);
@@ -0,0 +1,10 @@
+-- Part of an account's balance that is not backed by rows in transactions: the initial balance,
+-- manual corrections and transactions moved to an archive. The balance should always equal
+-- opening_balance plus the sum of the account's transactions. Existing accounts are taken to
+-- be correct as of this migration.
+
+ALTER TABLE accounts ADD COLUMN opening_balance DOUBLE PRECISION DEFAULT 0 NOT NULL;
+
+UPDATE accounts
+SET opening_balance = balance - COALESCE(
+        (SELECT SUM(t.amount) FROM transactions t WHERE t.account_id = accounts.id), 0);
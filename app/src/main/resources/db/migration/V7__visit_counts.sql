@@ -0,0 +1,9 @@
+-- Visit counts flushed by each application instance, read on shard 0 only.
+
+CREATE TABLE IF NOT EXISTS visit_counts (
+    instance_id VARCHAR(255)  NOT NULL,
+    url         VARCHAR(1024) NOT NULL,
+    visits      BIGINT        NOT NULL,
+    updated_at  TIMESTAMP     NOT NULL,
+    CONSTRAINT pk_visit_counts PRIMARY KEY (instance_id, url)
+);
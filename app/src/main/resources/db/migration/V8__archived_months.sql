@@ -0,0 +1,8 @@
+-- Months whose transaction partition was archived and dropped, as yyyymm. Their spending rollups
+-- can no longer be recomputed from the database, so a rollup rebuild leaves them alone.
+
+CREATE TABLE IF NOT EXISTS archived_months (
+    year_month  INTEGER   NOT NULL,
+    archived_at TIMESTAMP NOT NULL,
+    CONSTRAINT pk_archived_months PRIMARY KEY (year_month)
+);
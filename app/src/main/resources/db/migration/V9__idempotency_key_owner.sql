@@ -0,0 +1,18 @@
+-- Idempotency keys are scoped to the account a posting is for and remember a fingerprint of the
+-- request, so a key reused for another account or with another body is not answered with the
+-- first transaction. Existing keys take the account of their transaction and have no
+-- fingerprint.
+
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS account_id INTEGER;
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS request_hash VARCHAR(64);
+
+UPDATE idempotency_keys
+SET account_id = (SELECT t.account_id FROM transactions t
+                  WHERE t.id = idempotency_keys.transaction_id)
+WHERE account_id IS NULL;
+DELETE FROM idempotency_keys WHERE account_id IS NULL;
+
+ALTER TABLE idempotency_keys ALTER COLUMN account_id SET NOT NULL;
+ALTER TABLE idempotency_keys DROP CONSTRAINT pk_idempotency_keys;
+ALTER TABLE idempotency_keys ADD CONSTRAINT pk_idempotency_keys
+    PRIMARY KEY (account_id, idempotency_key);
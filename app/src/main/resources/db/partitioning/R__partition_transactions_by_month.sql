@@ -0,0 +1,67 @@
+-- Optional, PostgreSQL only: enabled by adding classpath:db/partitioning to
+-- spring.flyway.locations (and partitioning.enabled=true for TransactionPartitionService, which
+-- keeps upcoming months created and archives old ones). Turns transactions into a table
+-- range-partitioned by month on date.
+--
+-- Repeatable, so it can be switched on at any point of the versioned history: Flyway runs it
+-- after the versioned migrations, and it does nothing once transactions is partitioned. Removing
+-- the location again later does not undo it.
+--
+-- A primary key on a partitioned table has to include the partition key, so date becomes NOT
+-- NULL and the key is (id, date). Undated rows take their created_at, which every query already
+-- falls back to, and the entity fills in date on insert. Rows outside the created months live in
+-- the default partition.
+
+DO $$
+DECLARE
+    partition_month DATE;
+    last_month      DATE := date_trunc('month', now()) + INTERVAL '3 months';
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass('transactions')) = 'p' THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+
+    CREATE TABLE transactions (
+        id          INTEGER GENERATED BY DEFAULT AS IDENTITY,
+        description VARCHAR(255),
+        amount      DOUBLE PRECISION NOT NULL,
+        account_id  INTEGER          NOT NULL,
+        client_id   INTEGER,
+        category_id INTEGER          NOT NULL,
+        date        TIMESTAMP(6)     NOT NULL,
+        created_at  TIMESTAMP(6),
+        CONSTRAINT fk_transactions_account FOREIGN KEY (account_id) REFERENCES accounts (id),
+        CONSTRAINT fk_transactions_category FOREIGN KEY (category_id) REFERENCES categories (id)
+    ) PARTITION BY RANGE (date);
+
+    partition_month := date_trunc('month', COALESCE(
+            (SELECT MIN(COALESCE(date, created_at)) FROM transactions_unpartitioned), now()));
+    WHILE partition_month <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                'transactions_p' || to_char(partition_month, 'YYYYMM'),
+                partition_month, partition_month + INTERVAL '1 month');
+        partition_month := partition_month + INTERVAL '1 month';
+    END LOOP;
+
+    CREATE TABLE transactions_default PARTITION OF transactions DEFAULT;
+
+    INSERT INTO transactions (id, description, amount, account_id, client_id, category_id, date,
+                              created_at)
+    SELECT id, description, amount, account_id, client_id, category_id,
+           COALESCE(date, created_at, now()), created_at
+    FROM transactions_unpartitioned;
+
+    PERFORM setval(pg_get_serial_sequence('transactions', 'id'),
+                   COALESCE((SELECT MAX(id) FROM transactions), 0) + 1, false);
+
+    DROP TABLE transactions_unpartitioned;
+
+    ALTER TABLE transactions ADD CONSTRAINT pk_transactions PRIMARY KEY (id, date);
+    CREATE INDEX idx_transactions_client_category ON transactions (client_id, category_id);
+    CREATE INDEX idx_transactions_account_category ON transactions (account_id, category_id);
+    CREATE INDEX idx_transactions_client_date ON transactions (client_id, date);
+    CREATE INDEX idx_transactions_account_date ON transactions (account_id, date);
+    CREATE INDEX idx_transactions_category_date ON transactions (category_id, date);
+END $$;
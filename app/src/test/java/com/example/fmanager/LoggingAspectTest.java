@@ -0,0 +1,65 @@
+package com.example.fmanager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LoggingAspectTest {
+
+    private final LoggingAspect loggingAspect = new LoggingAspect(0, 5);
+
+    @Test
+    void summarize_ReportsTypeAndSizeInsteadOfContent() {
+        assertEquals("42", loggingAspect.summarize(42));
+        assertEquals("short", loggingAspect.summarize("short"));
+        assertEquals("secre...(15 chars)", loggingAspect.summarize("secret-password"));
+        assertEquals("ArrayList[size=3]",
+                loggingAspect.summarize(new ArrayList<>(List.of(1, 2, 3))));
+        assertEquals("HashMap[size=2]",
+                loggingAspect.summarize(new HashMap<>(Map.of("a", 1, "b", 2))));
+        assertEquals("byte[16]", loggingAspect.summarize(new byte[16]));
+        assertEquals("Optional[Object]", loggingAspect.summarize(Optional.of(new Object())));
+        assertEquals("Optional.empty", loggingAspect.summarize(Optional.empty()));
+    }
+
+    @Test
+    void log_NotSampled_ProceedsWithoutReadingArguments() throws Throwable {
+        ProceedingJoinPoint joinPoint = joinPoint();
+        Object result = new Object();
+        when(joinPoint.proceed()).thenReturn(result);
+
+        assertSame(result, loggingAspect.log(joinPoint));
+        verify(joinPoint, never()).getArgs();
+    }
+
+    @Test
+    void log_RethrowsFailures() throws Throwable {
+        ProceedingJoinPoint joinPoint = joinPoint();
+        IllegalStateException failure = new IllegalStateException("boom");
+        when(joinPoint.proceed()).thenThrow(failure);
+
+        assertSame(failure, assertThrows(IllegalStateException.class,
+                () -> loggingAspect.log(joinPoint)));
+    }
+
+    private static ProceedingJoinPoint joinPoint() throws NoSuchMethodException {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getMethod()).thenReturn(Object.class.getMethod("toString"));
+        return joinPoint;
+    }
+}
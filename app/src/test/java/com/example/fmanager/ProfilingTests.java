@@ -0,0 +1,69 @@
+package com.example.fmanager;
+
+import com.example.fmanager.service.InMemoryCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the application with {@code profiling.enabled} and checks that a real repository call is
+ * attributed to its service method with the statements and rows Hibernate reported.
+ */
+@SpringBootTest(properties = "profiling.enabled=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProfilingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InMemoryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO categories (name) VALUES ('Profiled 1'), ('Profiled 2')");
+        cache.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM categories WHERE name LIKE 'Profiled %'");
+    }
+
+    @Test
+    void serviceCallsAreProfiledWithTheirStatementsAndRows() throws Exception {
+        int categories = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM categories",
+                Integer.class);
+        mockMvc.perform(delete("/diagnostics/methods")).andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/categories")).andExpect(status().isOk());
+
+        JsonNode profiles = objectMapper.readTree(mockMvc.perform(get("/diagnostics/methods"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+        JsonNode findAll = profiles.get("CategoryService.findAll()");
+        assertEquals(1, findAll.get("calls").asLong());
+        // The categories, then per category its eager budgets and the transactions the DTO reads.
+        assertEquals(1 + 2 * categories, findAll.get("statementsPerCall").asDouble());
+        assertEquals(categories, findAll.get("rowsPerCall").asDouble());
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.fmanager;
+
+import com.example.fmanager.dto.ClientGetDto;
+import com.example.fmanager.dto.TransactionSearchDto;
+import com.example.fmanager.service.ClientService;
+import com.example.fmanager.service.InMemoryCache;
+import com.example.fmanager.service.ReplicaRouting;
+import com.example.fmanager.service.TransactionService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks read/write routing against two PostgreSQL databases standing in for a primary and a
+ * replica, e.g. {@code POSTGRES_TEST_URL=jdbc:postgresql://localhost:5432/postgres} and
+ * {@code POSTGRES_REPLICA_TEST_URL=jdbc:postgresql://localhost:5433/postgres}. Both databases
+ * are cleaned and migrated; nothing replicates between them, so a row inserted into only one
+ * of them shows which database served a read.
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "POSTGRES_TEST_URL", matches = ".+")
+@EnabledIfEnvironmentVariable(named = "POSTGRES_REPLICA_TEST_URL", matches = ".+")
+class ReadReplicaRoutingPostgresTests {
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private ReplicaRouting replicaRouting;
+
+    @Autowired
+    private InMemoryCache cache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private JdbcTemplate replicaJdbcTemplate;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("POSTGRES_TEST_URL"));
+        registry.add("spring.datasource.username", ReadReplicaRoutingPostgresTests::user);
+        registry.add("spring.datasource.password", ReadReplicaRoutingPostgresTests::password);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.flyway.clean-disabled", () -> "false");
+        registry.add("datasource.replica.urls", () -> System.getenv("POSTGRES_REPLICA_TEST_URL"));
+        registry.add("datasource.replica.sticky-window", () -> "PT1M");
+    }
+
+    private static String user() {
+        return System.getenv().getOrDefault("POSTGRES_TEST_USER", "postgres");
+    }
+
+    private static String password() {
+        return System.getenv().getOrDefault("POSTGRES_TEST_PASSWORD", "");
+    }
+
+    private static DriverManagerDataSource replicaDataSource() {
+        return new DriverManagerDataSource(System.getenv("POSTGRES_REPLICA_TEST_URL"), user(),
+                password());
+    }
+
+    @TestConfiguration
+    static class CleanMigration {
+        @Bean
+        FlywayMigrationStrategy cleanMigrate() {
+            return flyway -> {
+                flyway.clean();
+                flyway.migrate();
+                Flyway replica = Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(replicaDataSource())
+                        .load();
+                replica.clean();
+                replica.migrate();
+            };
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        replicaJdbcTemplate = new JdbcTemplate(replicaDataSource());
+        cache.clear();
+        for (JdbcTemplate database : List.of(jdbcTemplate, replicaJdbcTemplate)) {
+            database.update("DELETE FROM transactions");
+            database.update("DELETE FROM accounts");
+            database.update("DELETE FROM categories");
+            database.update("DELETE FROM clients");
+        }
+        jdbcTemplate.update("INSERT INTO clients (username, email, password) "
+                + "VALUES ('primary', 'primary@example.com', 'secret')");
+        replicaJdbcTemplate.update("INSERT INTO clients (username, email, password) "
+                + "VALUES ('replica', 'replica@example.com', 'secret')");
+    }
+
+    @Test
+    void searchOfStickyClientReadsThePrimary() {
+        // Each test uses its own client: a recorded write stays sticky for the whole window.
+        int clientId = postOnPrimaryOnly(1000);
+        TransactionSearchDto criteria = new TransactionSearchDto();
+        criteria.setClientId(clientId);
+
+        assertEquals(0, transactionService.searchTransactions(criteria).getItems().size());
+        replicaRouting.recordWrite(clientId);
+        assertEquals(1, transactionService.searchTransactions(criteria).getItems().size());
+    }
+
+    @Test
+    void replicaReadsAreNotCached() {
+        int clientId = postOnPrimaryOnly(1001);
+        // Open-in-view: the entity manager the primary read loads lazy associations through.
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory,
+                new EntityManagerHolder(entityManager));
+        try {
+            assertEquals(0, transactionService.findByClientIdAndCategoryId(clientId, 1).size());
+            replicaRouting.recordWrite(clientId);
+            assertEquals(1, transactionService.findByClientIdAndCategoryId(clientId, 1).size());
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+    }
+
+    /**
+     * The client exists on both databases, its transaction only on the primary, as if
+     * replication lagged behind the write.
+     */
+    private int postOnPrimaryOnly(int clientId) {
+        for (JdbcTemplate database : List.of(jdbcTemplate, replicaJdbcTemplate)) {
+            database.update("INSERT INTO clients (id, username, email, password) "
+                    + "VALUES (?, 'sticky', 'sticky@example.com', 'secret')", clientId);
+            database.update("INSERT INTO categories (id, name) VALUES (1, 'Food')");
+            database.update("INSERT INTO accounts (id, name, balance, opening_balance, "
+                    + "client_id) VALUES (1, 'Main', 100, 100, ?)", clientId);
+        }
+        jdbcTemplate.update("INSERT INTO transactions (amount, account_id, client_id, "
+                + "category_id, date) VALUES (-5, 1, ?, 1, now())", clientId);
+        return clientId;
+    }
+
+    @Test
+    void readReplicaMethodsReadFromTheReplicaAndOthersFromThePrimary() {
+        assertEquals(List.of("replica"), usernames(clientService.findAll()));
+        assertEquals(List.of("primary"), clientService.findAllClients().stream()
+                .map(client -> client.getUsername()).toList());
+    }
+
+    @Test
+    void sharedEntityManagerDoesNotKeepTheReplicaConnection() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory,
+                new EntityManagerHolder(entityManager));
+        try {
+            assertEquals(List.of("replica"), usernames(clientService.findAll()));
+            assertEquals(List.of("primary"), clientService.findAllClients().stream()
+                    .map(client -> client.getUsername()).toList());
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+        assertTrue(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM clients "
+                + "WHERE username = 'primary'", Integer.class) > 0);
+    }
+
+    private static List<String> usernames(List<ClientGetDto> clients) {
+        return clients.stream().map(ClientGetDto::getUsername).toList();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.fmanager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Adopts a schema created by Hibernate's ddl-auto=update, from before transactions carried
+ * client_id, through baseline-on-migrate against a real PostgreSQL database, e.g.
+ * {@code POSTGRES_TEST_URL=jdbc:postgresql://localhost:5432/fmanager_test}.
+ */
+@EnabledIfEnvironmentVariable(named = "POSTGRES_TEST_URL", matches = ".+")
+class SchemaMigrationPostgresTests {
+
+    private static final String SCHEMA = "adopted_schema";
+
+    private final String url = System.getenv("POSTGRES_TEST_URL");
+    private final String user = System.getenv().getOrDefault("POSTGRES_TEST_USER", "postgres");
+    private final String password = System.getenv().getOrDefault("POSTGRES_TEST_PASSWORD", "");
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+
+    @Test
+    void baselineOnMigrate_LegacySchemaWithoutClientId_ShouldMigrate() throws SQLException {
+        execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        flyway().target("1").load().migrate();
+        execute("DROP TABLE " + SCHEMA + ".flyway_schema_history");
+        execute("ALTER TABLE " + SCHEMA + ".transactions DROP COLUMN client_id");
+        execute("INSERT INTO " + SCHEMA + ".clients (username, email, password) "
+                + "VALUES ('legacy', 'legacy@example.com', 'secret')");
+        execute("INSERT INTO " + SCHEMA + ".categories (name) VALUES ('Food')");
+        execute("INSERT INTO " + SCHEMA + ".accounts (name, balance, client_id) "
+                + "SELECT 'Main', 100, id FROM " + SCHEMA + ".clients");
+        execute("INSERT INTO " + SCHEMA + ".transactions (amount, account_id, category_id) "
+                + "SELECT -5, a.id, c.id FROM " + SCHEMA + ".accounts a, "
+                + SCHEMA + ".categories c");
+
+        flyway().baselineOnMigrate(true).load().migrate();
+
+        assertEquals(1, count("SELECT COUNT(*) FROM " + SCHEMA + ".transactions t JOIN "
+                + SCHEMA + ".accounts a ON a.client_id = t.client_id"));
+        assertEquals(1, count("SELECT COUNT(*) FROM pg_indexes WHERE schemaname = '" + SCHEMA
+                + "' AND indexname = 'idx_transactions_client_category'"));
+    }
+
+    private FluentConfiguration flyway() {
+        return Flyway.configure()
+                .dataSource(url, user, password)
+                .schemas(SCHEMA)
+                .locations("classpath:db/migration");
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private int count(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(sql)) {
+            result.next();
+            return result.getInt(1);
+        }
+    }
+}
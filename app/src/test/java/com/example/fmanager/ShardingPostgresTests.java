@@ -0,0 +1,159 @@
+package com.example.fmanager;
+
+import com.example.fmanager.service.CategoryService;
+import com.example.fmanager.service.ShardRouting;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the API on two PostgreSQL databases as shards, e.g.
+ * {@code POSTGRES_TEST_URL=jdbc:postgresql://localhost:5432/postgres} and
+ * {@code POSTGRES_SHARD_TEST_URL=jdbc:postgresql://localhost:5433/postgres}. Both databases are
+ * cleaned before the application starts.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@EnabledIfEnvironmentVariable(named = "POSTGRES_TEST_URL", matches = ".+")
+@EnabledIfEnvironmentVariable(named = "POSTGRES_SHARD_TEST_URL", matches = ".+")
+class ShardingPostgresTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        String user = System.getenv().getOrDefault("POSTGRES_TEST_USER", "postgres");
+        String password = System.getenv().getOrDefault("POSTGRES_TEST_PASSWORD", "");
+        for (String url : new String[] {System.getenv("POSTGRES_TEST_URL"),
+                System.getenv("POSTGRES_SHARD_TEST_URL")}) {
+            Flyway.configure().dataSource(url, user, password).cleanDisabled(false).load()
+                    .clean();
+        }
+        registry.add("spring.datasource.url", () -> System.getenv("POSTGRES_TEST_URL"));
+        registry.add("spring.datasource.username", () -> user);
+        registry.add("spring.datasource.password", () -> password);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("datasource.shards.urls", () -> System.getenv("POSTGRES_SHARD_TEST_URL"));
+    }
+
+    @Test
+    void clientsAreSpreadOverShardsAndCanBeMoved() throws Exception {
+        int category = id(postJson("/categories", Map.of("name", "Food")));
+        int first = id(postJson("/clients", Map.of("username", "first",
+                "email", "first@example.com", "password", "secret-password")));
+        int second = id(postJson("/clients", Map.of("username", "second",
+                "email", "second@example.com", "password", "secret-password")));
+        assertEquals(0, shardRouting.shardOfClient(first));
+        assertEquals(1, shardRouting.shardOfClient(second));
+        assertEquals(1, rows(1, "categories", category));
+
+        int account = id(postJson("/accounts", Map.of("name", "Main", "balance", 100,
+                "clientId", second)));
+        int transaction = id(postJson("/transactions", Map.of("description", "Coffee",
+                "amount", -5, "date", "2025-03-02T09:00:00", "categoryId", category,
+                "accountId", account)));
+        assertEquals(1, rows(1, "transactions", transaction));
+        assertEquals(0, rows(0, "transactions", transaction));
+
+        assertEquals(2, json(get("/clients")).size());
+        assertEquals("Coffee", json(get("/transactions/" + transaction))
+                .get("description").asText());
+        assertEquals(1, json(get("/transactions/search")).get("items").size());
+
+        JsonNode move = json(postJson("/shards/clients/" + second + "/move?shard=0", Map.of()));
+        assertEquals(4, move.get("rowsMoved").asInt());
+        assertEquals(1, rows(0, "transactions", transaction));
+        assertEquals(0, rows(1, "accounts", account));
+        assertEquals(1, json(get("/accounts/filter?clientId=" + second)).size());
+        assertEquals(-5, json(get("/transactions/" + transaction)).get("amount").asDouble());
+
+        JsonNode moves = json(postJson("/shards/rebalance", Map.of()));
+        assertEquals(1, moves.size());
+        assertEquals(1, moves.get(0).get("toShard").asInt());
+        assertEquals(2, json(get("/clients")).size());
+
+        int shard = shardRouting.shardOfClient(second);
+        mockMvc.perform(delete("/clients/" + second)).andExpect(status().isOk());
+        assertEquals(0, rows(shard, "transactions", transaction));
+        assertEquals(0, rows(shard, "accounts", account));
+        assertEquals(0, rows(shard, "clients", second));
+        assertEquals(0, shardRouting.jdbcTemplate(0).queryForObject(
+                "SELECT COUNT(*) FROM client_shards WHERE client_id = ?", Integer.class, second));
+    }
+
+    @Test
+    void categoriesStayInStepAcrossShards() throws Exception {
+        int category = id(postJson("/categories", Map.of("name", "Rent")));
+        assertEquals(1, rows(1, "categories", category));
+        JdbcTemplate shard1 = shardRouting.jdbcTemplate(1);
+        shard1.update("INSERT INTO clients (id, username, email, password) "
+                + "VALUES (9001, 'remote', 'remote@example.com', 'secret')");
+        shard1.update("INSERT INTO categorization_rules (pattern, client_id, category_id) "
+                + "VALUES ('rent', 9001, ?)", category);
+
+        mockMvc.perform(delete("/categories/" + category)).andExpect(status().isBadRequest());
+        assertEquals(1, rows(0, "categories", category));
+        assertEquals(1, rows(1, "categories", category));
+
+        // Shard 1 missed the category and kept one deleted elsewhere.
+        shard1.update("DELETE FROM categorization_rules");
+        shard1.update("DELETE FROM clients WHERE id = 9001");
+        shard1.update("DELETE FROM categories WHERE id = ?", category);
+        shard1.update("INSERT INTO categories (id, name) VALUES (9002, 'Stale')");
+        categoryService.syncCategories();
+        assertEquals(1, rows(1, "categories", category));
+        assertEquals(0, rows(1, "categories", 9002));
+
+        mockMvc.perform(delete("/categories/" + category)).andExpect(status().isOk());
+        assertEquals(0, rows(0, "categories", category));
+        assertEquals(0, rows(1, "categories", category));
+    }
+
+    private int rows(int shard, String table, int id) {
+        return shardRouting.jdbcTemplate(shard).queryForObject(
+                "SELECT COUNT(*) FROM " + table + " WHERE id = ?", Integer.class, id);
+    }
+
+    private int id(MockHttpServletRequestBuilder request) throws Exception {
+        return json(request).get("id").asInt();
+    }
+
+    private JsonNode json(MockHttpServletRequestBuilder request) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(request).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private MockHttpServletRequestBuilder postJson(String url, Map<String, Object> body)
+            throws Exception {
+        return post(url).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body));
+    }
+}
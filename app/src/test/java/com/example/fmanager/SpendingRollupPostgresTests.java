@@ -0,0 +1,102 @@
+package com.example.fmanager;
+
+import com.example.fmanager.models.Account;
+import com.example.fmanager.models.Category;
+import com.example.fmanager.models.Client;
+import com.example.fmanager.models.Transaction;
+import com.example.fmanager.service.SpendingRollupService;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Records the first transactions of new rollup buckets concurrently against a real PostgreSQL
+ * database, e.g. {@code POSTGRES_TEST_URL=jdbc:postgresql://localhost:5432/fmanager_test}. The
+ * schema is created from the entities and dropped afterwards.
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "POSTGRES_TEST_URL", matches = ".+")
+class SpendingRollupPostgresTests {
+
+    @Autowired
+    private SpendingRollupService spendingRollupService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("POSTGRES_TEST_URL"));
+        registry.add("spring.datasource.username",
+                () -> System.getenv().getOrDefault("POSTGRES_TEST_USER", "postgres"));
+        registry.add("spring.datasource.password",
+                () -> System.getenv().getOrDefault("POSTGRES_TEST_PASSWORD", ""));
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("spring.flyway.enabled", () -> "false");
+    }
+
+    @Test
+    void concurrentFirstWritersOfABucketAllSucceed() throws Exception {
+        jdbcTemplate.update("DELETE FROM spending_rollups");
+        int writers = 8;
+        int buckets = 20;
+        CyclicBarrier barrier = new CyclicBarrier(writers);
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            futures.add(executor.submit(() -> {
+                for (int month = 1; month <= buckets; month++) {
+                    Transaction transaction = transaction(month);
+                    barrier.await();
+                    transactionTemplate.executeWithoutResult(status ->
+                            spendingRollupService.recordTransaction(transaction));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(buckets, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM spending_rollups", Integer.class));
+        assertEquals(buckets, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM spending_rollups WHERE transaction_count = ? "
+                        + "AND total_amount = ? AND min_amount = -5 AND max_amount = -5",
+                Integer.class, writers, -5.0 * writers));
+    }
+
+    private static Transaction transaction(int month) {
+        Client client = new Client();
+        client.setId(1);
+        Account account = new Account();
+        account.setId(2);
+        account.setClient(client);
+        Category category = new Category();
+        category.setId(3);
+        Transaction transaction = new Transaction();
+        transaction.setAmount(-5);
+        transaction.setDate(LocalDateTime.of(2000 + month, 1, 15, 12, 0));
+        transaction.setAccount(account);
+        transaction.setCategory(category);
+        return transaction;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.fmanager;
+
+import com.example.fmanager.models.Account;
+import com.example.fmanager.models.Category;
+import com.example.fmanager.models.Client;
+import com.example.fmanager.models.Transaction;
+import com.example.fmanager.repository.AccountRepository;
+import com.example.fmanager.repository.CategoryRepository;
+import com.example.fmanager.repository.ClientRepository;
+import com.example.fmanager.repository.TransactionRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Pins the owner copied onto transactions.client_id and the per-client queries that read it
+ * instead of joining through accounts.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class TransactionClientIdTests {
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Client alice;
+    private Client bob;
+    private Account aliceAccount;
+    private Account bobAccount;
+    private Category food;
+    private Category rent;
+
+    @BeforeEach
+    void setUp() {
+        alice = client("alice");
+        bob = client("bob");
+        aliceAccount = account(alice);
+        bobAccount = account(bob);
+        food = category("Food");
+        rent = category("Rent");
+    }
+
+    @Test
+    void create_ShouldCopyOwnerOfAccount() {
+        Transaction transaction = transaction(aliceAccount, food);
+
+        assertEquals(alice.getId(), transaction.getClientId());
+        assertEquals(alice.getId(), storedClientId(transaction));
+    }
+
+    @Test
+    void update_MovedToOtherAccount_ShouldCopyNewOwner() {
+        Transaction transaction = transaction(aliceAccount, food);
+
+        transaction.setAccount(bobAccount);
+        transactionRepository.saveAndFlush(transaction);
+
+        assertEquals(bob.getId(), transaction.getClientId());
+        assertEquals(bob.getId(), storedClientId(transaction));
+    }
+
+    @Test
+    void findAllByClientIdAndCategoryId_ShouldReturnOnlyThatClientsCategory() {
+        Transaction aliceFood = transaction(aliceAccount, food);
+        transaction(aliceAccount, rent);
+        transaction(bobAccount, food);
+
+        List<Transaction> found = transactionRepository.findAllByClientIdAndCategoryId(
+                alice.getId(), food.getId());
+
+        assertThat(found).extracting(Transaction::getId).containsExactly(aliceFood.getId());
+    }
+
+    @Test
+    void findCategoryIdsByClientId_ShouldReturnDistinctCategoriesOfThatClient() {
+        transaction(aliceAccount, food);
+        transaction(aliceAccount, food);
+        transaction(aliceAccount, rent);
+        Category other = category("Other");
+        transaction(bobAccount, other);
+
+        assertThat(categoryRepository.findCategoryIdsByClientId(alice.getId()))
+                .containsExactlyInAnyOrder(food.getId(), rent.getId());
+        assertThat(categoryRepository.findCategoryIdsByClientId(bob.getId()))
+                .containsExactly(other.getId());
+    }
+
+    private Integer storedClientId(Transaction transaction) {
+        return jdbcTemplate.queryForObject("SELECT client_id FROM transactions WHERE id = ?",
+                Integer.class, transaction.getId());
+    }
+
+    private Client client(String name) {
+        Client client = new Client();
+        client.setUsername(name);
+        client.setEmail(name + "@example.com");
+        client.setPassword("secret");
+        return clientRepository.saveAndFlush(client);
+    }
+
+    private Account account(Client client) {
+        Account account = new Account();
+        account.setName(client.getUsername());
+        account.setClient(client);
+        return accountRepository.saveAndFlush(account);
+    }
+
+    private Category category(String name) {
+        Category category = new Category();
+        category.setName(name);
+        return categoryRepository.saveAndFlush(category);
+    }
+
+    private Transaction transaction(Account account, Category category) {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(-10);
+        transaction.setDate(LocalDateTime.of(2025, 3, 14, 12, 0));
+        transaction.setAccount(account);
+        transaction.setCategory(category);
+        return transactionRepository.saveAndFlush(transaction);
+    }
+}
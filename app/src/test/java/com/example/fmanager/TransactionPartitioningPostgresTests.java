@@ -0,0 +1,148 @@
+package com.example.fmanager;
+
+import com.example.fmanager.service.SpendingRollupService;
+import com.example.fmanager.service.TransactionPartitionService;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the partitioning migration and maintenance against a real PostgreSQL database, e.g.
+ * {@code POSTGRES_TEST_URL=jdbc:postgresql://localhost:5432/fmanager_test}. The database is
+ * cleaned before migrating.
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "POSTGRES_TEST_URL", matches = ".+")
+class TransactionPartitioningPostgresTests {
+
+    @TempDir
+    static Path archiveDirectory;
+
+    @Autowired
+    private TransactionPartitionService partitionService;
+
+    @Autowired
+    private SpendingRollupService spendingRollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("POSTGRES_TEST_URL"));
+        registry.add("spring.datasource.username",
+                () -> System.getenv().getOrDefault("POSTGRES_TEST_USER", "postgres"));
+        registry.add("spring.datasource.password",
+                () -> System.getenv().getOrDefault("POSTGRES_TEST_PASSWORD", ""));
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.flyway.locations",
+                () -> "classpath:db/migration,classpath:db/partitioning");
+        registry.add("spring.flyway.clean-disabled", () -> "false");
+        registry.add("partitioning.archive-directory", archiveDirectory::toString);
+    }
+
+    @TestConfiguration
+    static class CleanMigration {
+        @Bean
+        FlywayMigrationStrategy cleanMigrate() {
+            // Partitioning is switched on only after the versioned history has been applied.
+            return flyway -> {
+                flyway.clean();
+                Flyway.configure().configuration(flyway.getConfiguration())
+                        .locations("classpath:db/migration").load().migrate();
+                flyway.migrate();
+            };
+        }
+    }
+
+    @Test
+    void dateBoundedQueryScansOnlyItsPartition() {
+        assertTrue(partitionService.isPartitioned());
+
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN SELECT * FROM transactions "
+                + "WHERE date >= date_trunc('month', now()) "
+                + "AND date < date_trunc('month', now()) + INTERVAL '1 month'", String.class);
+
+        String partition = "transactions_p" + String.format("%tY%<tm", LocalDateTime.now());
+        assertTrue(plan.stream().anyMatch(line -> line.contains(partition)));
+        assertFalse(plan.stream().anyMatch(line -> line.contains("transactions_default")));
+    }
+
+    @Test
+    void partitionedTableKeepsPrimaryKey() {
+        assertEquals(List.of("id", "date"), jdbcTemplate.queryForList(
+                "SELECT a.attname FROM pg_constraint c "
+                + "JOIN unnest(c.conkey) WITH ORDINALITY k(attnum, position) ON true "
+                + "JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = k.attnum "
+                + "WHERE c.conrelid = 'transactions'::regclass AND c.contype = 'p' "
+                + "ORDER BY k.position", String.class));
+    }
+
+    @Test
+    void archivePartitionsBefore_MovesOldMonthsOutOfTheTable() throws Exception {
+        YearMonth old = YearMonth.now().minusYears(3);
+        jdbcTemplate.execute("CREATE TABLE transactions_p" + String.format("%tY%<tm",
+                old.atDay(1)) + " PARTITION OF transactions FOR VALUES FROM ('" + old.atDay(1)
+                + "') TO ('" + old.plusMonths(1).atDay(1) + "')");
+        jdbcTemplate.update("INSERT INTO clients (username, email, password) "
+                + "VALUES ('partition', 'partition@example.com', 'secret')");
+        jdbcTemplate.update("INSERT INTO categories (name) VALUES ('Food')");
+        jdbcTemplate.update("INSERT INTO accounts (name, balance, client_id) "
+                + "SELECT 'Main', 100, id FROM clients WHERE username = 'partition'");
+        jdbcTemplate.update("INSERT INTO transactions (amount, account_id, client_id, "
+                + "category_id, date) SELECT -5, a.id, a.client_id, c.id, ? "
+                + "FROM accounts a, categories c", old.atDay(10).atStartOfDay());
+        int yearMonth = old.getYear() * 100 + old.getMonthValue();
+        jdbcTemplate.update("INSERT INTO spending_rollups (client_id, year_month, category_id, "
+                + "account_id, total_amount, transaction_count, min_amount, max_amount) "
+                + "SELECT client_id, ?, category_id, account_id, -5, 1, -5, -5 "
+                + "FROM transactions", yearMonth);
+
+        List<Path> archived = partitionService.archivePartitionsBefore(
+                YearMonth.now().minusYears(2));
+
+        assertEquals(1, archived.size());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(archived.get(0))),
+                StandardCharsets.UTF_8))) {
+            assertEquals(2, reader.lines().count());
+        }
+        assertFalse(Files.exists(archived.get(0).resolveSibling(
+                archived.get(0).getFileName() + ".tmp")));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_class "
+                + "WHERE relname LIKE 'transactions_p%' AND relname = ?", Integer.class,
+                "transactions_p" + String.format("%tY%<tm", old.atDay(1))));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions", Integer.class));
+        assertEquals(-5, jdbcTemplate.queryForObject(
+                "SELECT opening_balance FROM accounts", Double.class));
+
+        spendingRollupService.rebuild();
+        assertEquals(-5, jdbcTemplate.queryForObject("SELECT total_amount FROM spending_rollups "
+                + "WHERE year_month = ?", Double.class, yearMonth));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM archived_months "
+                + "WHERE year_month = ?", Integer.class, yearMonth));
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.fmanager;
+
+import com.example.fmanager.dto.TransactionCreateDto;
+import com.example.fmanager.dto.TransferCreateDto;
+import com.example.fmanager.service.TransactionService;
+import com.example.fmanager.service.TransferService;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs opposite transfers between the same two accounts concurrently, alone and mixed with plain
+ * postings, and concurrent batches against shared budgets, against a real PostgreSQL database, e.g. {@code POSTGRES_TEST_URL=jdbc:postgresql://localhost:5432/fmanager_test}. The
+ * database is cleaned before migrating.
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "POSTGRES_TEST_URL", matches = ".+")
+class TransferPostgresTests {
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int category;
+
+    private List<Integer> accounts;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("POSTGRES_TEST_URL"));
+        registry.add("spring.datasource.username",
+                () -> System.getenv().getOrDefault("POSTGRES_TEST_USER", "postgres"));
+        registry.add("spring.datasource.password",
+                () -> System.getenv().getOrDefault("POSTGRES_TEST_PASSWORD", ""));
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.flyway.clean-disabled", () -> "false");
+    }
+
+    @TestConfiguration
+    static class CleanMigration {
+        @Bean
+        FlywayMigrationStrategy cleanMigrate() {
+            return flyway -> {
+                flyway.clean();
+                flyway.migrate();
+            };
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE transactions, spending_rollups, accounts, categories, "
+                + "clients CASCADE");
+        jdbcTemplate.update("INSERT INTO clients (username, email, password) "
+                + "VALUES ('transfer', 'transfer@example.com', 'secret')");
+        jdbcTemplate.update("INSERT INTO categories (name) VALUES ('Transfers')");
+        int client = jdbcTemplate.queryForObject("SELECT id FROM clients", Integer.class);
+        category = jdbcTemplate.queryForObject("SELECT id FROM categories", Integer.class);
+        jdbcTemplate.update("INSERT INTO accounts (name, balance, client_id) "
+                + "VALUES ('a', 1000, ?), ('b', 1000, ?)", client, client);
+        accounts = jdbcTemplate.queryForList("SELECT id FROM accounts ORDER BY id", Integer.class);
+    }
+
+    @Test
+    void oppositeConcurrentTransfersNeitherDeadlockNorLoseUpdates() throws Exception {
+        int transfers = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < transfers; i++) {
+            int from = accounts.get(i % 2);
+            int to = accounts.get(1 - i % 2);
+            futures.add(executor.submit(() -> transferService.transfer(
+                    new TransferCreateDto(from, to, 1 + from % 3, category, null, null))));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(2000.0, jdbcTemplate.queryForObject(
+                "SELECT SUM(balance) FROM accounts", Double.class));
+        assertEquals(2 * transfers, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions", Integer.class));
+        assertEquals(0.0, jdbcTemplate.queryForObject(
+                "SELECT SUM(total_amount) FROM spending_rollups", Double.class));
+        assertBalancesMatchTransactions();
+    }
+
+    @Test
+    void transfersMixedWithPostingsNeitherDeadlockNorLoseUpdates() throws Exception {
+        int rounds = 100;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < rounds; i++) {
+            int from = accounts.get(i % 2);
+            int to = accounts.get(1 - i % 2);
+            futures.add(executor.submit(() -> transferService.transfer(
+                    new TransferCreateDto(from, to, 3, category, null, null))));
+            futures.add(executor.submit(() -> transactionService.createTransaction(
+                    new TransactionCreateDto("Coffee", -2, LocalDateTime.now(), category, from))));
+            futures.add(executor.submit(() -> transactionService.createTransactionBatch(List.of(
+                    new TransactionCreateDto("Salary", 5, LocalDateTime.now(), category, to),
+                    new TransactionCreateDto("Lunch", -4, LocalDateTime.now(), category, from)))));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(2000.0 - rounds, jdbcTemplate.queryForObject(
+                "SELECT SUM(balance) FROM accounts", Double.class));
+        assertEquals(5 * rounds, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions", Integer.class));
+        assertBalancesMatchTransactions();
+    }
+
+    @Test
+    void concurrentBatchesNeitherDeadlockNorLoseBudgetUpdates() throws Exception {
+        jdbcTemplate.update("INSERT INTO categories (name) VALUES ('Food')");
+        int food = jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = 'Food'",
+                Integer.class);
+        for (int budgetCategory : List.of(category, food)) {
+            jdbcTemplate.update("INSERT INTO budgets (category_id, limitation, available_sum, "
+                    + "period) VALUES (?, 1000, 1000, 30)", budgetCategory);
+        }
+        jdbcTemplate.update("INSERT INTO client_budgets (budget_id, client_id) "
+                + "SELECT b.id, c.id FROM budgets b, clients c");
+
+        int writers = 8;
+        int rounds = 12;
+        int batches = writers * rounds;
+        CyclicBarrier barrier = new CyclicBarrier(writers);
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            // Half of the writers touch the budgets in the opposite order.
+            List<Integer> categories = i % 2 == 0 ? List.of(category, food)
+                    : List.of(food, category);
+            futures.add(executor.submit(() -> {
+                for (int round = 0; round < rounds; round++) {
+                    barrier.await();
+                    transactionService.createTransactionBatch(categories.stream()
+                            .map(categoryId -> new TransactionCreateDto("Groceries", -3,
+                                    LocalDateTime.now(), categoryId, accounts.get(0)))
+                            .toList());
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(2 * batches, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions", Integer.class));
+        assertEquals(List.of(1000.0 - 3 * batches, 1000.0 - 3 * batches),
+                jdbcTemplate.queryForList("SELECT available_sum FROM budgets", Double.class));
+        assertBalancesMatchTransactions();
+    }
+
+    private void assertBalancesMatchTransactions() {
+        for (int account : accounts) {
+            assertEquals(jdbcTemplate.queryForObject("SELECT 1000 + COALESCE(SUM(amount), 0) "
+                            + "FROM transactions WHERE account_id = ?", Double.class, account),
+                    jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE id = ?",
+                            Double.class, account));
+        }
+    }
+}
@@ -15,9 +15,12 @@ import com.example.fmanager.repository.ClientRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -25,7 +28,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -48,6 +51,15 @@ class AccountServiceTest {
     @Mock
     private InMemoryCache cache;
 
+    @Mock
+    private ReplicaRouting replicaRouting;
+
+    @Spy
+    private ShardRouting shardRouting = ShardRouting.unsharded();
+
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
     @InjectMocks
     private AccountService accountService;
 
@@ -145,7 +157,7 @@ class AccountServiceTest {
     void updateAccount_Success() {
         AccountUpdateDto updateDto = new AccountUpdateDto("Updated Account", 20000);
 
-        when(accountRepository.findById(1)).thenReturn(Optional.of(account1));
+        when(accountRepository.findByIdForUpdate(1)).thenReturn(Optional.of(account1));
         when(accountRepository.save(any(Account.class))).thenReturn(account1);
 
         AccountGetDto result = accountService.updateAccount(1, updateDto);
@@ -157,10 +169,23 @@ class AccountServiceTest {
     @Test
     void deleteAccount_Success() {
         when(accountRepository.findById(1)).thenReturn(Optional.of(account1));
-        doNothing().when(accountRepository).delete(account1);
 
         assertDoesNotThrow(() -> accountService.deleteAccount(1));
-        verify(accountRepository, times(1)).delete(account1);
+        verify(transactionService, times(2)).deleteAllOfAccounts(
+                account1.getClient().getId(), List.of(1));
+        verify(accountRepository, times(1)).deleteAllByIdInBatch(List.of(1));
+    }
+
+    @Test
+    void deleteAllOfClient_DeletesTransactionsBeforeAccounts() {
+        when(accountRepository.findIdsByClientId(1)).thenReturn(List.of(1, 2));
+
+        accountService.deleteAllOfClient(1);
+
+        InOrder inOrder = inOrder(transactionService, accountRepository);
+        inOrder.verify(transactionService).deleteAllOfAccounts(1, List.of(1, 2));
+        inOrder.verify(accountRepository).deleteAllByIdInBatch(List.of(1, 2));
+        verify(cache).remove("accounts_client_1");
     }
 
     @Test
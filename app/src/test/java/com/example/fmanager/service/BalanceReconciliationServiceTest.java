@@ -0,0 +1,78 @@
+package com.example.fmanager.service;
+
+import java.util.List;
+import com.example.fmanager.dto.ReconciliationStatusDto;
+import com.example.fmanager.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionOperations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyDouble;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceReconciliationServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountService accountService;
+
+    private BalanceReconciliationService reconciliationService;
+
+    @BeforeEach
+    void setUp() {
+        reconciliationService = new BalanceReconciliationService(accountRepository,
+                accountService, ShardRouting.unsharded(),
+                TransactionOperations.withoutTransaction(), false, false, 2, 2, 0);
+        when(accountRepository.count()).thenReturn(3L);
+        when(accountRepository.findIdsAfter(eq(0), any(Limit.class))).thenReturn(List.of(1, 2));
+        when(accountRepository.findIdsAfter(eq(2), any(Limit.class))).thenReturn(List.of(3));
+        when(accountRepository.sumTransactionsBetween(1, 2)).thenReturn(List.of(
+                new Object[] {1, 10, 100.0, 100.0, 0.0},
+                new Object[] {2, 10, 50.0, 60.0, -5.0}));
+        when(accountRepository.sumTransactionsBetween(3, 3)).thenReturn(List.<Object[]>of(
+                new Object[] {3, 11, 20.0, 0.0, 20.0}));
+    }
+
+    @Test
+    void reconcile_ReportsDriftWithoutChangingBalances() {
+        ReconciliationStatusDto status = reconciliationService.reconcile(false);
+
+        assertFalse(status.isRunning());
+        assertNull(status.getError());
+        assertEquals(3, status.getAccountsTotal());
+        assertEquals(3, status.getAccountsScanned());
+        assertEquals(2, status.getRangesCompleted());
+        assertEquals(1, status.getDriftedAccounts());
+        assertEquals(0, status.getCorrectedAccounts());
+        assertEquals(1.0, status.getProgress());
+        assertEquals(1, status.getDrifts().size());
+        assertEquals(2, status.getDrifts().get(0).getAccountId());
+        assertEquals(-5.0, status.getDrifts().get(0).getDrift());
+        verify(accountRepository, never()).adjustBalance(anyInt(), anyDouble());
+    }
+
+    @Test
+    void reconcile_CorrectsDriftedBalances() {
+        ReconciliationStatusDto status = reconciliationService.reconcile(true);
+
+        assertEquals(1, status.getCorrectedAccounts());
+        verify(accountRepository).adjustBalance(2, 5.0);
+        verify(accountService).clearCacheForClient(10);
+        assertEquals(1, reconciliationService.getStatus().getCorrectedAccounts());
+    }
+}
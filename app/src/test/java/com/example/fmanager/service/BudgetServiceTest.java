@@ -19,6 +19,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
@@ -44,6 +45,12 @@ class BudgetServiceTest {
     @Mock
     private ClientRepository clientRepository;
 
+    @Mock
+    private ReplicaRouting replicaRouting;
+
+    @Spy
+    private ShardRouting shardRouting = ShardRouting.unsharded();
+
     @InjectMocks
     private BudgetService budgetService;
 
@@ -0,0 +1,147 @@
+package com.example.fmanager.service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import com.example.fmanager.dto.CategorizationRuleCreateDto;
+import com.example.fmanager.exception.NotFoundException;
+import com.example.fmanager.models.CategorizationRule;
+import com.example.fmanager.models.Category;
+import com.example.fmanager.models.Client;
+import com.example.fmanager.repository.CategorizationRuleRepository;
+import com.example.fmanager.repository.CategoryRepository;
+import com.example.fmanager.repository.ClientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CategorizationServiceTest {
+
+    @Mock
+    private CategorizationRuleRepository ruleRepository;
+
+    @Mock
+    private ClientRepository clientRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @InjectMocks
+    private CategorizationService categorizationService;
+
+    private Client client;
+    private Category transport;
+    private Category food;
+
+    @BeforeEach
+    void setUp() {
+        client = new Client();
+        client.setId(1);
+
+        transport = new Category();
+        transport.setId(1);
+        transport.setName("Transport");
+
+        food = new Category();
+        food.setId(2);
+        food.setName("Food");
+    }
+
+    private CategorizationRule rule(int id, String pattern, Category category) {
+        CategorizationRule rule = new CategorizationRule();
+        rule.setId(id);
+        rule.setPattern(pattern);
+        rule.setClient(client);
+        rule.setCategory(category);
+        return rule;
+    }
+
+    @Test
+    void categorize_MatchesPatternCaseInsensitively() {
+        when(ruleRepository.findAllByClientId(1)).thenReturn(List.of(
+                rule(1, "uber", transport),
+                rule(2, "PIZZA", food)));
+
+        assertEquals(OptionalInt.of(1), categorizationService.categorize(1, "Card UBER *TRIP"));
+        assertEquals(OptionalInt.of(2), categorizationService.categorize(1, "Pizza Hut 42"));
+        assertFalse(categorizationService.categorize(1, "Salary").isPresent());
+        verify(ruleRepository, times(1)).findAllByClientId(1);
+    }
+
+    @Test
+    void categorize_PrefersLongestPattern() {
+        when(ruleRepository.findAllByClientId(1)).thenReturn(List.of(
+                rule(1, "UBER", transport),
+                rule(2, "UBER EATS", food)));
+
+        assertEquals(OptionalInt.of(2), categorizationService.categorize(1, "UBER EATS order"));
+        assertEquals(OptionalInt.of(1), categorizationService.categorize(1, "UBER ride"));
+    }
+
+    @Test
+    void categorize_FindsPatternsOverlappingFailedPrefix() {
+        when(ruleRepository.findAllByClientId(1)).thenReturn(List.of(
+                rule(1, "ABCD", transport),
+                rule(2, "BC", food)));
+
+        assertEquals(OptionalInt.of(2), categorizationService.categorize(1, "xABCx"));
+    }
+
+    @Test
+    void createRule_EvictsCompiledMatcher() {
+        when(ruleRepository.findAllByClientId(1))
+                .thenReturn(List.of())
+                .thenReturn(List.of(rule(1, "UBER", transport)));
+        when(clientRepository.findById(1)).thenReturn(Optional.of(client));
+        when(categoryRepository.findById(1)).thenReturn(Optional.of(transport));
+        when(ruleRepository.save(any(CategorizationRule.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertFalse(categorizationService.categorize(1, "UBER").isPresent());
+        categorizationService.createRule(new CategorizationRuleCreateDto(" UBER ", 1, 1));
+
+        assertEquals(OptionalInt.of(1), categorizationService.categorize(1, "UBER"));
+    }
+
+    @Test
+    void deleteRule_InTransaction_EvictsMatcherOnlyAfterCommit() {
+        when(ruleRepository.findAllByClientId(1))
+                .thenReturn(List.of(rule(1, "UBER", transport)))
+                .thenReturn(List.of());
+        when(ruleRepository.findById(1)).thenReturn(Optional.of(rule(1, "UBER", transport)));
+        assertEquals(OptionalInt.of(1), categorizationService.categorize(1, "UBER"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            categorizationService.deleteRule(1);
+            assertEquals(OptionalInt.of(1), categorizationService.categorize(1, "UBER"));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(categorizationService.categorize(1, "UBER").isPresent());
+    }
+
+    @Test
+    void deleteRule_NotFound() {
+        when(ruleRepository.findById(1)).thenReturn(Optional.empty());
+        assertThrows(NotFoundException.class, () -> categorizationService.deleteRule(1));
+    }
+}
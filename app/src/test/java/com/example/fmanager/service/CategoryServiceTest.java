@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Optional;
 import com.example.fmanager.dto.CategoryCreateDto;
 import com.example.fmanager.dto.CategoryGetDto;
+import com.example.fmanager.exception.InvalidDataException;
 import com.example.fmanager.exception.NotFoundException;
 import com.example.fmanager.models.Category;
 import com.example.fmanager.repository.CategoryRepository;
@@ -14,7 +15,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -22,8 +26,10 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -37,6 +43,9 @@ class CategoryServiceTest {
     @Mock
     private InMemoryCache cache;
 
+    @Spy
+    private ShardRouting shardRouting = ShardRouting.unsharded();
+
     @InjectMocks
     private CategoryService categoryService;
 
@@ -122,6 +131,34 @@ class CategoryServiceTest {
         verify(categoryRepository, times(1)).delete(category1);
     }
 
+    @Test
+    void deleteCategory_StillReferenced_ShouldThrowException() {
+        when(categoryRepository.findById(1)).thenReturn(Optional.of(category1));
+        when(categoryRepository.isReferenced(1)).thenReturn(true);
+
+        assertThrows(InvalidDataException.class, () -> categoryService.deleteCategory(1));
+        verify(categoryRepository, never()).delete(any());
+    }
+
+    @Test
+    void createCategory_InTransaction_ShouldCopyToOtherShardsOnlyAfterCommit() {
+        Category newCategory = new Category();
+        newCategory.setId(3);
+        newCategory.setName("New Category");
+        when(categoryRepository.save(any(Category.class))).thenReturn(newCategory);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            categoryService.createCategory(new CategoryCreateDto("New Category"));
+            verify(shardRouting, never()).updateOtherShards(anyString(), any(Object[].class));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(shardRouting).updateOtherShards(anyString(), eq(3), eq("New Category"));
+    }
+
     @Test
     void deleteCategory_NotFound() {
         when(categoryRepository.findById(1)).thenReturn(Optional.empty());
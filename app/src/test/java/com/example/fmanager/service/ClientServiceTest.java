@@ -8,20 +8,25 @@ import com.example.fmanager.dto.ClientGetDto;
 import com.example.fmanager.dto.ClientUpdateDto;
 import com.example.fmanager.exception.NotFoundException;
 import com.example.fmanager.models.Client;
+import com.example.fmanager.repository.BudgetRepository;
+import com.example.fmanager.repository.CategorizationRuleRepository;
 import com.example.fmanager.repository.ClientRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -32,6 +37,27 @@ class ClientServiceTest {
     @Mock
     private ClientRepository clientRepository;
 
+    @Mock
+    private BudgetRepository budgetRepository;
+
+    @Mock
+    private CategorizationRuleRepository categorizationRuleRepository;
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private GoalService goalService;
+
+    @Mock
+    private TransactionArchiveService transactionArchiveService;
+
+    @Spy
+    private ShardRouting shardRouting = ShardRouting.unsharded();
+
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
     @InjectMocks
     private ClientService clientService;
 
@@ -98,15 +124,23 @@ class ClientServiceTest {
 
     @Test
     void deleteUser_Success() {
-        when(clientRepository.findById(1)).thenReturn(Optional.of(client1));
-        doNothing().when(clientRepository).delete(client1);
+        when(clientRepository.existsById(1)).thenReturn(true);
         assertDoesNotThrow(() -> clientService.deleteUser(1));
-        verify(clientRepository, times(1)).delete(client1);
+
+        InOrder inOrder = inOrder(accountService, goalService, categorizationRuleRepository,
+                budgetRepository, clientRepository, transactionArchiveService);
+        inOrder.verify(accountService, times(2)).deleteAllOfClient(1);
+        inOrder.verify(goalService).deleteAllOfClient(1);
+        inOrder.verify(categorizationRuleRepository).deleteAllByClientId(1);
+        inOrder.verify(budgetRepository).removeClientFromAll(1);
+        inOrder.verify(clientRepository).deleteAllByIdInBatch(List.of(1));
+        inOrder.verify(transactionArchiveService).deleteClient(1);
     }
 
     @Test
     void deleteUser_NotFound() {
-        when(clientRepository.findById(1)).thenReturn(Optional.empty());
+        when(clientRepository.existsById(1)).thenReturn(false);
         assertThrows(NotFoundException.class, () -> clientService.deleteUser(1));
+        verify(accountService, times(0)).deleteAllOfClient(1);
     }
 }
\ No newline at end of file
@@ -15,6 +15,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
@@ -40,6 +41,12 @@ class GoalServiceTest {
     @Mock
     private InMemoryCache cache;
 
+    @Mock
+    private ReplicaRouting replicaRouting;
+
+    @Spy
+    private ShardRouting shardRouting = ShardRouting.unsharded();
+
     @InjectMocks
     private GoalService goalService;
 
@@ -0,0 +1,181 @@
+package com.example.fmanager.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import com.example.fmanager.dto.TransactionCreateDto;
+import com.example.fmanager.dto.TransactionGetDto;
+import com.example.fmanager.exception.IdempotencyConflictException;
+import com.example.fmanager.exception.InvalidDataException;
+import com.example.fmanager.models.IdempotencyRecord;
+import com.example.fmanager.models.Transaction;
+import com.example.fmanager.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private IdempotencyRecordRepository recordRepository;
+
+    private static final IdempotencyRecord.Key KEY = new IdempotencyRecord.Key(1, "key-1");
+
+    private IdempotencyService idempotencyService;
+    private TransactionCreateDto dto;
+    private String hash;
+    private Transaction transaction;
+    private TransactionGetDto response;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(
+                transactionService, recordRepository, ShardRouting.unsharded(),
+                Duration.ofHours(1), 100);
+        dto = new TransactionCreateDto("Coffee", -5, LocalDateTime.now(), 1, 1);
+        hash = IdempotencyService.fingerprint(dto);
+        transaction = new Transaction();
+        transaction.setId(7);
+        response = new TransactionGetDto();
+        response.setId(7);
+    }
+
+    @Test
+    void createTransaction_RetryReturnsFirstResponse() {
+        when(recordRepository.findById(KEY)).thenReturn(Optional.empty());
+        when(transactionService.createTransaction(dto, "key-1", hash)).thenReturn(transaction);
+        when(transactionService.getTransactionById(7)).thenReturn(Optional.of(response));
+
+        TransactionGetDto first = idempotencyService.createTransaction("key-1", dto);
+        TransactionGetDto retry = idempotencyService.createTransaction("key-1", dto);
+
+        assertSame(first, retry);
+        verify(transactionService, times(1)).createTransaction(dto, "key-1", hash);
+    }
+
+    @Test
+    void createTransaction_FallsBackToRecordedKey() {
+        IdempotencyRecord idempotencyRecord = new IdempotencyRecord();
+        idempotencyRecord.setAccountId(1);
+        idempotencyRecord.setIdempotencyKey("key-1");
+        idempotencyRecord.setRequestHash(hash);
+        idempotencyRecord.setTransactionId(7);
+        when(recordRepository.findById(KEY)).thenReturn(Optional.of(idempotencyRecord));
+        when(transactionService.getTransactionById(7)).thenReturn(Optional.of(response));
+
+        assertEquals(7, idempotencyService.createTransaction("key-1", dto).getId());
+        verify(transactionService, never()).createTransaction(any(), anyString(), anyString());
+    }
+
+    @Test
+    void createTransaction_ConcurrentDuplicateWaitsForFirst() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(recordRepository.findById(KEY)).thenReturn(Optional.empty());
+        when(transactionService.createTransaction(dto, "key-1", hash)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return transaction;
+        });
+        when(transactionService.getTransactionById(7)).thenReturn(Optional.of(response));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<TransactionGetDto> first = executor.submit(
+                    () -> idempotencyService.createTransaction("key-1", dto));
+            started.await(5, TimeUnit.SECONDS);
+            Future<TransactionGetDto> duplicate = executor.submit(
+                    () -> idempotencyService.createTransaction("key-1", dto));
+            release.countDown();
+
+            assertSame(first.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(transactionService, times(1)).createTransaction(eq(dto), eq("key-1"), eq(hash));
+    }
+
+    @Test
+    void createTransaction_FailureIsNotRemembered() {
+        when(recordRepository.findById(KEY)).thenReturn(Optional.empty());
+        when(transactionService.createTransaction(dto, "key-1", hash))
+                .thenThrow(new InvalidDataException("Insufficient funds in the account"))
+                .thenReturn(transaction);
+        when(transactionService.getTransactionById(7)).thenReturn(Optional.of(response));
+
+        assertThrows(InvalidDataException.class,
+                () -> idempotencyService.createTransaction("key-1", dto));
+        assertEquals(7, idempotencyService.createTransaction("key-1", dto).getId());
+    }
+
+    @Test
+    void createTransaction_SameKeyWithOtherRequest_ShouldThrowException() {
+        when(recordRepository.findById(KEY)).thenReturn(Optional.empty());
+        when(transactionService.createTransaction(dto, "key-1", hash)).thenReturn(transaction);
+        when(transactionService.getTransactionById(7)).thenReturn(Optional.of(response));
+        idempotencyService.createTransaction("key-1", dto);
+
+        TransactionCreateDto other = new TransactionCreateDto(
+                "Coffee", -50, dto.getDate(), 1, 1);
+        assertThrows(IdempotencyConflictException.class,
+                () -> idempotencyService.createTransaction("key-1", other));
+    }
+
+    @Test
+    void createTransaction_RecordedKeyWithOtherRequest_ShouldThrowException() {
+        IdempotencyRecord idempotencyRecord = new IdempotencyRecord();
+        idempotencyRecord.setAccountId(1);
+        idempotencyRecord.setIdempotencyKey("key-1");
+        idempotencyRecord.setRequestHash(IdempotencyService.fingerprint(
+                new TransactionCreateDto("Rent", -500, dto.getDate(), 1, 1)));
+        idempotencyRecord.setTransactionId(7);
+        when(recordRepository.findById(KEY)).thenReturn(Optional.of(idempotencyRecord));
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> idempotencyService.createTransaction("key-1", dto));
+        verify(transactionService, never()).getTransactionById(7);
+    }
+
+    @Test
+    void createTransaction_SameKeyForOtherAccount_ShouldCreateItsOwnTransaction() {
+        TransactionCreateDto otherAccount = new TransactionCreateDto(
+                "Coffee", -5, dto.getDate(), 1, 2);
+        String otherHash = IdempotencyService.fingerprint(otherAccount);
+        Transaction otherTransaction = new Transaction();
+        otherTransaction.setId(8);
+        TransactionGetDto otherResponse = new TransactionGetDto();
+        otherResponse.setId(8);
+        when(recordRepository.findById(any())).thenReturn(Optional.empty());
+        when(transactionService.createTransaction(dto, "key-1", hash)).thenReturn(transaction);
+        when(transactionService.createTransaction(otherAccount, "key-1", otherHash))
+                .thenReturn(otherTransaction);
+        when(transactionService.getTransactionById(7)).thenReturn(Optional.of(response));
+        when(transactionService.getTransactionById(8)).thenReturn(Optional.of(otherResponse));
+
+        assertEquals(7, idempotencyService.createTransaction("key-1", dto).getId());
+        assertEquals(8, idempotencyService.createTransaction("key-1", otherAccount).getId());
+        verify(recordRepository).findById(new IdempotencyRecord.Key(2, "key-1"));
+    }
+}
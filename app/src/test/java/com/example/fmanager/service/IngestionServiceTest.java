@@ -0,0 +1,141 @@
+package com.example.fmanager.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+import com.example.fmanager.dto.IngestionStatus;
+import com.example.fmanager.dto.IngestionTicketDto;
+import com.example.fmanager.dto.TransactionCreateDto;
+import com.example.fmanager.exception.InvalidDataException;
+import com.example.fmanager.exception.ServiceOverloadedException;
+import com.example.fmanager.models.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyList;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IngestionServiceTest {
+
+    @Mock
+    private TransactionService transactionService;
+
+    private TransactionCreateDto dto(double amount) {
+        return new TransactionCreateDto("Card payment", amount, LocalDateTime.now(), 1, 1);
+    }
+
+    private IngestionTicketDto awaitCompletion(IngestionService service, String ticketId)
+            throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            IngestionTicketDto ticket = service.getTicket(ticketId).orElseThrow();
+            if (ticket.getStatus() != IngestionStatus.QUEUED) {
+                return ticket;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Ticket was not processed: " + ticketId);
+    }
+
+    @Test
+    void submit_WritesQueuedPostingAndCompletesTicket() throws InterruptedException {
+        Transaction transaction = new Transaction();
+        transaction.setId(42);
+        when(transactionService.createTransactionBatch(anyList()))
+                .thenReturn(List.of(BatchItemResult.success(transaction)));
+        IngestionService service = new IngestionService(
+                transactionService, ShardRouting.unsharded(), 10, 1, 16,
+                Duration.ofMinutes(5));
+        service.start();
+        try {
+            IngestionTicketDto ticket = service.submit(dto(-10));
+            assertEquals(IngestionStatus.QUEUED, ticket.getStatus());
+
+            IngestionTicketDto completed = awaitCompletion(service, ticket.getTicketId());
+            assertEquals(IngestionStatus.COMMITTED, completed.getStatus());
+            assertEquals(42, completed.getTransactionId());
+        } finally {
+            service.stop();
+        }
+    }
+
+    @Test
+    void submit_ReportsFailedPosting() throws InterruptedException {
+        when(transactionService.createTransactionBatch(anyList())).thenReturn(List.of(
+                BatchItemResult.failure(new InvalidDataException("Insufficient funds"))));
+        IngestionService service = new IngestionService(
+                transactionService, ShardRouting.unsharded(), 10, 1, 16,
+                Duration.ofMinutes(5));
+        service.start();
+        try {
+            IngestionTicketDto ticket = service.submit(dto(-10));
+
+            IngestionTicketDto completed = awaitCompletion(service, ticket.getTicketId());
+            assertEquals(IngestionStatus.FAILED, completed.getStatus());
+            assertEquals("Insufficient funds", completed.getError());
+        } finally {
+            service.stop();
+        }
+    }
+
+    @Test
+    void submit_RejectsWhenQueueIsFull() {
+        IngestionService service = new IngestionService(
+                transactionService, ShardRouting.unsharded(), 1, 1, 16,
+                Duration.ofMinutes(5));
+        service.submit(dto(-10));
+
+        assertThrows(ServiceOverloadedException.class, () -> service.submit(dto(-20)));
+        assertEquals(1, service.getQueueSize());
+    }
+
+    @Test
+    void submitAll_QueuesNothingWhenNotAllItemsFit() {
+        IngestionService service = new IngestionService(
+                transactionService, ShardRouting.unsharded(), 3, 1, 16,
+                Duration.ofMinutes(5));
+        service.submit(dto(-10));
+
+        assertThrows(ServiceOverloadedException.class,
+                () -> service.submitAll(List.of(dto(-20), dto(-30), dto(-40))));
+        assertEquals(1, service.getQueueSize());
+        assertEquals(2, service.submitAll(List.of(dto(-20), dto(-30))).size());
+        assertEquals(3, service.getQueueSize());
+    }
+
+    @Test
+    void start_ShardedBatch_LooksUpEachAccountOnce() throws InterruptedException {
+        ShardRouting shardRouting = mock(ShardRouting.class);
+        when(shardRouting.isSharded()).thenReturn(true);
+        when(shardRouting.shardOfAccount(1)).thenReturn(1);
+        when(shardRouting.onShard(eq(1), any())).thenAnswer(
+                invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        when(transactionService.createTransactionBatch(anyList())).thenAnswer(invocation ->
+                invocation.<List<?>>getArgument(0).stream()
+                        .map(item -> BatchItemResult.success(new Transaction())).toList());
+        IngestionService service = new IngestionService(
+                transactionService, shardRouting, 10, 1, 16, Duration.ofMinutes(5));
+        List<IngestionTicketDto> tickets = service.submitAll(
+                List.of(dto(-10), dto(-20), dto(-30)));
+
+        service.start();
+        try {
+            for (IngestionTicketDto ticket : tickets) {
+                awaitCompletion(service, ticket.getTicketId());
+            }
+        } finally {
+            service.stop();
+        }
+        verify(shardRouting, times(1)).shardOfAccount(1);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.fmanager.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import com.example.fmanager.dto.LogQueryDto;
+import com.example.fmanager.exception.InvalidDataException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LogQueryServiceTest {
+
+    @TempDir
+    Path tempDir;
+    private LogService logService;
+    private LogQueryService logQueryService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        logService = new LogService(tempDir.toString(), 1, 4, Duration.ofHours(1), 256,
+                Clock.systemDefaultZone());
+        logQueryService = new LogQueryService(logService, 2);
+
+        // Outside the queried days: never opened.
+        Files.write(tempDir.resolve("application-2025-03-20.0.log.gz"), "not gzip".getBytes());
+        // Ends before the queried range starts: only its first line is read.
+        StringBuilder early = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            early.append(line("2025-03-21", i % 36000, "INFO", "c.e.f.Early", "noise " + i));
+        }
+        byte[] truncated = gzip(early.toString());
+        Files.write(tempDir.resolve("application-2025-03-21.0.log.gz"),
+                Arrays.copyOf(truncated, truncated.length - 64));
+        Files.write(tempDir.resolve("application-2025-03-21.1.log.gz"), gzip(
+                line("2025-03-21", 36000, "INFO", "c.e.f.s.TransactionService", "before")
+                + line("2025-03-21", 43200, "WARN", "c.e.f.s.TransactionService", "slow")
+                + line("2025-03-21", 50000, "INFO", "c.e.f.s.AccountService", "created")));
+        Files.writeString(tempDir.resolve("application.log"),
+                line("2025-03-22", 3600, "ERROR", "c.e.f.s.TransactionService", "failed")
+                + "java.lang.IllegalStateException: Balance drift\n"
+                + "\tat com.example.fmanager.service.TransactionService.create(T.java:1)\n"
+                + line("2025-03-22", 7200, "INFO", "c.e.f.s.AccountService", "updated")
+                + line("2025-03-22", 43200, "INFO", "c.e.f.s.AccountService", "after"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        logQueryService.stop();
+        logService.stop();
+    }
+
+    @Test
+    void stream_TimeRange_ShouldReturnEntriesInOrder() throws IOException {
+        List<String> lines = query(criteria(null, null, null, 1000));
+
+        assertEquals(List.of(
+                line("2025-03-21", 43200, "WARN", "c.e.f.s.TransactionService", "slow").trim(),
+                line("2025-03-21", 50000, "INFO", "c.e.f.s.AccountService", "created").trim(),
+                line("2025-03-22", 3600, "ERROR", "c.e.f.s.TransactionService", "failed").trim(),
+                "java.lang.IllegalStateException: Balance drift",
+                "\tat com.example.fmanager.service.TransactionService.create(T.java:1)",
+                line("2025-03-22", 7200, "INFO", "c.e.f.s.AccountService", "updated").trim()),
+                lines);
+    }
+
+    @Test
+    void stream_LevelAndLogger_ShouldFilterEntries() throws IOException {
+        List<String> lines = query(criteria("warn", "TransactionService", null, 1000));
+
+        assertEquals(4, lines.size());
+        assertEquals(line("2025-03-21", 43200, "WARN", "c.e.f.s.TransactionService", "slow")
+                .trim(), lines.get(0));
+    }
+
+    @Test
+    void stream_Pattern_ShouldMatchStackTraces() throws IOException {
+        List<String> lines = query(criteria(null, null, "Balance\\s+drift", 1000));
+
+        assertEquals(3, lines.size());
+        assertEquals("java.lang.IllegalStateException: Balance drift", lines.get(1));
+    }
+
+    @Test
+    void stream_Limit_ShouldStopAfterLimit() throws IOException {
+        List<String> lines = query(criteria(null, "AccountService", null, 1));
+
+        assertEquals(List.of(line("2025-03-21", 50000, "INFO", "c.e.f.s.AccountService",
+                "created").trim()), lines);
+    }
+
+    @Test
+    void prepare_InvalidCriteria_ShouldThrowException() {
+        LogQueryDto reversed = criteria(null, null, null, 10);
+        reversed.setTo(reversed.getFrom());
+        assertThrows(InvalidDataException.class, () -> logQueryService.prepare(reversed));
+        assertThrows(InvalidDataException.class,
+                () -> logQueryService.prepare(criteria("LOUD", null, null, 10)));
+        assertThrows(InvalidDataException.class,
+                () -> logQueryService.prepare(criteria(null, null, "(unclosed", 10)));
+    }
+
+    private List<String> query(LogQueryDto criteria) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        logQueryService.stream(logQueryService.prepare(criteria), out);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    private static LogQueryDto criteria(String level, String logger, String pattern, int limit) {
+        LogQueryDto criteria = new LogQueryDto();
+        criteria.setFrom(LocalDateTime.of(2025, 3, 21, 12, 0));
+        criteria.setTo(LocalDateTime.of(2025, 3, 22, 12, 0));
+        criteria.setLevel(level);
+        criteria.setLogger(logger);
+        criteria.setPattern(pattern);
+        criteria.setLimit(limit);
+        return criteria;
+    }
+
+    private static String line(String date, int second, String level, String logger,
+                               String message) {
+        return String.format("%s %02d:%02d:%02d [main] %-5s %s - %s%n", date, second / 3600,
+                second / 60 % 60, second % 60, level, logger, message);
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
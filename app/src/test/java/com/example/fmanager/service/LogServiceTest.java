@@ -1,20 +1,35 @@
 package com.example.fmanager.service;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import com.example.fmanager.exception.NoDataToFileException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+import com.example.fmanager.dto.LogJobDto;
+import com.example.fmanager.dto.LogJobStatus;
+import com.example.fmanager.exception.InvalidDataException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
-import org.mockito.MockedStatic;
-import org.mockito.Mockito;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -28,50 +43,230 @@ class LogServiceTest {
 
     @BeforeEach
     void setUp() {
-        logService = new LogService();
+        logService = service(4096);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logService.stop();
     }
 
     @Test
-    void generateLogFileForDateAsync_FileNotFound_ShouldThrowException() {
-        CompletableFuture<String> future = logService.generateLogFileForDateAsync("2025-03-15");
-        ExecutionException exception = assertThrows(ExecutionException.class, future::get);
-        assertTrue(exception.getCause() instanceof RuntimeException);
+    void submit_FileNotFound_ShouldFailJob() throws InterruptedException {
+        LogJobDto job = await(logService.submit("2025-03-15"));
+        assertEquals(LogJobStatus.FAILED, job.getStatus());
+        assertEquals("Log file not found", job.getError());
     }
 
     @Test
-    void generateLogFileForDateAsync_NoLogsForDate_ShouldThrowException() throws IOException {
-        Path logFile = tempDir.resolve("application.log");
-        Files.write(logFile, "Other log entry".getBytes());
+    void submit_InvalidDate_ShouldThrowException() {
+        assertThrows(InvalidDataException.class, () -> logService.submit("15.03.2025"));
+    }
+
+    @Test
+    void submit_NoLogsForDate_ShouldFailJob() throws IOException, InterruptedException {
+        Files.write(tempDir.resolve("application.log"), "Other log entry".getBytes());
+
+        LogJobDto job = await(logService.submit("2025-03-15"));
+
+        assertEquals(LogJobStatus.FAILED, job.getStatus());
+        assertEquals("No logs found for the given date", job.getError());
+        assertNull(logService.getLogFilePath(job.getJobId()));
+        assertFalse(Files.exists(tempDir.resolve("logs-2025-03-15.log")));
+    }
+
+    @Test
+    void submit_ValidLogs_ShouldGenerateFile() throws IOException, InterruptedException {
+        Files.write(tempDir.resolve("application.log"),
+                "2025-03-22 12:00:00 INFO Some log message\n".getBytes());
+
+        LogJobDto job = await(logService.submit("2025-03-22"));
+
+        assertEquals(LogJobStatus.COMPLETED, job.getStatus());
+        assertEquals(1.0, job.getProgress());
+        assertNotNull(job.getCompletedAt());
+        assertTrue(logService.getLogFilePath(job.getJobId()).contains("logs-2025-03-22.log"));
+    }
+
+    @Test
+    void submit_SameEarlierDate_ShouldReuseJob() throws IOException, InterruptedException {
+        Files.writeString(tempDir.resolve("application.log"), lines("2025-03-22", 10));
+
+        LogJobDto first = logService.submit("2025-03-22");
+        LogJobDto second = logService.submit("2025-03-22");
+        await(first);
+
+        assertEquals(first.getJobId(), second.getJobId());
+        assertEquals(first.getJobId(), logService.submit("2025-03-22").getJobId());
+    }
+
+    @Test
+    void submit_TodayAfterCompletion_ShouldStartNewJob() throws IOException, InterruptedException {
+        String today = LocalDate.now().toString();
+        Files.writeString(tempDir.resolve("application.log"), lines(today, 10));
+        LogJobDto first = await(logService.submit(today));
+
+        LogJobDto second = await(logService.submit(today));
+
+        assertNotEquals(first.getJobId(), second.getJobId());
+        assertEquals(LogJobStatus.COMPLETED, second.getStatus());
+    }
+
+    @Test
+    void submit_DayEndedAfterCompletion_ShouldStartNewJobOnce() throws Exception {
+        MutableClock clock = new MutableClock(LocalDateTime.parse("2025-03-22T23:00:00"));
+        logService.stop();
+        logService = new LogService(tempDir.toString(), 1, 4, Duration.ofHours(1), 4096, clock);
+        Files.writeString(tempDir.resolve("application.log"), lines("2025-03-22", 10));
+        LogJobDto first = await(logService.submit("2025-03-22"));
+
+        clock.set(LocalDateTime.parse("2025-03-23T01:00:00"));
+        LogJobDto second = await(logService.submit("2025-03-22"));
+
+        assertNotEquals(first.getJobId(), second.getJobId());
+        assertEquals(second.getJobId(), logService.submit("2025-03-22").getJobId());
+    }
 
-        try (MockedStatic<Paths> pathsMockedStatic = Mockito.mockStatic(Paths.class)) {
-            pathsMockedStatic.when(() -> Paths.get("logs/application.log")).thenReturn(logFile);
+    @Test
+    void cancel_FinishedJob_ShouldKeepStatus() throws IOException, InterruptedException {
+        Files.writeString(tempDir.resolve("application.log"), lines("2025-03-22", 10));
+        LogJobDto job = await(logService.submit("2025-03-22"));
+
+        assertEquals(LogJobStatus.COMPLETED,
+                logService.cancel(job.getJobId()).orElseThrow().getStatus());
+        assertTrue(logService.cancel(UUID.randomUUID().toString()).isEmpty());
+    }
 
-            CompletableFuture<String> future = logService.generateLogFileForDateAsync("2025-03-15");
+    @Test
+    void purgeFinishedJobs_ExpiredJob_ShouldRemoveJobAndFile()
+            throws IOException, InterruptedException {
+        logService.stop();
+        logService = new LogService(tempDir.toString(), 1, 4, Duration.ZERO, 4096,
+                Clock.systemDefaultZone());
+        Files.writeString(tempDir.resolve("application.log"), lines("2025-03-22", 10));
+        LogJobDto job = await(logService.submit("2025-03-22"));
+        Thread.sleep(5);
+
+        logService.purgeFinishedJobs();
 
-            ExecutionException exception = assertThrows(ExecutionException.class, future::get);
-            assertTrue(exception.getCause() instanceof NoDataToFileException);
+        assertTrue(logService.getJob(job.getJobId()).isEmpty());
+        assertFalse(Files.exists(tempDir.resolve("logs-2025-03-22.log")));
+    }
+
+    @Test
+    void submit_SeveralDays_ShouldExtractOnlyThatDay() throws Exception {
+        logService.stop();
+        logService = service(256);
+        StringBuilder expected = new StringBuilder();
+        StringBuilder log = new StringBuilder();
+        for (int day = 21; day <= 23; day++) {
+            for (int i = 0; i < 100; i++) {
+                String line = String.format("2025-03-%d %02d:%02d:00 INFO message %d%n",
+                        day, i / 60, i % 60, i);
+                log.append(line);
+                if (day == 22) {
+                    expected.append(line);
+                }
+                if (i % 10 == 0) {
+                    String trace = "\tat com.example.fmanager.Some.method(Some.java:" + i + ")\n";
+                    log.append(trace);
+                    if (day == 22) {
+                        expected.append(trace);
+                    }
+                }
+            }
         }
+        Files.writeString(tempDir.resolve("application.log"), log);
+
+        String logId = await(logService.submit("2025-03-22")).getJobId();
+
+        assertEquals(expected.toString(), Files.readString(Paths.get(
+                logService.getLogFilePath(logId))));
+        assertTrue(Files.exists(tempDir.resolve("application.log.idx")));
     }
 
     @Test
-    void generateLogFileForDateAsync_ValidLogs_ShouldGenerateFile()
-            throws IOException, ExecutionException, InterruptedException {
+    void submit_GrowingLog_ShouldIndexAppendedLines() throws Exception {
+        logService.stop();
+        logService = service(64);
         Path logFile = tempDir.resolve("application.log");
-        String logEntry = "2025-03-22 12:00:00 INFO Some log message";
-        Files.write(logFile, logEntry.getBytes());
-        Path logsDir = tempDir.resolve("logs");
-        Files.createDirectories(logsDir);
-
-        try (MockedStatic<Paths> pathsMockedStatic = Mockito.mockStatic(Paths.class)) {
-            pathsMockedStatic.when(() -> Paths.get("logs/application.log")).thenReturn(logFile);
-            pathsMockedStatic.when(() -> Paths.get("logs/")).thenReturn(logsDir);
-
-            CompletableFuture<String> future = logService.generateLogFileForDateAsync("2025-03-22");
-            String logId = future.get();
-            assertNotNull(logId);
-            assertTrue(logService.getLogFilePath(logId).contains("logs-2025-03-22.log"));
-            assertTrue(logService.isTaskCompleted(logId));
-        }
+        Files.writeString(logFile, lines("2025-03-21", 50));
+        await(logService.submit("2025-03-21"));
+
+        Files.writeString(logFile, lines("2025-03-22", 50) + "2025-03-22 23:59:59 INFO partial",
+                StandardOpenOption.APPEND);
+        String logId = await(logService.submit("2025-03-22")).getJobId();
+
+        assertEquals(lines("2025-03-22", 50),
+                Files.readString(Paths.get(logService.getLogFilePath(logId))));
+    }
+
+    @Test
+    void submit_Restart_ShouldReuseStoredIndex() throws Exception {
+        Path logFile = tempDir.resolve("application.log");
+        Files.writeString(logFile, lines("2025-03-21", 100) + lines("2025-03-22", 100));
+        logService.stop();
+        logService = service(128);
+        await(logService.submit("2025-03-21"));
+        long indexSize = Files.size(tempDir.resolve("application.log.idx"));
+
+        logService.stop();
+        logService = service(128);
+        String logId = await(logService.submit("2025-03-22")).getJobId();
+
+        assertEquals(indexSize, Files.size(tempDir.resolve("application.log.idx")));
+        assertEquals(lines("2025-03-22", 100),
+                Files.readString(Paths.get(logService.getLogFilePath(logId))));
+    }
+
+    @Test
+    void submit_RolledSegments_ShouldComeFirstInOrder() throws Exception {
+        gzip(tempDir.resolve("application-2025-03-22.10.log.gz"), "2025-03-22 10:00:00 c\n");
+        gzip(tempDir.resolve("application-2025-03-22.2.log.gz"), "2025-03-22 02:00:00 b\n");
+        gzip(tempDir.resolve("application-2025-03-22.0.log.gz"), "2025-03-22 00:00:00 a\n");
+        gzip(tempDir.resolve("application-2025-03-21.0.log.gz"), "2025-03-21 00:00:00 x\n");
+        Files.writeString(tempDir.resolve("application.log"), "2025-03-22 12:00:00 d\n");
+
+        String logId = await(logService.submit("2025-03-22")).getJobId();
+
+        assertEquals("2025-03-22 00:00:00 a\n2025-03-22 02:00:00 b\n2025-03-22 10:00:00 c\n"
+                        + "2025-03-22 12:00:00 d\n",
+                Files.readString(Paths.get(logService.getLogFilePath(logId))));
+    }
+
+    @Test
+    void submit_LogRolledOverDuringExtraction_ShouldStartAgain() throws Exception {
+        Path logFile = tempDir.resolve("application.log");
+        Files.writeString(logFile, lines("2025-03-22", 10));
+        String tail = "2025-03-22 23:00:00 INFO after rollover\n";
+        replaceServiceOnFirstListing(() -> {
+            Path rolled = tempDir.resolve("rolled");
+            Files.move(logFile, rolled);
+            gzip(tempDir.resolve("application-2025-03-22.0.log.gz"), Files.readString(rolled));
+            Files.writeString(logFile, tail);
+        });
+
+        LogJobDto job = await(logService.submit("2025-03-22"));
+
+        assertEquals(LogJobStatus.COMPLETED, job.getStatus());
+        assertEquals(lines("2025-03-22", 10) + tail,
+                Files.readString(Paths.get(logService.getLogFilePath(job.getJobId()))));
+    }
+
+    @Test
+    void submit_LogTruncatedDuringExtraction_ShouldFailJob() throws Exception {
+        Path logFile = tempDir.resolve("application.log");
+        Files.writeString(logFile, lines("2025-03-22", 10));
+        replaceServiceOnFirstListing(() -> {
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                channel.truncate(5);
+            }
+        });
+
+        LogJobDto job = await(logService.submit("2025-03-22"));
+
+        assertEquals(LogJobStatus.FAILED, job.getStatus());
+        assertEquals("Error processing file", job.getError());
     }
 
     @Test
@@ -80,7 +275,88 @@ class LogServiceTest {
     }
 
     @Test
-    void isTaskCompleted_NonExistingLogId_ShouldReturnFalse() {
-        assertFalse(logService.isTaskCompleted(UUID.randomUUID().toString()));
+    void getJob_NonExistingLogId_ShouldReturnEmpty() {
+        assertTrue(logService.getJob(UUID.randomUUID().toString()).isEmpty());
+    }
+
+    private LogService service(int indexInterval) {
+        return new LogService(tempDir.toString(), 1, 4, Duration.ofHours(1), indexInterval,
+                Clock.systemDefaultZone());
+    }
+
+    /**
+     * Replaces the service with one that runs {@code change} once, after the range of the active
+     * log was computed and before it is copied.
+     */
+    private void replaceServiceOnFirstListing(FileChange change) {
+        logService.stop();
+        AtomicBoolean changed = new AtomicBoolean();
+        logService = new LogService(tempDir.toString(), 1, 4, Duration.ofHours(1), 4096,
+                Clock.systemDefaultZone()) {
+            @Override
+            List<RolledSegment> rolledSegments(LocalDate from, LocalDate to) throws IOException {
+                if (changed.compareAndSet(false, true)) {
+                    change.run();
+                }
+                return super.rolledSegments(from, to);
+            }
+        };
+    }
+
+    private interface FileChange {
+        void run() throws IOException;
+    }
+
+    private LogJobDto await(LogJobDto job) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            LogJobDto current = logService.getJob(job.getJobId()).orElseThrow();
+            if (current.getCompletedAt() != null) {
+                return current;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Job did not finish: " + job.getJobId());
+    }
+
+    private static String lines(String date, int count) {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            lines.append(String.format("%s %02d:%02d:%02d INFO message %d%n",
+                    date, i / 3600, i / 60 % 60, i % 60, i));
+        }
+        return lines.toString();
+    }
+
+    private static void gzip(Path file, String content) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant instant;
+
+        private MutableClock(LocalDateTime time) {
+            set(time);
+        }
+
+        private void set(LocalDateTime time) {
+            instant = time.toInstant(ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,40 @@
+package com.example.fmanager.service;
+
+import com.example.fmanager.dto.MethodProfileDto;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MethodProfilerTest {
+
+    @Test
+    void record_AttributesThreadCountsToTheMethod() {
+        MethodProfiler methodProfiler = new MethodProfiler();
+        Object key = new Object();
+        for (int call = 1; call <= 2; call++) {
+            long statements = MethodProfiler.statementCount();
+            long rows = MethodProfiler.rowCount();
+            for (int i = 0; i < call * 3; i++) {
+                MethodProfiler.countStatement();
+                MethodProfiler.countRow();
+                MethodProfiler.countRow();
+            }
+            methodProfiler.record(key, k -> "AccountService.getAllAccounts()",
+                    call * 2_000_000L, statements, rows);
+        }
+
+        MethodProfileDto profile = methodProfiler.getProfiles()
+                .get("AccountService.getAllAccounts()");
+
+        assertEquals(2, profile.getCalls());
+        assertEquals(4.5, profile.getStatementsPerCall());
+        assertEquals(6, profile.getStatementsMax());
+        assertEquals(9.0, profile.getRowsPerCall());
+        assertTrue(profile.getP50() >= 2 && profile.getP50() < 2.2);
+        assertTrue(profile.getP99() >= 4 && profile.getP99() < 4.3);
+
+        methodProfiler.reset();
+        assertTrue(methodProfiler.getProfiles().isEmpty());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.fmanager.service;
+
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplicaRoutingTest {
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRouting.setReplicaRead(false);
+    }
+
+    @Test
+    void recordWrite_MakesOnlyThatClientStickyUntilTheWindowPasses() throws InterruptedException {
+        ReplicaRouting routing = new ReplicaRouting(Duration.ofMillis(50));
+
+        routing.recordWrite(1);
+
+        assertTrue(routing.isSticky(1));
+        assertFalse(routing.isSticky(2));
+        Thread.sleep(60);
+        assertFalse(routing.isSticky(1));
+    }
+
+    @Test
+    void recordWrite_ZeroWindowDisablesStickiness() {
+        ReplicaRouting routing = new ReplicaRouting(Duration.ZERO);
+
+        routing.recordWrite(1);
+
+        assertFalse(routing.isSticky(1));
+    }
+
+    @Test
+    void purgeExpired_RemovesOnlyExpiredWrites() throws InterruptedException {
+        ReplicaRouting routing = new ReplicaRouting(Duration.ofMillis(50));
+        routing.recordWrite(1);
+        Thread.sleep(60);
+        routing.recordWrite(2);
+
+        routing.purgeExpired();
+
+        assertFalse(routing.isSticky(1));
+        assertTrue(routing.isSticky(2));
+    }
+
+    @Test
+    void setReplicaRead_IsPerThread() throws InterruptedException {
+        ReplicaRouting.setReplicaRead(true);
+        boolean[] otherThread = new boolean[1];
+        Thread thread = new Thread(() -> otherThread[0] = ReplicaRouting.isReplicaRead());
+        thread.start();
+        thread.join();
+
+        assertTrue(ReplicaRouting.isReplicaRead());
+        assertFalse(otherThread[0]);
+    }
+}
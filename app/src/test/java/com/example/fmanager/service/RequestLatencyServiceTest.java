@@ -0,0 +1,61 @@
+package com.example.fmanager.service;
+
+import java.util.Map;
+import com.example.fmanager.dto.LatencySummaryDto;
+import com.example.fmanager.dto.RouteLatencyDto;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestLatencyServiceTest {
+
+    @Test
+    void getLatencies_ReportsPercentilesPerRouteAndStatus() {
+        RequestLatencyService latencyService = new RequestLatencyService(10);
+        for (int millis = 1; millis <= 1000; millis++) {
+            latencyService.recordLatency("/accounts", 200, millis * 1_000_000L);
+        }
+        latencyService.recordLatency("/accounts", 404, 3_000_000L);
+
+        RouteLatencyDto accounts = latencyService.getLatencies().get("/accounts");
+
+        LatencySummaryDto ok = accounts.getByStatus().get(200);
+        assertEquals(1000, ok.getCount());
+        assertWithinBucket(500, ok.getP50());
+        assertWithinBucket(900, ok.getP90());
+        assertWithinBucket(990, ok.getP99());
+        assertWithinBucket(999, ok.getP999());
+        assertEquals(1, accounts.getByStatus().get(404).getCount());
+        assertWithinBucket(3, accounts.getByStatus().get(404).getP50());
+        assertEquals(1001, accounts.getAll().getCount());
+    }
+
+    @Test
+    void recordLatency_SharesOneRoutePastTheKeyCap() {
+        RequestLatencyService latencyService = new RequestLatencyService(1);
+        latencyService.recordLatency("/accounts", 200, 1_000_000L);
+        latencyService.recordLatency("/clients", 200, 1_000_000L);
+
+        Map<String, RouteLatencyDto> latencies = latencyService.getLatencies();
+
+        assertEquals(2, latencies.size());
+        assertEquals(1, latencies.get(VisitCounterService.OTHER).getAll().getCount());
+    }
+
+    @Test
+    void latencyHistogram_BucketsAreContiguous() {
+        int buckets = LatencyHistogram.index(LatencyHistogram.MAX_VALUE) + 1;
+        for (int i = 0; i < buckets - 1; i++) {
+            long highest = LatencyHistogram.highestValue(i);
+            assertEquals(i, LatencyHistogram.index(highest));
+            assertEquals(i + 1, LatencyHistogram.index(highest + 1));
+        }
+        assertEquals(LatencyHistogram.MAX_VALUE, LatencyHistogram.highestValue(buckets - 1));
+    }
+
+    private static void assertWithinBucket(double expectedMillis, double actualMillis) {
+        assertTrue(actualMillis >= expectedMillis && actualMillis <= expectedMillis * 1.07,
+                () -> "expected about " + expectedMillis + " ms but was " + actualMillis);
+    }
+}
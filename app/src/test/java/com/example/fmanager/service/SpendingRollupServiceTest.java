@@ -0,0 +1,278 @@
+package com.example.fmanager.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import com.example.fmanager.dto.SpendingSummaryDto;
+import com.example.fmanager.exception.InvalidDataException;
+import com.example.fmanager.models.Account;
+import com.example.fmanager.models.ArchivedTransaction;
+import com.example.fmanager.models.Category;
+import com.example.fmanager.models.Client;
+import com.example.fmanager.models.SpendingRollup;
+import com.example.fmanager.models.Transaction;
+import com.example.fmanager.repository.SpendingRollupRepository;
+import com.example.fmanager.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.calls;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SpendingRollupServiceTest {
+
+    @Mock
+    private SpendingRollupRepository rollupRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionArchiveService transactionArchiveService;
+
+    @InjectMocks
+    private SpendingRollupService spendingRollupService;
+
+    private Account account;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        Client client = new Client();
+        client.setId(1);
+        account = new Account();
+        account.setId(2);
+        account.setClient(client);
+        category = new Category();
+        category.setId(3);
+    }
+
+    private Transaction transaction(int id, double amount) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setAmount(amount);
+        transaction.setDate(LocalDateTime.of(2025, 3, 14, 12, 0));
+        transaction.setAccount(account);
+        transaction.setCategory(category);
+        return transaction;
+    }
+
+    private SpendingRollup rollup(double total, long count, double min, double max) {
+        SpendingRollup rollup = new SpendingRollup();
+        rollup.setClientId(1);
+        rollup.setYearMonth(202503);
+        rollup.setCategoryId(3);
+        rollup.setAccountId(2);
+        rollup.setTotalAmount(total);
+        rollup.setTransactionCount(count);
+        rollup.setMinAmount(min);
+        rollup.setMaxAmount(max);
+        return rollup;
+    }
+
+    @Test
+    void recordTransactions_AggregatesBatchIntoOneBucketUpdate() {
+        when(rollupRepository.findBucketForUpdate(1, 202503, 3, 2)).thenReturn(Optional.empty());
+
+        spendingRollupService.recordTransactions(List.of(
+                transaction(1, -10), transaction(2, -40), transaction(3, 25)));
+
+        ArgumentCaptor<SpendingRollup> saved = ArgumentCaptor.forClass(SpendingRollup.class);
+        verify(rollupRepository, times(1)).save(saved.capture());
+        assertEquals(-25, saved.getValue().getTotalAmount());
+        assertEquals(3, saved.getValue().getTransactionCount());
+        assertEquals(-40, saved.getValue().getMinAmount());
+        assertEquals(25, saved.getValue().getMaxAmount());
+    }
+
+    @Test
+    void recordTransactions_NewBucket_ShouldInsertBeforeLocking() {
+        SpendingRollup inserted = rollup(0, 0, 0, 0);
+        when(rollupRepository.findBucketForUpdate(1, 202503, 3, 2))
+                .thenReturn(Optional.of(inserted));
+
+        spendingRollupService.recordTransaction(transaction(1, -10));
+
+        InOrder order = inOrder(rollupRepository);
+        order.verify(rollupRepository).insertBucketIfAbsent(1, 202503, 3, 2);
+        order.verify(rollupRepository).findBucketForUpdate(1, 202503, 3, 2);
+        order.verify(rollupRepository).save(inserted);
+        assertEquals(-10, inserted.getMinAmount());
+        assertEquals(-10, inserted.getMaxAmount());
+        assertEquals(1, inserted.getTransactionCount());
+    }
+
+    @Test
+    void revertTransaction_RescansBucketWhenExtremeIsRemoved() {
+        SpendingRollup rollup = rollup(-50, 2, -40, -10);
+        when(rollupRepository.findBucketForUpdate(1, 202503, 3, 2)).thenReturn(Optional.of(rollup));
+        List<Object[]> range = new ArrayList<>();
+        range.add(new Object[] {-10.0, -10.0});
+        when(transactionRepository.findAmountRangeExcluding(eq(2), eq(3), any(), any(), eq(5)))
+                .thenReturn(range);
+
+        spendingRollupService.revertTransaction(transaction(5, -40));
+
+        assertEquals(-10, rollup.getTotalAmount());
+        assertEquals(1, rollup.getTransactionCount());
+        assertEquals(-10, rollup.getMinAmount());
+        assertEquals(-10, rollup.getMaxAmount());
+    }
+
+    @Test
+    void revertTransaction_ArchivedExtreme_ShouldBeKept() {
+        SpendingRollup rollup = rollup(-80, 3, -40, -10);
+        when(rollupRepository.findBucketForUpdate(1, 202503, 3, 2)).thenReturn(Optional.of(rollup));
+        List<Object[]> range = new ArrayList<>();
+        range.add(new Object[] {-30.0, -30.0});
+        when(transactionRepository.findAmountRangeExcluding(eq(2), eq(3), any(), any(), eq(5)))
+                .thenReturn(range);
+        when(transactionArchiveService.findByClientId(eq(1), any())).thenReturn(List.of(
+                new ArchivedTransaction(6, null, -40, LocalDateTime.of(2025, 3, 2, 9, 0), null,
+                        2, 3),
+                new ArchivedTransaction(7, null, -90, LocalDateTime.of(2025, 2, 2, 9, 0), null,
+                        2, 3)));
+
+        spendingRollupService.revertTransaction(transaction(5, -10));
+
+        assertEquals(-40, rollup.getMinAmount());
+        assertEquals(-30, rollup.getMaxAmount());
+    }
+
+    @Test
+    void revertTransaction_MonthArchivedWithPartition_ShouldKeepItsRange() {
+        SpendingRollup rollup = rollup(-50, 2, -40, -10);
+        when(rollupRepository.findBucketForUpdate(1, 202503, 3, 2)).thenReturn(Optional.of(rollup));
+        when(rollupRepository.findArchivedMonths()).thenReturn(List.of(202503));
+
+        spendingRollupService.revertTransaction(transaction(5, -40));
+
+        assertEquals(-10, rollup.getTotalAmount());
+        assertEquals(-40, rollup.getMinAmount());
+        assertEquals(-10, rollup.getMaxAmount());
+        verify(transactionRepository, times(0))
+                .findAmountRangeExcluding(anyInt(), anyInt(), any(), any(), anyInt());
+    }
+
+    @Test
+    void updateTransaction_LocksBothBucketsInLockOrderFirst() {
+        Transaction transaction = transaction(5, -40);
+        SpendingRollup march = rollup(-50, 2, -40, -10);
+        when(rollupRepository.findBucketForUpdate(1, 202503, 3, 2)).thenReturn(Optional.of(march));
+        when(rollupRepository.findBucketForUpdate(1, 202502, 3, 2)).thenReturn(Optional.empty());
+
+        spendingRollupService.updateTransaction(transaction,
+                () -> transaction.setDate(LocalDateTime.of(2025, 2, 10, 12, 0)));
+
+        InOrder order = inOrder(rollupRepository);
+        order.verify(rollupRepository, calls(1)).insertBucketIfAbsent(1, 202502, 3, 2);
+        order.verify(rollupRepository, calls(1)).findBucketForUpdate(1, 202502, 3, 2);
+        order.verify(rollupRepository, calls(1)).findBucketForUpdate(1, 202503, 3, 2);
+        order.verify(rollupRepository).save(march);
+        assertEquals(-10, march.getTotalAmount());
+    }
+
+    @Test
+    void revertTransaction_DeletesEmptiedBucket() {
+        SpendingRollup rollup = rollup(-10, 1, -10, -10);
+        when(rollupRepository.findBucketForUpdate(1, 202503, 3, 2)).thenReturn(Optional.of(rollup));
+
+        spendingRollupService.revertTransaction(transaction(5, -10));
+
+        verify(rollupRepository).delete(rollup);
+    }
+
+    @Test
+    void getYearlySummary_ReadsOnlyRollups() {
+        when(rollupRepository.summarizeByCategory(1, 202501, 202512)).thenReturn(
+                new ArrayList<>(List.of(new SpendingSummaryDto(0, 3, -50, 2, -40, -10))));
+
+        List<SpendingSummaryDto> result = spendingRollupService.getYearlySummary(1, 2025);
+
+        assertEquals(2025, result.get(0).getPeriod());
+        verify(transactionRepository, times(0)).aggregateSpendingBuckets();
+    }
+
+    @Test
+    void getMonthlySummary_InvalidMonth() {
+        assertThrows(InvalidDataException.class,
+                () -> spendingRollupService.getMonthlySummary(1, 2025, 13));
+        verify(rollupRepository, times(0))
+                .summarizeByMonthAndCategory(anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_MergesArchivedTransactionsIntoBuckets() {
+        List<Object[]> live = new ArrayList<>();
+        live.add(new Object[]{1, 3, 2, 202503, -10.0, 1L, -10.0, -10.0});
+        when(transactionRepository.aggregateSpendingBuckets()).thenReturn(live);
+        doAnswer(invocation -> {
+            BiConsumer<Integer, ArchivedTransaction> consumer = invocation.getArgument(0);
+            consumer.accept(1, new ArchivedTransaction(7, "Rent", -40, null,
+                    LocalDateTime.of(2025, 3, 1, 9, 0), 2, 3));
+            consumer.accept(1, new ArchivedTransaction(8, null, -5, null,
+                    LocalDateTime.of(2021, 1, 1, 9, 0), 2, 3));
+            return null;
+        }).when(transactionArchiveService).forEachArchived(any());
+        ArgumentCaptor<Iterable<SpendingRollup>> captor = ArgumentCaptor.forClass(Iterable.class);
+
+        assertEquals(2, spendingRollupService.rebuild());
+
+        verify(rollupRepository).saveAll(captor.capture());
+        List<SpendingRollup> saved = new ArrayList<>();
+        captor.getValue().forEach(saved::add);
+        SpendingRollup march = saved.get(0);
+        assertEquals(202503, march.getYearMonth());
+        assertEquals(-50.0, march.getTotalAmount());
+        assertEquals(2, march.getTransactionCount());
+        assertEquals(-40.0, march.getMinAmount());
+        assertEquals(-10.0, march.getMaxAmount());
+        assertEquals(202101, saved.get(1).getYearMonth());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_ArchivedMonth_ShouldKeepItsRollups() {
+        when(rollupRepository.findArchivedMonths()).thenReturn(List.of(202101));
+        List<Object[]> live = new ArrayList<>();
+        live.add(new Object[]{1, 3, 2, 202503, -10.0, 1L, -10.0, -10.0});
+        live.add(new Object[]{1, 3, 2, 202101, -7.0, 1L, -7.0, -7.0});
+        when(transactionRepository.aggregateSpendingBuckets()).thenReturn(live);
+        doAnswer(invocation -> {
+            BiConsumer<Integer, ArchivedTransaction> consumer = invocation.getArgument(0);
+            consumer.accept(1, new ArchivedTransaction(8, null, -5, null,
+                    LocalDateTime.of(2021, 1, 1, 9, 0), 2, 3));
+            return null;
+        }).when(transactionArchiveService).forEachArchived(any());
+        ArgumentCaptor<Iterable<SpendingRollup>> captor = ArgumentCaptor.forClass(Iterable.class);
+
+        assertEquals(1, spendingRollupService.rebuild());
+
+        verify(rollupRepository).deleteAllOutsideArchivedMonths();
+        verify(rollupRepository, times(0)).deleteAllInBatch();
+        verify(rollupRepository).saveAll(captor.capture());
+        List<SpendingRollup> saved = new ArrayList<>();
+        captor.getValue().forEach(saved::add);
+        assertEquals(1, saved.size());
+        assertEquals(202503, saved.get(0).getYearMonth());
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.fmanager.service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import com.example.fmanager.models.Account;
+import com.example.fmanager.models.ArchivedTransaction;
+import com.example.fmanager.models.Category;
+import com.example.fmanager.models.Transaction;
+import com.example.fmanager.repository.AccountRepository;
+import com.example.fmanager.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionOperations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionArchiveServiceTest {
+
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    private TransactionArchiveService archiveService;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        archiveService = new TransactionArchiveService(transactionRepository, accountRepository,
+                ShardRouting.unsharded(), TransactionOperations.withoutTransaction(), true,
+                tempDir.toString(), 24, 100);
+        account = new Account();
+        account.setId(4);
+    }
+
+    private Transaction transaction(int id, double amount, int categoryId, String description,
+                                    LocalDateTime date) {
+        Category category = new Category();
+        category.setId(categoryId);
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setAmount(amount);
+        transaction.setDescription(description);
+        transaction.setDate(date);
+        transaction.setCreatedAt(LocalDateTime.of(2022, 5, 1, 8, 30, 15, 123_456_000));
+        transaction.setAccount(account);
+        transaction.setCategory(category);
+        return transaction;
+    }
+
+    @Test
+    void archiveClient_RoundTripsThroughColumnarSegment() {
+        List<Transaction> rows = List.of(
+                transaction(10, -12.34, 1, "Coffee", LocalDateTime.of(2022, 3, 2, 9, 0)),
+                transaction(11, -3.5, 2, "Bus", LocalDateTime.of(2022, 1, 5, 18, 45)),
+                transaction(12, -2.1, 1, "Coffee", null),
+                transaction(13, 1500, 3, null, LocalDateTime.of(2022, 2, 1, 0, 0)));
+        when(transactionRepository.findAllByClientIdBefore(eq(1), eq(CUTOFF), eq(0),
+                any(Limit.class))).thenReturn(rows);
+
+        assertEquals(4, archiveService.archiveClient(1, CUTOFF));
+
+        verify(transactionRepository).deleteAllByIdInBatch(List.of(10, 11, 12, 13));
+        verify(accountRepository).addToOpeningBalance(4, -12.34 - 3.5 - 2.1 + 1500);
+        when(accountRepository.findIdsByClientId(1)).thenReturn(List.of(4));
+        List<ArchivedTransaction> all = archiveService.findByClientId(1, category -> true);
+        assertEquals(List.of(11, 13, 10, 12), all.stream().map(ArchivedTransaction::id).toList());
+        for (Transaction expected : rows) {
+            ArchivedTransaction actual = all.stream()
+                    .filter(row -> row.id() == expected.getId()).findFirst().orElseThrow();
+            assertEquals(ArchivedTransaction.of(expected), actual);
+        }
+        List<ArchivedTransaction> coffee = archiveService.findByClientId(1,
+                category -> category == 1);
+        assertEquals(List.of(10, 12), coffee.stream().map(ArchivedTransaction::id).toList());
+        assertNull(coffee.get(1).date());
+        assertTrue(archiveService.findByClientId(2, category -> true).isEmpty());
+    }
+
+    @Test
+    void archiveClient_KeepsSubCentAmountsAndSkipsAlreadyArchivedRows() {
+        Transaction coffee = transaction(10, -12.34, 1, "Coffee",
+                LocalDateTime.of(2022, 3, 2, 9, 0));
+        when(transactionRepository.findAllByClientIdBefore(eq(1), eq(CUTOFF), anyInt(),
+                any(Limit.class)))
+                .thenReturn(List.of(coffee))
+                .thenReturn(List.of(coffee, transaction(11, -0.125, 1, "Fee",
+                        LocalDateTime.of(2022, 3, 3, 9, 0))));
+        archiveService.archiveClient(1, CUTOFF);
+
+        assertEquals(1, archiveService.archiveClient(1, CUTOFF));
+
+        verify(transactionRepository, times(2))
+                .deleteAllByIdInBatch(List.of(10));
+        when(accountRepository.findIdsByClientId(1)).thenReturn(List.of(4));
+        assertEquals(1, archiveService.findByClientId(1, category -> true).size());
+    }
+
+    @Test
+    void findByClientId_AccountDeleted_ShouldSkipItsArchivedRows() {
+        when(transactionRepository.findAllByClientIdBefore(eq(1), eq(CUTOFF), eq(0),
+                any(Limit.class))).thenReturn(List.of(
+                        transaction(10, -12.34, 1, "Coffee", LocalDateTime.of(2022, 3, 2, 9, 0))));
+        archiveService.archiveClient(1, CUTOFF);
+
+        when(accountRepository.findIdsByClientId(1)).thenReturn(List.of(5));
+
+        assertTrue(archiveService.findByClientId(1, category -> true).isEmpty());
+    }
+
+    @Test
+    void forEachArchived_RowStillInDatabase_ShouldBeLeftOut() {
+        when(transactionRepository.findAllByClientIdBefore(eq(1), eq(CUTOFF), eq(0),
+                any(Limit.class))).thenReturn(List.of(
+                        transaction(10, -12.34, 1, "Coffee", LocalDateTime.of(2022, 3, 2, 9, 0)),
+                        transaction(11, -3.5, 2, "Bus", LocalDateTime.of(2022, 1, 5, 18, 45))));
+        archiveService.archiveClient(1, CUTOFF);
+        when(accountRepository.findIdsByClientId(1)).thenReturn(List.of(4));
+        when(transactionRepository.findExistingIds(List.of(11, 10))).thenReturn(List.of(10));
+
+        List<Integer> passed = new ArrayList<>();
+        archiveService.forEachArchived((clientId, transaction) -> passed.add(transaction.id()));
+
+        assertEquals(List.of(11), passed);
+    }
+}
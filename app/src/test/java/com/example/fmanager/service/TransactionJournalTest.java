@@ -0,0 +1,135 @@
+package com.example.fmanager.service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import com.example.fmanager.dto.TransactionCreateDto;
+import com.example.fmanager.dto.TransactionGetDto;
+import com.example.fmanager.exception.InvalidDataException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    private TransactionCreateDto dto;
+
+    @BeforeEach
+    void setUp() {
+        dto = new TransactionCreateDto("Coffee", -5, LocalDateTime.now(), 1, 1);
+    }
+
+    private TransactionJournal journal() {
+        return new TransactionJournal(idempotencyService,
+                new ObjectMapper().findAndRegisterModules(), ShardRouting.unsharded(),
+                true, tempDir.toString(), 4096, Duration.ofMillis(20));
+    }
+
+    private void awaitReplay(TransactionJournal journal, String key) throws InterruptedException {
+        for (int i = 0; i < 250 && journal.isPending(key); i++) {
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void appendAfterFailure_ReplaysWhenDatabaseRecovers() throws Exception {
+        when(idempotencyService.createTransaction(anyString(), any(TransactionCreateDto.class)))
+                .thenThrow(new CannotCreateTransactionException("Connection refused"))
+                .thenReturn(new TransactionGetDto());
+        TransactionJournal journal = journal();
+        journal.start();
+        try {
+            String key = journal.appendAfterFailure(journal.assignKey(null), dto,
+                    new CannotCreateTransactionException("Connection refused"));
+            assertNotNull(key);
+
+            awaitReplay(journal, key);
+            assertFalse(journal.isPending(key));
+            verify(idempotencyService, atLeast(2)).createTransaction(eq(key), any());
+        } finally {
+            journal.stop();
+        }
+    }
+
+    @Test
+    void appendIfBacklogged_KeepsOrderWhileBacklogExists() throws Exception {
+        // The replayer may not get to the entry before the journal is stopped.
+        lenient().when(idempotencyService.createTransaction(anyString(),
+                        any(TransactionCreateDto.class)))
+                .thenThrow(new CannotCreateTransactionException("Connection refused"));
+        TransactionJournal journal = journal();
+        journal.start();
+        try {
+            assertFalse(journal.appendIfBacklogged("first", dto).isPresent());
+            journal.appendAfterFailure("first", dto,
+                    new CannotCreateTransactionException("Connection refused"));
+
+            assertTrue(journal.appendIfBacklogged("second", dto).isPresent());
+            assertTrue(journal.isPending("second"));
+        } finally {
+            journal.stop();
+        }
+    }
+
+    @Test
+    void appendAfterFailure_RethrowsBusinessErrors() throws Exception {
+        TransactionJournal journal = journal();
+        journal.start();
+        try {
+            InvalidDataException failure = new InvalidDataException("Insufficient funds");
+            InvalidDataException thrown = assertThrows(InvalidDataException.class,
+                    () -> journal.appendAfterFailure("key", dto, failure));
+            assertSame(failure, thrown);
+            assertFalse(journal.isPending("key"));
+        } finally {
+            journal.stop();
+        }
+    }
+
+    @Test
+    void start_RestoresPendingPostingsAfterRestart() throws Exception {
+        when(idempotencyService.createTransaction(anyString(), any(TransactionCreateDto.class)))
+                .thenThrow(new CannotCreateTransactionException("Connection refused"));
+        TransactionJournal journal = journal();
+        journal.start();
+        for (int i = 0; i < 50; i++) {
+            journal.appendAfterFailure("key-" + i, dto,
+                    new CannotCreateTransactionException("Connection refused"));
+        }
+        journal.stop();
+
+        TransactionJournal restarted = journal();
+        restarted.start();
+        try {
+            assertTrue(restarted.isPending("key-0"));
+            assertTrue(restarted.isPending("key-49"));
+        } finally {
+            restarted.stop();
+        }
+    }
+}
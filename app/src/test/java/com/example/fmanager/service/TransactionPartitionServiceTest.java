@@ -0,0 +1,135 @@
+package com.example.fmanager.service;
+
+import com.example.fmanager.exception.ProcessingFileException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionPartitionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PGConnection pgConnection;
+
+    @Mock
+    private CopyManager copyManager;
+
+    private TransactionPartitionService service(boolean enabled) {
+        return new TransactionPartitionService(jdbcTemplate, dataSource,
+                ShardRouting.unsharded(), TransactionOperations.withoutTransaction(), enabled, 2,
+                24, tempDir.toString());
+    }
+
+    @Test
+    void partitionName_RoundTrips() {
+        YearMonth month = YearMonth.of(2024, 3);
+
+        assertEquals("transactions_p202403", TransactionPartitionService.partitionName(month));
+        assertEquals(Optional.of(month),
+                TransactionPartitionService.parsePartitionName("transactions_p202403"));
+        assertEquals(Optional.empty(),
+                TransactionPartitionService.parsePartitionName("transactions_default"));
+    }
+
+    @Test
+    void maintain_Disabled_DoesNothing() {
+        service(false).maintain();
+
+        verifyNoInteractions(jdbcTemplate, dataSource);
+    }
+
+    @Test
+    void createPartitionsThrough_SkipsExistingMonths() {
+        YearMonth current = YearMonth.now();
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(List.of(TransactionPartitionService.partitionName(current)));
+
+        List<YearMonth> created = service(true).createPartitionsThrough(current.plusMonths(2));
+
+        assertEquals(List.of(current.plusMonths(1), current.plusMonths(2)), created);
+        verify(jdbcTemplate, never()).execute(
+                contains(TransactionPartitionService.partitionName(current) + " "));
+    }
+
+    @Test
+    void archivePartitionsBefore_ExportsThenDetachesAndDrops() throws Exception {
+        String partition = stubOldPartition(3L);
+        when(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + partition, Long.class))
+                .thenReturn(3L);
+
+        List<Path> archived = service(true).archivePartitionsBefore(YearMonth.of(2021, 1));
+
+        assertEquals(List.of(tempDir.resolve(partition + ".csv.gz")), archived);
+        assertTrue(Files.exists(archived.get(0)));
+        InOrder inOrder = inOrder(copyManager, jdbcTemplate);
+        inOrder.verify(copyManager).copyOut(contains(partition), any(OutputStream.class));
+        inOrder.verify(jdbcTemplate)
+                .execute("ALTER TABLE transactions DETACH PARTITION " + partition);
+        inOrder.verify(jdbcTemplate).execute("DROP TABLE " + partition);
+    }
+
+    @Test
+    void archivePartitionsBefore_RowsAddedAfterExport_ShouldKeepPartition() throws Exception {
+        String partition = stubOldPartition(3L);
+        when(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + partition, Long.class))
+                .thenReturn(4L);
+
+        TransactionPartitionService service = service(true);
+        assertThrows(ProcessingFileException.class,
+                () -> service.archivePartitionsBefore(YearMonth.of(2021, 1)));
+        verify(jdbcTemplate, never()).execute("DROP TABLE " + partition);
+        verify(jdbcTemplate, never()).update(contains("opening_balance"));
+    }
+
+    private String stubOldPartition(long rows) throws Exception {
+        String partition = TransactionPartitionService.partitionName(YearMonth.of(2020, 1));
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(List.of(partition, TransactionPartitionService.partitionName(
+                        YearMonth.now())));
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyOut(anyString(), any(OutputStream.class))).thenReturn(rows);
+        return partition;
+    }
+}
@@ -3,29 +3,43 @@ package com.example.fmanager.service;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 import com.example.fmanager.dto.TransactionCreateDto;
 import com.example.fmanager.dto.TransactionGetDto;
+import com.example.fmanager.dto.TransactionSearchDto;
+import com.example.fmanager.dto.TransactionSearchResultDto;
+import com.example.fmanager.exception.InvalidDataException;
 import com.example.fmanager.exception.NotFoundException;
+import com.example.fmanager.exception.BudgetLimitExceededException;
 import com.example.fmanager.models.Account;
+import com.example.fmanager.models.Budget;
 import com.example.fmanager.models.Category;
 import com.example.fmanager.models.Client;
 import com.example.fmanager.models.Transaction;
 import com.example.fmanager.repository.AccountRepository;
+import com.example.fmanager.repository.BudgetRepository;
 import com.example.fmanager.repository.CategoryRepository;
+import com.example.fmanager.repository.IdempotencyRecordRepository;
 import com.example.fmanager.repository.TransactionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionOperations;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.times;
@@ -44,9 +58,30 @@ class TransactionServiceTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private BudgetRepository budgetRepository;
+
+    @Mock
+    private SpendingRollupService spendingRollupService;
+
     @Mock
     private InMemoryCache cache;
 
+    @Mock
+    private TransactionArchiveService transactionArchiveService;
+
+    @Mock
+    private ReplicaRouting replicaRouting;
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Spy
+    private ShardRouting shardRouting = ShardRouting.unsharded();
+
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -113,11 +148,25 @@ class TransactionServiceTest {
         when(accountRepository.findById(1)).thenReturn(Optional.of(account));
         when(categoryRepository.findById(1)).thenReturn(Optional.of(category));
         when(transactionRepository.save(any(Transaction.class))).thenReturn(savedTransaction);
+        when(accountRepository.addToBalance(1, dto.getAmount())).thenReturn(1);
 
         Transaction result = transactionService.createTransaction(dto);
 
         assertNotNull(result);
         assertEquals(savedTransaction.getAmount(), result.getAmount());
+        verify(accountRepository, times(0)).save(any(Account.class));
+    }
+
+    @Test
+    void createTransaction_FundsSpentConcurrently_ShouldThrowException() {
+        TransactionCreateDto dto = new TransactionCreateDto(
+                "Groceries", -500, LocalDateTime.now(), 1, 1);
+        when(accountRepository.findById(1)).thenReturn(Optional.of(account));
+        when(categoryRepository.findById(1)).thenReturn(Optional.of(category));
+        when(accountRepository.addToBalance(1, -500)).thenReturn(0);
+
+        assertThrows(InvalidDataException.class, () -> transactionService.createTransaction(dto));
+        verify(transactionRepository, times(0)).save(any(Transaction.class));
     }
 
     @Test
@@ -196,12 +245,37 @@ class TransactionServiceTest {
         when(transactionRepository.findById(1)).thenReturn(Optional.of(transaction));
         when(accountRepository.findById(1)).thenReturn(Optional.of(account));  // Исправление
         when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
+        when(accountRepository.addToBalance(1, 3 - transaction.getAmount())).thenReturn(1);
+        applyRollupChange();
 
         TransactionGetDto result = transactionService.updateTransaction(1, updateDto);
 
         assertEquals(updateDto.getDescription(), result.getDescription());
     }
 
+    @Test
+    void updateTransaction_InsufficientFunds_ShouldThrowException() {
+        TransactionCreateDto updateDto = new TransactionCreateDto(
+                "Updated Transaction", -5000, LocalDateTime.now(), 1, 1);
+        double difference = -5000 - transaction.getAmount();
+        when(transactionRepository.findById(1)).thenReturn(Optional.of(transaction));
+        when(accountRepository.findById(1)).thenReturn(Optional.of(account));
+        when(accountRepository.addToBalance(1, difference)).thenReturn(0);
+        applyRollupChange();
+
+        assertThrows(InvalidDataException.class,
+                () -> transactionService.updateTransaction(1, updateDto));
+        verify(transactionRepository, times(0)).save(any(Transaction.class));
+    }
+
+    private void applyRollupChange() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(spendingRollupService).updateTransaction(any(Transaction.class),
+                any(Runnable.class));
+    }
+
     @Test
     void deleteTransaction_Success() {
         when(transactionRepository.findById(1)).thenReturn(Optional.of(transaction));
@@ -211,4 +285,102 @@ class TransactionServiceTest {
         assertDoesNotThrow(() -> transactionService.deleteTransaction(1));
         verify(transactionRepository, times(1)).delete(transaction);
     }
+
+    @Test
+    void deleteAllOfAccounts_DeletesInBatchesUntilAShortOne() {
+        List<Integer> fullBatch = IntStream.rangeClosed(1, 1000).boxed().toList();
+        when(categoryRepository.findCategoryIdsByClientId(1)).thenReturn(List.of(1, 2));
+        when(transactionRepository.findIdsByAccountIdIn(eq(List.of(1)), any(Limit.class)))
+                .thenReturn(fullBatch)
+                .thenReturn(List.of(1001, 1002));
+
+        assertEquals(1002, transactionService.deleteAllOfAccounts(1, List.of(1)));
+
+        verify(idempotencyRecordRepository).deleteAllByTransactionIdIn(fullBatch);
+        verify(transactionRepository).deleteAllByIdInBatch(fullBatch);
+        verify(transactionRepository).deleteAllByIdInBatch(List.of(1001, 1002));
+        verify(spendingRollupService).deleteAllOfAccounts(List.of(1));
+        verify(cache).remove("transactions_client_1_category_1");
+        verify(cache).remove("transactions_client_1_category_2");
+    }
+
+    @Test
+    void createTransactionBatch_AggregatesChangesAndSkipsInvalidItems() {
+        Budget budget = new Budget();
+        budget.setId(1);
+        budget.setCategory(category);
+        budget.setAvailableSum(150);
+        when(accountRepository.findAllById(any())).thenReturn(List.of(account));
+        when(categoryRepository.findById(1)).thenReturn(Optional.of(category));
+        when(budgetRepository.findByCategoryIdAndClientId(1, 1)).thenReturn(List.of(budget));
+        when(accountRepository.addToBalance(1, -70)).thenReturn(1);
+        when(budgetRepository.addToAvailableSum(1, -100)).thenReturn(1);
+
+        List<BatchItemResult> results = transactionService.createTransactionBatch(List.of(
+                new TransactionCreateDto("Groceries", -100, LocalDateTime.now(), 1, 1),
+                new TransactionCreateDto("Dinner", -80, LocalDateTime.now(), 1, 1),
+                new TransactionCreateDto("Refund", 30, LocalDateTime.now(), 1, 1)));
+
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).error() instanceof BudgetLimitExceededException);
+        assertTrue(results.get(2).isSuccess());
+        verify(accountRepository, times(1)).addToBalance(1, -70);
+        verify(budgetRepository, times(1)).addToAvailableSum(1, -100);
+        verify(budgetRepository, times(0)).saveAll(any());
+        verify(transactionRepository, times(1)).saveAll(any());
+    }
+
+    @Test
+    void createTransactionBatch_BudgetSpentConcurrently_ShouldFailWholeBatch() {
+        Budget budget = new Budget();
+        budget.setId(1);
+        budget.setCategory(category);
+        budget.setAvailableSum(150);
+        when(accountRepository.findAllById(any())).thenReturn(List.of(account));
+        when(categoryRepository.findById(1)).thenReturn(Optional.of(category));
+        when(budgetRepository.findByCategoryIdAndClientId(1, 1)).thenReturn(List.of(budget));
+        when(accountRepository.addToBalance(1, -100)).thenReturn(1);
+        when(budgetRepository.addToAvailableSum(1, -100)).thenReturn(0);
+
+        assertThrows(BudgetLimitExceededException.class,
+                () -> transactionService.createTransactionBatch(List.of(
+                        new TransactionCreateDto("Groceries", -100, LocalDateTime.now(), 1, 1))));
+        verify(transactionRepository, times(0)).saveAll(any());
+    }
+
+    @Test
+    void searchTransactions_ReturnsCursorWhenMoreRowsExist() {
+        Transaction older = new Transaction();
+        older.setId(2);
+        older.setAmount(-20);
+        older.setDate(transaction.getDate().minusDays(1));
+        older.setAccount(account);
+        older.setCategory(category);
+        when(transactionRepository.findBy(any(Specification.class), any()))
+                .thenReturn(List.of(transaction, older));
+        TransactionSearchDto criteria = new TransactionSearchDto();
+        criteria.setLimit(1);
+
+        TransactionSearchResultDto result = transactionService.searchTransactions(criteria);
+
+        assertEquals(1, result.getItems().size());
+        assertNotNull(result.getNextCursor());
+
+        when(transactionRepository.findBy(any(Specification.class), any()))
+                .thenReturn(List.of(older));
+        criteria.setCursor(result.getNextCursor());
+        TransactionSearchResultDto nextPage = transactionService.searchTransactions(criteria);
+
+        assertEquals(2, nextPage.getItems().get(0).getId());
+        assertNull(nextPage.getNextCursor());
+    }
+
+    @Test
+    void searchTransactions_InvalidCursor() {
+        TransactionSearchDto criteria = new TransactionSearchDto();
+        criteria.setCursor("not-a-cursor");
+
+        assertThrows(InvalidDataException.class,
+                () -> transactionService.searchTransactions(criteria));
+    }
 }
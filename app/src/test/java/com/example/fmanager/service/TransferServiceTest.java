@@ -0,0 +1,115 @@
+package com.example.fmanager.service;
+
+import java.util.List;
+import java.util.Optional;
+import com.example.fmanager.dto.TransferCreateDto;
+import com.example.fmanager.dto.TransferGetDto;
+import com.example.fmanager.exception.InvalidDataException;
+import com.example.fmanager.exception.NotFoundException;
+import com.example.fmanager.models.Account;
+import com.example.fmanager.models.Category;
+import com.example.fmanager.models.Client;
+import com.example.fmanager.repository.AccountRepository;
+import com.example.fmanager.repository.CategoryRepository;
+import com.example.fmanager.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransferServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private SpendingRollupService spendingRollupService;
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @InjectMocks
+    private TransferService transferService;
+
+    private Account low;
+    private Account high;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        Client client = new Client();
+        client.setId(1);
+        low = new Account();
+        low.setId(3);
+        low.setClient(client);
+        high = new Account();
+        high.setId(7);
+        high.setClient(client);
+        category = new Category();
+        category.setId(1);
+        category.setName("Transfers");
+    }
+
+    @Test
+    void transfer_LocksRollupsThenAccountsInIdOrder() {
+        when(accountRepository.findAllById(List.of(7, 3))).thenReturn(List.of(low, high));
+        when(categoryRepository.findById(1)).thenReturn(Optional.of(category));
+        when(accountRepository.addToBalance(3, 25.0)).thenReturn(1);
+        when(accountRepository.addToBalance(7, -25.0)).thenReturn(1);
+
+        TransferGetDto result = transferService.transfer(
+                new TransferCreateDto(7, 3, 25, 1, null, null));
+
+        InOrder inOrder = inOrder(spendingRollupService, accountRepository,
+                transactionRepository);
+        inOrder.verify(spendingRollupService).recordTransactions(anyList());
+        inOrder.verify(accountRepository).addToBalance(3, 25.0);
+        inOrder.verify(accountRepository).addToBalance(7, -25.0);
+        inOrder.verify(transactionRepository).saveAll(anyList());
+        assertEquals(-25.0, result.getDebit().getAmount());
+        assertEquals(7, result.getDebit().getAccountId());
+        assertEquals("Transfer from account 7", result.getCredit().getDescription());
+    }
+
+    @Test
+    void transfer_InsufficientFundsSavesNothing() {
+        when(accountRepository.findAllById(List.of(3, 7))).thenReturn(List.of(low, high));
+        when(categoryRepository.findById(1)).thenReturn(Optional.of(category));
+        when(accountRepository.addToBalance(3, -25.0)).thenReturn(0);
+
+        assertThrows(InvalidDataException.class, () -> transferService.transfer(
+                new TransferCreateDto(3, 7, 25, 1, null, null)));
+        verify(transactionRepository, times(0)).saveAll(anyList());
+    }
+
+    @Test
+    void transfer_RejectsSameAccountAndMissingAccounts() {
+        assertThrows(InvalidDataException.class, () -> transferService.transfer(
+                new TransferCreateDto(3, 3, 25, 1, null, null)));
+
+        when(accountRepository.findAllById(List.of(3, 9))).thenReturn(List.of(low));
+        assertThrows(NotFoundException.class, () -> transferService.transfer(
+                new TransferCreateDto(3, 9, 25, 1, null, null)));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.fmanager.service;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import com.example.fmanager.dto.RequestRateDto;
+import com.example.fmanager.dto.RequestSeriesDto;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class VisitCounterServiceTest {
+
+    @Test
+    void incrementVisitCount_CountsPastTheKeyCapUnderOther() {
+        VisitCounterService visitCounterService = new VisitCounterService(2);
+
+        visitCounterService.incrementVisitCount("/transactions/{id}");
+        visitCounterService.incrementVisitCount("/transactions/{id}");
+        visitCounterService.incrementVisitCount("/accounts");
+        visitCounterService.incrementVisitCount("/clients");
+        visitCounterService.incrementVisitCount("/goals");
+
+        assertEquals(2, visitCounterService.getVisitCount("/transactions/{id}"));
+        assertEquals(0, visitCounterService.getVisitCount("/clients"));
+        assertEquals(2, visitCounterService.getVisitCount(VisitCounterService.OTHER));
+        assertEquals(5, visitCounterService.getTotalVisitCount());
+        assertEquals(Map.of("/transactions/{id}", 2L, "/accounts", 1L,
+                VisitCounterService.OTHER, 2L), visitCounterService.getAllVisitCounts());
+    }
+
+    @Test
+    void getRequestRates_OnlyCoverTheLastMinuteAndHour() {
+        AtomicLong now = new AtomicLong(1_700_000_000_000L);
+        VisitCounterService visitCounterService = new VisitCounterService(10, now::get);
+        for (int i = 0; i < 3; i++) {
+            visitCounterService.incrementVisitCount("/accounts");
+        }
+        now.addAndGet(30_000);
+        visitCounterService.incrementVisitCount("/accounts");
+
+        RequestSeriesDto series = visitCounterService.getRequestSeries("/accounts");
+        assertEquals(1, series.getPerSecond()[59]);
+        assertEquals(3, series.getPerSecond()[29]);
+        assertEquals(4, series.getPerMinute()[58] + series.getPerMinute()[59]);
+
+        now.addAndGet(40_000);
+        RequestRateDto rate = visitCounterService.getRequestRates().get("/accounts");
+        assertEquals(1, rate.getLastMinute());
+        assertEquals(4, rate.getLastHour());
+        assertEquals(4 / 60.0, rate.getRequestsPerMinute());
+
+        now.addAndGet(3_600_000);
+        assertFalse(visitCounterService.getRequestRates().containsKey("/accounts"));
+        assertArrayEquals(new long[60],
+                visitCounterService.getRequestSeries("/accounts").getPerMinute());
+        assertEquals(4, visitCounterService.getVisitCount("/accounts"));
+    }
+}
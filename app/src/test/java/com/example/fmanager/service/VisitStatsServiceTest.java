@@ -0,0 +1,87 @@
+package com.example.fmanager.service;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VisitStatsServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private VisitCounterService visitCounterService;
+    private VisitStatsService visitStatsService;
+
+    @BeforeEach
+    void setUp() {
+        visitCounterService = new VisitCounterService(10);
+        visitStatsService = new VisitStatsService(jdbcTemplate, ShardRouting.unsharded(),
+                TransactionOperations.withoutTransaction(), visitCounterService, true, "node-1",
+                tempDir.resolve("instance-id").toString());
+    }
+
+    @Test
+    void flush_WritesOnlyCountsAddedSinceTheRestore() {
+        when(jdbcTemplate.queryForList(anyString(), eq("node-1"))).thenReturn(List.of(
+                Map.of("url", "/accounts", "visits", 5L)));
+        visitStatsService.flush();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+
+        visitStatsService.restore();
+        visitCounterService.incrementVisitCount("/accounts");
+        visitCounterService.incrementVisitCount("/accounts");
+        visitCounterService.incrementVisitCount("/clients");
+        visitStatsService.flush();
+
+        assertEquals(7, visitCounterService.getVisitCount("/accounts"));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> upserts = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("ON CONFLICT (instance_id, url) DO UPDATE"),
+                upserts.capture());
+        assertEquals(2, upserts.getValue().size());
+        assertArrayEquals(new Object[] {"node-1", "/accounts", 2L}, upserts.getValue().get(0));
+        assertArrayEquals(new Object[] {"node-1", "/clients", 1L}, upserts.getValue().get(1));
+
+        visitStatsService.flush();
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void instanceId_NotConfigured_ShouldBeGeneratedOnceAndKept() {
+        String instanceIdFile = tempDir.resolve("instance-id").toString();
+        VisitStatsService first = new VisitStatsService(jdbcTemplate, ShardRouting.unsharded(),
+                TransactionOperations.withoutTransaction(), visitCounterService, true, "",
+                instanceIdFile);
+        VisitStatsService second = new VisitStatsService(jdbcTemplate, ShardRouting.unsharded(),
+                TransactionOperations.withoutTransaction(), visitCounterService, true, "",
+                instanceIdFile);
+
+        assertFalse(first.getInstanceId().isBlank());
+        assertEquals(first.getInstanceId(), second.getInstanceId());
+        assertEquals("node-1", visitStatsService.getInstanceId());
+    }
+}